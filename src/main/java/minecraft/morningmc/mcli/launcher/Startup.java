@@ -1,5 +1,8 @@
 package minecraft.morningmc.mcli.launcher;
 
+import minecraft.morningmc.mcli.launcher.daemon.DaemonClient;
+import minecraft.morningmc.mcli.launcher.daemon.LauncherDaemon;
+import minecraft.morningmc.mcli.launcher.main.HeadlessLauncher;
 import minecraft.morningmc.mcli.launcher.main.Main;
 import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
 import minecraft.morningmc.mcli.launcher.metadata.LauncherMetadata;
@@ -10,52 +13,88 @@ import javafx.application.Application;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Arrays;
+
 /**
  * The entry point for launching the MCL Improved.
  */
 public class Startup {
-    private static final Logger LOGGER = LogManager.getLogger();
+    static {
+        // before the first logger, as log4j2.xml resolves the log directory once
+        System.setProperty(FileMetadata.APPDATA_PROPERTY, FileMetadata.APPDATA.getPath());
+    }
+    
+    /** Holds the logger, so that the client path never starts logging. */
+    private static final class Log {
+        private static final Logger LOGGER = LogManager.getLogger(Startup.class);
+    }
     
     /**
      * Constructs a new instance of {@code Startup}, logging launcher information.
      */
     public Startup() {
-        LOGGER.info(LauncherMetadata.LONG_FULL_NAME);
-        LOGGER.info("System platform: " + Platform.SYSTEM);
-        LOGGER.info("Current platform: " + Platform.CURRENT);
-        LOGGER.info("Working root: " + FileMetadata.WORKING_ROOT);
+        Log.LOGGER.info(LauncherMetadata.LONG_FULL_NAME);
+        Log.LOGGER.info("System platform: " + Platform.SYSTEM);
+        Log.LOGGER.info("Current platform: " + Platform.CURRENT);
+        Log.LOGGER.info("Working root: " + FileMetadata.WORKING_ROOT);
         
         if (!LauncherMetadata.isStable()) {
-            LOGGER.warn("This is a development build. There may be some issues.");
+            Log.LOGGER.warn("This is a development build. There may be some issues.");
         }
     }
     
     /**
      * The main method for launching the MCL Improved.
+     * With {@code --headless [profile]}, a profile is launched without the UI, see {@link HeadlessLauncher}.
+     * With {@code --daemon}, the launcher runs without the UI and is controlled over a socket, see {@link LauncherDaemon}.
+     * With {@code --client}, a command is sent to the daemon by {@link DaemonClient#main}, without starting the launcher.
      *
      * @param args Command-line arguments.
      */
     public static void main(String... args) {
-        LOGGER.info("Starting launcher...");
+        // the output of the client is the response, so it neither logs nor resolves the platform
+        if (DaemonClient.isRequested(args)) {
+            DaemonClient.main(Arrays.copyOfRange(args, 1, args.length));
+        }
+        
+        Log.LOGGER.info("Starting launcher...");
+        
+        boolean headless = HeadlessLauncher.isRequested(args) || LauncherDaemon.isRequested(args);
+        int exitCode = 0;
         
         try {
-            new Startup().run(args);
+            exitCode = new Startup().run(headless, args);
             
         } catch (Throwable t) {
-            LOGGER.fatal("Launcher crashed: ", t);
+            Log.LOGGER.fatal("Launcher crashed: ", t);
             System.exit(-1);
             
         } finally {
-            LOGGER.info("Launcher quit.");
+            Log.LOGGER.info("Launcher quit.");
+        }
+        
+        if (headless) {
+            System.exit(exitCode);
         }
     }
     
     /**
      * Runs the launcher.
      *
+     * @param headless Whether to run without the UI.
      * @param args Command-line arguments.
+     * @return The exit code of the launcher.
      */
-    private void run(String... args) {
+    private int run(boolean headless, String... args) {
+        // never touch a JavaFX class without the UI
+        if (LauncherDaemon.isRequested(args)) {
+            return LauncherDaemon.run(args);
+        }
+        if (headless) {
+            return HeadlessLauncher.run(args);
+        }
+        
         Application.launch(Main.class, args);
+        return 0;
     }
 }
\ No newline at end of file
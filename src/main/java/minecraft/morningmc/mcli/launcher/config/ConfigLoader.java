@@ -0,0 +1,166 @@
+package minecraft.morningmc.mcli.launcher.config;
+
+import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
+import minecraft.morningmc.mcli.minecraft.client.profile.ProfileCollection;
+import minecraft.morningmc.mcli.minecraft.java.JavaRuntimeCollection;
+import minecraft.morningmc.mcli.minecraft.launch.LaunchOptions;
+import minecraft.morningmc.mcli.minecraft.launch.Launcher;
+
+import dev.dewy.nbt.Nbt;
+import dev.dewy.nbt.tags.collection.CompoundTag;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Loads the config at startup and hands it over to the {@link ConfigStore}.
+ * <p>
+ * Shared by the JavaFX launcher and the headless launcher, so it must not touch any JavaFX class.
+ * The steps are separate methods so that the JavaFX launcher can run them as concurrent startup phases:
+ * {@link #parseConfig()} comes first, once {@link FileMetadata#completeFiles()} created the working directory,
+ * {@link #loadLauncher()} needs {@link #loadProfiles()}
+ * and {@link #startConfigStore()} needs every other step.
+ */
+public class ConfigLoader {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	private CompoundTag config;
+	private RecordStore records;
+	private Launcher launcher;
+	
+	/**
+	 * Reads the config from {@link FileMetadata#CONFIG_RECORDS}, migrating {@link FileMetadata#CONFIG} while the record
+	 * file holds no records, or from {@link FileMetadata#CONFIG} if the record file cannot be opened.
+	 */
+	public void parseConfig() {
+		try {
+			records = new RecordStore(FileMetadata.CONFIG_RECORDS);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to open config records, falling back to " + FileMetadata.CONFIG.getName() + ": " + e.getMessage());
+			records = null;
+		}
+		
+		// a record file created by an earlier start that failed to migrate is still empty, so the migration is retried
+		boolean migrate = records != null && !records.isReadOnly() && records.isEmpty() && FileMetadata.CONFIG.length() > 0;
+		
+		if (records != null && !migrate) {
+			try {
+				config = ConfigStore.readRecords(records);
+				return;
+			} catch (IOException e) {
+				LOGGER.warn("Failed to load config records: " + e.getMessage());
+			}
+		}
+		
+		try {
+			config = new Nbt().fromFile(FileMetadata.CONFIG);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to load config: " + e.getMessage());
+			config = new CompoundTag();
+		}
+		
+		if (migrate) {
+			migrateConfig();
+		}
+	}
+	
+	/**
+	 * Moves the config from {@link FileMetadata#CONFIG} to {@link FileMetadata#CONFIG_RECORDS}, once.
+	 * The old config file is kept as a backup.
+	 */
+	private void migrateConfig() {
+		try {
+			ConfigStore.migrate(config, records);
+			config = ConfigStore.readRecords(records);
+			
+			File backup = new File(FileMetadata.WORKING_ROOT, FileMetadata.CONFIG.getName() + ".bak");
+			if (!FileMetadata.CONFIG.renameTo(backup)) {
+				LOGGER.warn("Failed to back up " + FileMetadata.CONFIG + " after migrating it");
+			}
+			
+			LOGGER.info("Migrated config to " + FileMetadata.CONFIG_RECORDS.getName() + ", " + records.size() + " bytes");
+			
+		} catch (IOException e) {
+			LOGGER.error("Failed to migrate config: ", e);
+		}
+	}
+	
+	/**
+	 * Loads the profile collection.
+	 */
+	public void loadProfiles() {
+		try {
+			if (records != null && config.get("profileCollection") == null) {
+				ProfileCollection.loadFromRecords(records);
+				return;
+			}
+			
+			ProfileCollection.LOADER.loadFromNbt(config.getList("profileCollection"));
+		} catch (Exception e) {
+			LOGGER.warn("Failed to load profileCollection: " + e.getMessage());
+			ProfileCollection.init(Set.of());
+		}
+	}
+	
+	/**
+	 * Loads the Java runtime collection.
+	 */
+	public void loadRuntimes() {
+		try {
+			JavaRuntimeCollection.LOADER.loadFromNbt(config.getList("javaRuntimeCollection"));
+		} catch (Exception e) {
+			LOGGER.warn("Failed to load javaRuntimeCollection: " + e.getMessage());
+			JavaRuntimeCollection.init(Set.of());
+		}
+	}
+	
+	/**
+	 * Loads the launcher. Needs the profile collection.
+	 */
+	public void loadLauncher() {
+		try {
+			launcher = Launcher.LOADER.loadFromNbt(config.getCompound("launcher"));
+		} catch (Exception e) {
+			LOGGER.warn("Failed to load launcher: " + e.getMessage());
+			launcher = new Launcher(LaunchOptions.DEFAULT, null);
+		}
+	}
+	
+	/**
+	 * Starts saving changes in the background. Runtimes may still be loading, their saved section is kept until then.
+	 */
+	public void startConfigStore() {
+		ConfigStore.register(ConfigStore.Section.PROFILES, () -> ProfileCollection.LOADER.saveToNbt(ProfileCollection.instance));
+		ConfigStore.register(ConfigStore.Section.RUNTIMES, () -> JavaRuntimeCollection.instance != null ? JavaRuntimeCollection.LOADER.saveToNbt(JavaRuntimeCollection.instance) : null);
+		ConfigStore.register(ConfigStore.Section.LAUNCHER, () -> Launcher.LOADER.saveToNbt(launcher));
+		ConfigStore.registerRecords(ConfigStore.Section.PROFILES, ProfileCollection::getRecords);
+		ConfigStore.init(config, records);
+	}
+	
+	/**
+	 * Closes the record store when the config store was never started, e.g. by a headless launch.
+	 */
+	public void close() {
+		if (records != null) {
+			try {
+				records.close();
+			} catch (IOException e) {
+				LOGGER.warn("Failed to close config records: " + e.getMessage());
+			}
+		}
+	}
+	
+	// Getters
+	/**
+	 * Gets the loaded launcher.
+	 *
+	 * @return The launcher, or {@code null} if not loaded yet.
+	 */
+	public Launcher getLauncher() {
+		return launcher;
+	}
+}
@@ -0,0 +1,356 @@
+package minecraft.morningmc.mcli.launcher.config;
+
+import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
+import minecraft.morningmc.mcli.utils.AtomicFiles;
+
+import dev.dewy.nbt.Nbt;
+import dev.dewy.nbt.api.Tag;
+import dev.dewy.nbt.tags.collection.CompoundTag;
+import dev.dewy.nbt.tags.collection.ListTag;
+import dev.dewy.nbt.tags.primitive.StringTag;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * A write-behind store for the config, saved to {@link FileMetadata#CONFIG_RECORDS} or, if the record file cannot be
+ * opened, to {@link FileMetadata#CONFIG}.
+ * <p>
+ * Changes mark their {@link Section} dirty. A background writer waits {@link #DEBOUNCE} milliseconds after the first
+ * change so that a burst of edits is coalesced and re-serializes only the dirty sections.
+ * With a {@link RecordStore}, every section is a record, except for the sections registered as records themselves,
+ * e.g. one record per profile, and only the records that changed are appended.
+ * Otherwise the config file is replaced atomically through a temporary file, and clean sections are written from
+ * the tag they were last saved or loaded as.
+ */
+public class ConfigStore {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The delay between the first change and the write, in milliseconds. */
+	public static final long DEBOUNCE = 500;
+	
+	public static final ConfigStore instance = new ConfigStore();
+	
+	private final Nbt nbt = new Nbt();
+	
+	private final Map<Section, Supplier<? extends Tag>> serializers = new ConcurrentHashMap<>();
+	private final Map<Section, Supplier<Map<String, Entry>>> recordSerializers = new ConcurrentHashMap<>();
+	private final Set<Section> dirty = ConcurrentHashMap.newKeySet();
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+	
+	private CompoundTag config = new CompoundTag();
+	private RecordStore records = null;
+	private ScheduledExecutorService writer = null;
+	private volatile boolean started = false;
+	
+	/**
+	 * Registers the serializer of a section. Must be called before {@link #init(CompoundTag)}.
+	 *
+	 * @param section The section.
+	 * @param serializer The serializer producing the NBT data of the section.
+	 */
+	public static void register(Section section, Supplier<? extends Tag> serializer) {
+		instance.serializers.put(section, serializer);
+	}
+	
+	/**
+	 * Registers the serializer of a section saved as one record per entry. Must be called before {@link #init(CompoundTag)}.
+	 * Only used with a record store, the section falls back to its {@link #register(Section, Supplier) serializer} otherwise.
+	 *
+	 * @param section The section.
+	 * @param serializer The serializer producing the entries of the section by key.
+	 */
+	public static void registerRecords(Section section, Supplier<Map<String, Entry>> serializer) {
+		instance.recordSerializers.put(section, serializer);
+	}
+	
+	/**
+	 * Starts the store with the config loaded at startup. Changes made while loading are discarded,
+	 * as the loaded config already holds them.
+	 *
+	 * @param loaded The loaded config.
+	 */
+	public static void init(CompoundTag loaded) {
+		init(loaded, null);
+	}
+	
+	/**
+	 * Starts the store with the config loaded at startup, saving changes to a record store.
+	 *
+	 * @param loaded The loaded config, used when there is no record store.
+	 * @param records The record store, or {@code null} to save to {@link FileMetadata#CONFIG}.
+	 */
+	public static synchronized void init(CompoundTag loaded, RecordStore records) {
+		if (instance.started) {
+			throw new IllegalStateException("ConfigStore already initialized");
+		}
+		
+		instance.config = loaded != null ? loaded : new CompoundTag();
+		instance.records = records;
+		instance.dirty.clear();
+		instance.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "configWriter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		instance.started = true;
+	}
+	
+	/**
+	 * Marks a section as changed. The section is written in the background after {@link #DEBOUNCE} milliseconds.
+	 *
+	 * @param section The changed section.
+	 */
+	public static void markDirty(Section section) {
+		instance.dirty.add(section);
+		
+		if (instance.started && instance.scheduled.compareAndSet(false, true)) {
+			try {
+				instance.writer.schedule(() -> {
+					instance.scheduled.set(false);
+					flush();
+				}, DEBOUNCE, TimeUnit.MILLISECONDS);
+				
+			} catch (RejectedExecutionException e) {
+				// shutting down, close() flushes
+				instance.scheduled.set(false);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the dirty sections now, if there are any.
+	 */
+	public static synchronized void flush() {
+		if (!instance.started || instance.dirty.isEmpty()) {
+			return;
+		}
+		
+		List<Section> sections = new ArrayList<>();
+		for (Section section : Section.values()) {
+			if (instance.dirty.remove(section)) {
+				sections.add(section);
+			}
+		}
+		
+		if (instance.records != null) {
+			flushRecords(sections);
+			return;
+		}
+		
+		for (Section section : sections) {
+			Supplier<? extends Tag> serializer = instance.serializers.get(section);
+			if (serializer == null) {
+				continue;
+			}
+			
+			try {
+				Tag tag = serializer.get();
+				if (tag != null) {
+					instance.config.put(section.key(), tag);
+				}
+			} catch (Exception e) {
+				// most likely modified while serializing, try again on the next write
+				LOGGER.warn("Failed to serialize config section " + section.key() + ": " + e.getMessage());
+				markDirty(section);
+			}
+		}
+		
+		try {
+			writeAtomically(instance.nbt, instance.config, FileMetadata.CONFIG);
+			LOGGER.debug("Saved config sections " + sections);
+			
+		} catch (IOException e) {
+			LOGGER.error("Failed to save config: ", e);
+			sections.forEach(ConfigStore::markDirty);
+		}
+	}
+	
+	/**
+	 * Writes the dirty sections to the record store.
+	 *
+	 * @param sections The dirty sections.
+	 */
+	private static void flushRecords(List<Section> sections) {
+		RecordStore records = instance.records;
+		if (records.isReadOnly()) {
+			// another launcher owns the config, retrying would never succeed
+			LOGGER.debug("Not saving config sections " + sections + ", " + records.getFile().getName() + " is read-only");
+			return;
+		}
+		
+		int written = 0;
+		
+		for (Section section : sections) {
+			try {
+				Supplier<Map<String, Entry>> recordSerializer = instance.recordSerializers.get(section);
+				
+				if (recordSerializer != null) {
+					Map<String, Entry> entries = recordSerializer.get();
+					
+					for (String key : records.keys(section)) {
+						if (!entries.containsKey(key) && records.remove(section, key)) {
+							written++;
+						}
+					}
+					for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+						CompoundTag tag = entry.getValue().tag() != null ? entry.getValue().tag().get() : null;
+						if (tag != null && records.put(section, entry.getKey(), entry.getValue().summary(), tag)) {
+							written++;
+						}
+					}
+					
+				} else if (instance.serializers.get(section) != null) {
+					Tag tag = instance.serializers.get(section).get();
+					if (tag != null && records.put(section, "", null, wrap(tag))) {
+						written++;
+					}
+				}
+				
+			} catch (Exception e) {
+				LOGGER.warn("Failed to save config section " + section.key() + ": " + e.getMessage());
+				markDirty(section);
+			}
+		}
+		
+		try {
+			records.force();
+			LOGGER.debug("Saved config sections " + sections + ", " + written + " records written");
+			
+		} catch (IOException e) {
+			LOGGER.error("Failed to save config: ", e);
+			sections.forEach(ConfigStore::markDirty);
+		}
+	}
+	
+	/**
+	 * Stops the background writer and writes the pending changes.
+	 */
+	public static void close() {
+		if (!instance.started) {
+			return;
+		}
+		
+		instance.writer.shutdownNow();
+		flush();
+		
+		if (instance.records != null) {
+			try {
+				instance.records.close();
+			} catch (IOException e) {
+				LOGGER.warn("Failed to close config records: " + e.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * Reads the config from a record store. Sections saved as one record per entry are left out,
+	 * they are read from the record store directly.
+	 *
+	 * @param records The record store.
+	 * @return The config.
+	 * @throws IOException If a record cannot be read.
+	 */
+	public static CompoundTag readRecords(RecordStore records) throws IOException {
+		CompoundTag config = new CompoundTag();
+		
+		for (Section section : Section.values()) {
+			CompoundTag record = records.get(section, "");
+			if (record != null && record.get("value") != null) {
+				config.put(section.key(), record.get("value"));
+			}
+		}
+		
+		return config;
+	}
+	
+	/**
+	 * Migrates a config saved as a single NBT file to a record store, one record per profile.
+	 *
+	 * @param config The config loaded from the NBT file.
+	 * @param records The record store.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public static void migrate(CompoundTag config, RecordStore records) throws IOException {
+		for (Section section : Section.values()) {
+			Tag tag = config.get(section.key());
+			if (tag == null) {
+				continue;
+			}
+			
+			if (section == Section.PROFILES && tag instanceof ListTag<?> profiles) {
+				for (Tag profile : profiles) {
+					if (profile instanceof CompoundTag profileTag && profileTag.get("name") instanceof StringTag name) {
+						String icon = profileTag.get("icon") instanceof StringTag iconTag ? iconTag.getValue() : null;
+						records.put(section, name.getValue(), icon, profileTag);
+					}
+				}
+				
+			} else {
+				records.put(section, "", null, wrap(tag));
+			}
+		}
+		
+		records.force();
+	}
+	
+	private static CompoundTag wrap(Tag tag) {
+		CompoundTag record = new CompoundTag();
+		record.put("value", tag);
+		
+		return record;
+	}
+	
+	/**
+	 * Writes an NBT compound tag to a file through a temporary file, so the file is never left half-written.
+	 *
+	 * @param nbt The NBT instance used to write the tag.
+	 * @param tag The NBT compound tag to be written.
+	 * @param file The target file.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public static void writeAtomically(Nbt nbt, CompoundTag tag, File file) throws IOException {
+		File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+		nbt.toFile(tag, temp);
+		AtomicFiles.replace(temp.toPath(), file.toPath());
+	}
+	
+	/**
+	 * An entry of a section saved as one record per entry.
+	 *
+	 * @param summary The summary of the entry, readable without decoding it.
+	 * @param tag The serializer of the entry, or {@code null} if the entry is unchanged since it was read from the record store.
+	 */
+	public record Entry(String summary, Supplier<CompoundTag> tag) {}
+	
+	/**
+	 * The sections of the config file.
+	 */
+	public enum Section {
+		PROFILES("profileCollection"),
+		RUNTIMES("javaRuntimeCollection"),
+		LAUNCHER("launcher");
+		
+		private final String key;
+		
+		Section(String key) {
+			this.key = key;
+		}
+		
+		/**
+		 * Gets the key of the section in the config file.
+		 *
+		 * @return The key of the section.
+		 */
+		public String key() {
+			return key;
+		}
+	}
+}
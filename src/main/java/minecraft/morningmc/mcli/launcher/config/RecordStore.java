@@ -0,0 +1,523 @@
+package minecraft.morningmc.mcli.launcher.config;
+
+import dev.dewy.nbt.Nbt;
+import dev.dewy.nbt.tags.collection.CompoundTag;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import minecraft.morningmc.mcli.utils.AtomicFiles;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of NBT records, read through a memory mapping.
+ * <p>
+ * Every record belongs to a {@link ConfigStore.Section} and has a key, e.g. the name of a profile, and a short summary
+ * readable without decoding the record, e.g. the icon of a profile. Updating a record appends a new version of it
+ * and removing one appends a tombstone, so a single profile is saved without rewriting the file.
+ * An offset table per section is rebuilt when opening the file, and the file is compacted
+ * once more than half of it is taken by outdated records.
+ * <p>
+ * Record layout: {@code int length, int crc, byte section, short key length, key, short summary length, summary, payload},
+ * where {@code length} counts the bytes after itself, {@code crc} covers the bytes after itself, the section byte has
+ * {@link #TOMBSTONE} set for removals, and the payload is an uncompressed NBT compound tag.
+ * A torn record at the end of the file, e.g. after a crash while appending, is zeroed when opening, and a zero length
+ * marks the end of the records.
+ * <p>
+ * The file is mapped once when opened, records appended afterwards are read through the channel. The mapping is never
+ * released explicitly: the file only grows while it is mapped, and compaction, which replaces it, is retried later
+ * where the file system refuses to replace a mapped file, e.g. on Windows, until the mapping is collected.
+ * <p>
+ * Only one process appends to a file: it is locked when opened, and opened read-only if another launcher,
+ * e.g. the daemon, holds the lock.
+ */
+public class RecordStore implements Closeable {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	private static final int MAGIC = 0x4D434C52; // MCLR
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 8;
+	private static final int RECORD_HEADER_SIZE = 8;
+	private static final int TOMBSTONE = 0x80;
+	
+	/** The minimum size of outdated records before the file is compacted, in bytes. */
+	public static final long COMPACT_THRESHOLD = 1 << 20;
+	
+	private final File file;
+	private final Nbt nbt = new Nbt();
+	private final CRC32 crc = new CRC32();
+	
+	private final List<Map<String, Long>> offsets = new ArrayList<>();
+	private final Map<Long, String> summaries = new HashMap<>();
+	
+	private FileChannel channel;
+	private boolean readOnly;
+	private MappedByteBuffer map;
+	private long end;
+	private long garbage;
+	
+	/**
+	 * Opens a record file, creating it if missing. The file is opened read-only if another process holds its lock.
+	 *
+	 * @param file The record file.
+	 * @throws IOException If the file cannot be opened or is not a record file.
+	 */
+	public RecordStore(File file) throws IOException {
+		this.file = file;
+		
+		for (int i = 0; i < ConfigStore.Section.values().length; i++) {
+			offsets.add(new LinkedHashMap<>());
+		}
+		
+		open();
+	}
+	
+	private void open() throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		readOnly = !lock();
+		
+		if (channel.size() == 0 && !readOnly) {
+			channel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).flip(), 0);
+		}
+		
+		map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		if (map.capacity() < HEADER_SIZE || map.getInt(0) != MAGIC) {
+			map = null;
+			channel.close();
+			throw new IOException("Not a record file: " + file);
+		}
+		if (map.getInt(4) != FORMAT_VERSION) {
+			int version = map.getInt(4);
+			map = null;
+			channel.close();
+			throw new IOException("Unsupported record file version " + version + ": " + file);
+		}
+		
+		scan();
+	}
+	
+	/**
+	 * Locks the file for appending. The lock covers a byte far past the records, as locks are mandatory on Windows
+	 * and would keep readers out of the records themselves. It is released when the channel is closed.
+	 *
+	 * @return {@code true} if locked, {@code false} if another process holds the lock.
+	 */
+	private boolean lock() throws IOException {
+		try {
+			if (channel.tryLock(Long.MAX_VALUE - 1, 1, false) != null) {
+				return true;
+			}
+		} catch (OverlappingFileLockException e) {
+			// opened twice by this process
+		}
+		
+		LOGGER.warn(file + " is in use by another launcher, opened read-only, changes are not saved");
+		return false;
+	}
+	
+	/**
+	 * Rebuilds the offset tables by walking the record headers.
+	 */
+	private void scan() throws IOException {
+		offsets.forEach(Map::clear);
+		summaries.clear();
+		garbage = 0;
+		
+		long position = HEADER_SIZE;
+		long size = map.capacity();
+		
+		while (position + RECORD_HEADER_SIZE <= size) {
+			int length = map.getInt((int) position);
+			if (length < RECORD_HEADER_SIZE || position + 4 + length > size || !checksum(position, length)) {
+				break;
+			}
+			
+			int flags = map.get((int) position + 8) & 0xFF;
+			int section = flags & ~TOMBSTONE;
+			if (section >= offsets.size()) {
+				break;
+			}
+			
+			String key = readString((int) position + 9);
+			Long previous = (flags & TOMBSTONE) != 0 ? offsets.get(section).remove(key) : offsets.get(section).put(key, position);
+			
+			if (previous != null) {
+				summaries.remove(previous);
+				garbage += 4 + map.getInt(previous.intValue());
+			}
+			if ((flags & TOMBSTONE) != 0) {
+				garbage += 4 + length;
+			} else {
+				summaries.put(position, readString((int) position + 11 + utf8Length((int) position + 9)));
+			}
+			
+			position += 4 + length;
+		}
+		
+		// the torn tail may be a record being appended by the process holding the lock; it is zeroed rather than
+		// cut off, as a mapped file cannot be truncated everywhere
+		if (!readOnly && !isZeroed(position, size)) {
+			LOGGER.warn("Zeroed " + (size - position) + " bytes of torn records at the end of " + file);
+			ByteBuffer zeros = ByteBuffer.allocate((int) (size - position));
+			while (zeros.hasRemaining()) {
+				channel.write(zeros, position + zeros.position());
+			}
+		}
+		
+		end = position;
+	}
+	
+	private boolean isZeroed(long from, long to) {
+		for (int i = (int) from; i < to; i++) {
+			if (map.get(i) != 0) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private boolean checksum(long position, int length) {
+		crc.reset();
+		crc.update(map.slice((int) position + 8, length - 4));
+		return (int) crc.getValue() == map.getInt((int) position + 4);
+	}
+	
+	private int utf8Length(int position) {
+		return map.getShort(position) & 0xFFFF;
+	}
+	
+	private String readString(int position) {
+		byte[] bytes = new byte[utf8Length(position)];
+		map.get(position + 2, bytes);
+		
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Gets the keys of a section, in the order they were first written.
+	 *
+	 * @param section The section.
+	 * @return The keys of the section.
+	 */
+	public synchronized List<String> keys(ConfigStore.Section section) {
+		return List.copyOf(offsets.get(section.ordinal()).keySet());
+	}
+	
+	/**
+	 * Checks if the file holds no records.
+	 *
+	 * @return {@code true} if no section has a record, {@code false} otherwise.
+	 */
+	public synchronized boolean isEmpty() {
+		return offsets.stream().allMatch(Map::isEmpty);
+	}
+	
+	/**
+	 * Checks if a record exists.
+	 *
+	 * @param section The section.
+	 * @param key The key of the record.
+	 * @return {@code true} if the record exists, {@code false} otherwise.
+	 */
+	public synchronized boolean contains(ConfigStore.Section section, String key) {
+		return offsets.get(section.ordinal()).containsKey(key);
+	}
+	
+	/**
+	 * Gets the summary of a record without decoding it.
+	 *
+	 * @param section The section.
+	 * @param key The key of the record.
+	 * @return The summary of the record, or {@code null} if not found.
+	 */
+	public synchronized String summary(ConfigStore.Section section, String key) {
+		Long position = offsets.get(section.ordinal()).get(key);
+		return position != null ? summaries.get(position) : null;
+	}
+	
+	/**
+	 * Reads a record.
+	 *
+	 * @param section The section.
+	 * @param key The key of the record.
+	 * @return The NBT compound tag of the record, or {@code null} if not found.
+	 * @throws IOException If the record cannot be decoded.
+	 */
+	public synchronized CompoundTag get(ConfigStore.Section section, String key) throws IOException {
+		byte[] payload = payload(section, key);
+		return payload != null ? nbt.fromStream(new DataInputStream(new ByteArrayInputStream(payload))) : null;
+	}
+	
+	private byte[] payload(ConfigStore.Section section, String key) throws IOException {
+		Long position = offsets.get(section.ordinal()).get(key);
+		if (position == null) {
+			return null;
+		}
+		
+		ByteBuffer record = record(position);
+		int keyEnd = 11 + (record.getShort(9) & 0xFFFF);
+		int payloadStart = keyEnd + 2 + (record.getShort(keyEnd) & 0xFFFF);
+		
+		byte[] payload = new byte[record.capacity() - payloadStart];
+		record.get(payloadStart, payload);
+		
+		return payload;
+	}
+	
+	/**
+	 * Gets a whole record, from the mapping if it was there when the file was opened, from the channel otherwise.
+	 *
+	 * @param position The position of the record.
+	 * @return A buffer of the record, starting with its length.
+	 */
+	private ByteBuffer record(long position) throws IOException {
+		if (position + 4 <= map.capacity()) {
+			int length = map.getInt((int) position);
+			if (position + 4 + length <= map.capacity()) {
+				return map.slice((int) position, 4 + length);
+			}
+		}
+		
+		ByteBuffer record = ByteBuffer.allocate(4 + recordLength(position));
+		while (record.hasRemaining()) {
+			if (channel.read(record, position + record.position()) < 0) {
+				throw new EOFException("Truncated record at " + position + " of " + file);
+			}
+		}
+		
+		return record.flip();
+	}
+	
+	/**
+	 * Gets the length of a record, counting the bytes after the length itself.
+	 */
+	private int recordLength(long position) throws IOException {
+		if (position + 4 <= map.capacity()) {
+			return map.getInt((int) position);
+		}
+		
+		ByteBuffer length = ByteBuffer.allocate(4);
+		while (length.hasRemaining()) {
+			if (channel.read(length, position + length.position()) < 0) {
+				throw new EOFException("Truncated record at " + position + " of " + file);
+			}
+		}
+		
+		return length.getInt(0);
+	}
+	
+	/**
+	 * Writes a record, unless it is unchanged.
+	 *
+	 * @param section The section.
+	 * @param key The key of the record.
+	 * @param summary The summary of the record.
+	 * @param tag The NBT compound tag of the record.
+	 * @return {@code true} if the record was written, {@code false} if it was unchanged.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public synchronized boolean put(ConfigStore.Section section, String key, String summary, CompoundTag tag) throws IOException {
+		checkWritable();
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		nbt.toStream(tag, new DataOutputStream(bytes));
+		byte[] payload = bytes.toByteArray();
+		
+		String normalizedSummary = summary != null ? summary : "";
+		Long previous = offsets.get(section.ordinal()).get(key);
+		if (previous != null && normalizedSummary.equals(summaries.get(previous)) && Arrays.equals(payload, payload(section, key))) {
+			return false;
+		}
+		
+		long position = append(section.ordinal(), key, normalizedSummary, payload);
+		offsets.get(section.ordinal()).put(key, position);
+		summaries.put(position, normalizedSummary);
+		
+		if (previous != null) {
+			summaries.remove(previous);
+			garbage += 4 + recordLength(previous);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Removes a record.
+	 *
+	 * @param section The section.
+	 * @param key The key of the record.
+	 * @return {@code true} if the record existed, {@code false} otherwise.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public synchronized boolean remove(ConfigStore.Section section, String key) throws IOException {
+		checkWritable();
+		
+		Long previous = offsets.get(section.ordinal()).get(key);
+		if (previous == null) {
+			return false;
+		}
+		
+		long position = append(section.ordinal() | TOMBSTONE, key, "", new byte[0]);
+		offsets.get(section.ordinal()).remove(key);
+		summaries.remove(previous);
+		garbage += 4 + recordLength(previous) + 4 + recordLength(position);
+		
+		return true;
+	}
+	
+	private void checkWritable() throws IOException {
+		if (readOnly) {
+			throw new IOException(file + " is opened read-only");
+		}
+	}
+	
+	private long append(int flags, String key, String summary, byte[] payload) throws IOException {
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		byte[] summaryBytes = summary.getBytes(StandardCharsets.UTF_8);
+		if (keyBytes.length > 0xFFFF || summaryBytes.length > 0xFFFF) {
+			throw new IOException("Record key or summary too long: " + key);
+		}
+		
+		int length = 4 + 1 + 2 + keyBytes.length + 2 + summaryBytes.length + payload.length;
+		if (end + 4 + length > Integer.MAX_VALUE) {
+			throw new IOException("Record file too large: " + file);
+		}
+		
+		ByteBuffer buffer = ByteBuffer.allocate(4 + length)
+				                    .putInt(length)
+				                    .putInt(0)
+				                    .put((byte) flags)
+				                    .putShort((short) keyBytes.length).put(keyBytes)
+				                    .putShort((short) summaryBytes.length).put(summaryBytes)
+				                    .put(payload);
+		
+		crc.reset();
+		crc.update(buffer.array(), 8, length - 4);
+		buffer.putInt(4, (int) crc.getValue());
+		
+		long position = end;
+		for (buffer.flip(); buffer.hasRemaining(); ) {
+			channel.write(buffer, position + buffer.position());
+		}
+		end += 4 + length;
+		
+		return position;
+	}
+	
+	/**
+	 * Forces the appended records to the disk, and compacts the file if it is mostly outdated records.
+	 *
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public synchronized void force() throws IOException {
+		if (readOnly) {
+			return;
+		}
+		
+		channel.force(false);
+		
+		if (garbage > COMPACT_THRESHOLD && garbage > end / 2) {
+			compact();
+		}
+	}
+	
+	/**
+	 * Rewrites the file with only the current records, replacing it atomically. If the file system refuses to replace
+	 * the file while it is mapped, it is kept and compacted by a later call.
+	 *
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public synchronized void compact() throws IOException {
+		checkWritable();
+		
+		long startTime = System.nanoTime();
+		long before = end;
+		
+		File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			out.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).flip());
+			
+			for (Map<String, Long> section : offsets) {
+				for (long position : section.values()) {
+					ByteBuffer record = record(position);
+					while (record.hasRemaining()) {
+						out.write(record);
+					}
+				}
+			}
+			
+			out.force(true);
+		}
+		
+		map = null;
+		channel.close();
+		try {
+			AtomicFiles.replace(temp.toPath(), file.toPath());
+		} catch (FileSystemException e) {
+			LOGGER.debug("Deferred compaction of " + file + ", it is still mapped: " + e.getMessage());
+			Files.deleteIfExists(temp.toPath());
+			return;
+		} finally {
+			open();
+		}
+		
+		LOGGER.debug("Compacted " + file + " from " + before + " to " + end + " bytes in " + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+	}
+	
+	/**
+	 * Gets the size of the file.
+	 *
+	 * @return The size of the file in bytes.
+	 */
+	public synchronized long size() {
+		return end;
+	}
+	
+	/**
+	 * Gets the size of the outdated records, reclaimed by {@link #compact()}.
+	 *
+	 * @return The size of the outdated records in bytes.
+	 */
+	public synchronized long getGarbage() {
+		return garbage;
+	}
+	
+	/**
+	 * Checks if the file is opened read-only, as another process holds its lock.
+	 *
+	 * @return {@code true} if read-only, {@code false} otherwise.
+	 */
+	public synchronized boolean isReadOnly() {
+		return readOnly;
+	}
+	
+	/**
+	 * Gets the record file.
+	 *
+	 * @return The record file.
+	 */
+	public File getFile() {
+		return file;
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		if (!readOnly) {
+			channel.force(false);
+		}
+		map = null;
+		channel.close();
+	}
+}
@@ -0,0 +1,105 @@
+package minecraft.morningmc.mcli.launcher.daemon;
+
+import minecraft.morningmc.mcli.launcher.daemon.DaemonProtocol.Command;
+import minecraft.morningmc.mcli.launcher.daemon.DaemonProtocol.Frame;
+import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.*;
+
+/**
+ * A client of the {@link LauncherDaemon}.
+ * <p>
+ * Usage: {@code --client <launch|stop|list|tail|shutdown> [arguments]}. The lines of the response are printed to stdout,
+ * and the exit code is 0 if the command succeeded. The client has its own entry point, {@link #main}, which neither
+ * logs nor starts the launcher. Automation running on the JVM can keep a client open and send any number of commands
+ * over one connection.
+ */
+public class DaemonClient implements Closeable {
+	/** The argument selecting the client. */
+	public static final String ARGUMENT = "--client";
+	
+	private final SocketChannel channel;
+	
+	/**
+	 * Connects to the daemon.
+	 *
+	 * @throws IOException If the daemon is not running.
+	 */
+	public DaemonClient() throws IOException {
+		channel = SocketChannel.open(UnixDomainSocketAddress.of(FileMetadata.DAEMON_SOCKET.toPath()));
+	}
+	
+	/**
+	 * Checks if the client is requested.
+	 *
+	 * @param args Command-line arguments.
+	 * @return {@code true} if the client is requested, {@code false} otherwise.
+	 */
+	public static boolean isRequested(String... args) {
+		return args.length > 0 && ARGUMENT.equals(args[0]);
+	}
+	
+	/**
+	 * The entry point of the client, sending a command given on the command line and exiting with {@link #run}'s code.
+	 *
+	 * @param args Command-line arguments, {@code <command> [arguments]}.
+	 */
+	public static void main(String... args) {
+		System.exit(run(args));
+	}
+	
+	/**
+	 * Sends a command given on the command line and prints the response.
+	 *
+	 * @param args Command-line arguments, {@code <command> [arguments]}.
+	 * @return 0 if the command succeeded, 1 otherwise.
+	 */
+	public static int run(String... args) {
+		Command command;
+		try {
+			command = Command.valueOf(args[0].toUpperCase(Locale.ROOT));
+		} catch (Exception e) {
+			System.err.println("Usage: " + ARGUMENT + " <" + String.join("|", Arrays.stream(Command.values()).map(c -> c.name().toLowerCase(Locale.ROOT)).toList()) + "> [arguments]");
+			return 1;
+		}
+		
+		try (DaemonClient client = new DaemonClient()) {
+			Frame response = client.send(command, Arrays.copyOfRange(args, 1, args.length));
+			response.strings().forEach(response.isOk() ? System.out::println : System.err::println);
+			
+			return response.isOk() ? 0 : 1;
+			
+		} catch (IOException e) {
+			System.err.println("Daemon not reachable at " + FileMetadata.DAEMON_SOCKET + ": " + e.getMessage());
+			return 1;
+		}
+	}
+	
+	/**
+	 * Sends a command and waits for the response.
+	 *
+	 * @param command The command.
+	 * @param arguments The arguments of the command.
+	 * @return The response.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public synchronized Frame send(Command command, String... arguments) throws IOException {
+		DaemonProtocol.write(channel, Frame.request(command, arguments));
+		
+		Frame response = DaemonProtocol.read(channel);
+		if (response == null) {
+			throw new IOException("Daemon closed the connection");
+		}
+		
+		return response;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,210 @@
+package minecraft.morningmc.mcli.launcher.daemon;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.*;
+
+/**
+ * The framed protocol spoken over the control socket of the {@link LauncherDaemon}.
+ * <p>
+ * Every message is a frame: {@code int length, byte head, short count, count × UTF string}, big-endian,
+ * where {@code length} counts the bytes after itself and strings are written by {@link DataOutput#writeUTF(String)}.
+ * A request has a {@link Command} ordinal as its head and the arguments of the command as its strings.
+ * A response has {@link #OK} or {@link #ERROR} as its head and the result lines, or the error message, as its strings.
+ * A connection may carry any number of requests, each answered by one response.
+ */
+public final class DaemonProtocol {
+	/** The maximum length of a frame, in bytes. */
+	public static final int MAX_FRAME_LENGTH = 1 << 20;
+	
+	/** The length of a frame without its strings, in bytes, counted like {@link #MAX_FRAME_LENGTH}: head and count. */
+	public static final int EMPTY_FRAME_LENGTH = 3;
+	
+	/** The maximum number of strings of a frame. */
+	public static final int MAX_STRINGS = 0xFFFF;
+	
+	/** The maximum length of a string in its encoded form, in bytes. */
+	private static final int MAX_STRING_LENGTH = 0xFFFF;
+	
+	/** The head of a successful response. */
+	public static final byte OK = 0;
+	
+	/** The head of a failed response. */
+	public static final byte ERROR = 1;
+	
+	private DaemonProtocol() {}
+	
+	/**
+	 * Writes a frame.
+	 *
+	 * @param channel The channel to write to.
+	 * @param frame The frame.
+	 * @throws IOException If an I/O error occurs, or the frame is too long.
+	 */
+	public static void write(SocketChannel channel, Frame frame) throws IOException {
+		if (frame.strings().size() > MAX_STRINGS) {
+			throw new IOException("Too many strings in a frame: " + frame.strings().size());
+		}
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		
+		out.writeInt(0); // length, filled in below
+		out.writeByte(frame.head());
+		out.writeShort(frame.strings().size());
+		for (String string : frame.strings()) {
+			out.writeUTF(string);
+		}
+		
+		ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+		if (buffer.limit() - 4 > MAX_FRAME_LENGTH) {
+			throw new IOException("Frame too long: " + (buffer.limit() - 4) + " bytes");
+		}
+		buffer.putInt(0, buffer.limit() - 4);
+		
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+	
+	/**
+	 * Reads a frame.
+	 *
+	 * @param channel The channel to read from.
+	 * @return The frame, or {@code null} if the channel was closed between frames.
+	 * @throws IOException If an I/O error occurs or the frame is malformed.
+	 */
+	public static Frame read(SocketChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(4);
+		if (!readFully(channel, header, true)) {
+			return null;
+		}
+		
+		int length = header.getInt(0);
+		if (length < 3 || length > MAX_FRAME_LENGTH) {
+			throw new IOException("Illegal frame length: " + length);
+		}
+		
+		ByteBuffer payload = ByteBuffer.allocate(length);
+		readFully(channel, payload, false);
+		
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload.array()));
+		byte head = in.readByte();
+		int count = in.readUnsignedShort();
+		
+		List<String> strings = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			strings.add(in.readUTF());
+		}
+		
+		return new Frame(head, strings);
+	}
+	
+	/**
+	 * Gets the number of bytes a string takes in a frame, including its length.
+	 *
+	 * @param string The string.
+	 * @return The encoded length, or {@code -1} if the string is too long to be written.
+	 */
+	public static int encodedLength(String string) {
+		int length = 0;
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+		}
+		
+		return length <= MAX_STRING_LENGTH ? length + 2 : -1;
+	}
+	
+	private static boolean readFully(SocketChannel channel, ByteBuffer buffer, boolean allowEof) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				if (allowEof && buffer.position() == 0) {
+					return false;
+				}
+				throw new EOFException("Connection closed in the middle of a frame");
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * A frame of the protocol.
+	 *
+	 * @param head The command of a request, or the status of a response.
+	 * @param strings The arguments of a request, or the lines of a response.
+	 */
+	public record Frame(byte head, List<String> strings) {
+		public Frame {
+			strings = List.copyOf(strings);
+		}
+		
+		/**
+		 * Creates a request.
+		 *
+		 * @param command The command.
+		 * @param arguments The arguments of the command.
+		 * @return The request frame.
+		 */
+		public static Frame request(Command command, String... arguments) {
+			return new Frame((byte) command.ordinal(), List.of(arguments));
+		}
+		
+		/**
+		 * Creates a successful response.
+		 *
+		 * @param lines The result lines.
+		 * @return The response frame.
+		 */
+		public static Frame ok(List<String> lines) {
+			return new Frame(OK, lines);
+		}
+		
+		/**
+		 * Creates a failed response.
+		 *
+		 * @param message The error message.
+		 * @return The response frame.
+		 */
+		public static Frame error(String message) {
+			return new Frame(ERROR, List.of(message != null ? message : "Unknown error"));
+		}
+		
+		/**
+		 * Checks if the frame is a successful response.
+		 *
+		 * @return {@code true} if successful, {@code false} otherwise.
+		 */
+		public boolean isOk() {
+			return head == OK;
+		}
+	}
+	
+	/**
+	 * The commands accepted by the daemon.
+	 */
+	public enum Command {
+		/** Launches a profile: {@code [profile]}. Responds with the process ID. */
+		LAUNCH,
+		/** Stops an instance: {@code pid}. */
+		STOP,
+		/** Lists the instances. Responds with one {@code pid, profile, state} line, tab-separated, per instance. */
+		LIST,
+		/** Gets the recent output of an instance: {@code pid [lines]}. */
+		TAIL,
+		/** Stops the daemon, leaving the instances running. */
+		SHUTDOWN;
+		
+		/**
+		 * Gets a command by the head of a request.
+		 *
+		 * @param head The head of the request.
+		 * @return The command, or {@code null} if unknown.
+		 */
+		public static Command of(byte head) {
+			return head >= 0 && head < values().length ? values()[head] : null;
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package minecraft.morningmc.mcli.launcher.daemon;
+
+import minecraft.morningmc.mcli.launcher.config.ConfigLoader;
+import minecraft.morningmc.mcli.launcher.config.ConfigStore;
+import minecraft.morningmc.mcli.launcher.daemon.DaemonProtocol.Command;
+import minecraft.morningmc.mcli.launcher.daemon.DaemonProtocol.Frame;
+import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
+import minecraft.morningmc.mcli.minecraft.client.profile.Profile;
+import minecraft.morningmc.mcli.minecraft.client.profile.ProfileCollection;
+import minecraft.morningmc.mcli.minecraft.java.JavaRuntimeCollection;
+import minecraft.morningmc.mcli.minecraft.launch.listener.ProcessListener;
+import minecraft.morningmc.mcli.minecraft.launch.listener.ProcessListenerCollection;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.*;
+
+/**
+ * A long-lived launcher without the UI, controlled over the Unix domain socket {@link FileMetadata#DAEMON_SOCKET}.
+ * <p>
+ * Usage: {@code --daemon}. The config, the profiles, the Java runtimes and the running instances are loaded once
+ * and kept in memory, so a command only costs a round trip over the socket. Commands are listed in
+ * {@link DaemonProtocol.Command} and sent with {@link DaemonClient}, or by anything speaking the {@link DaemonProtocol}.
+ * Changes are saved by the {@link ConfigStore} as usual. Stopping the daemon leaves the instances running,
+ * they are reattached by the next launcher.
+ */
+public class LauncherDaemon {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The argument selecting the daemon. */
+	public static final String ARGUMENT = "--daemon";
+	
+	/** The number of output lines returned by {@link Command#TAIL} by default. */
+	public static final int DEFAULT_TAIL_LINES = 50;
+	
+	private final ConfigLoader configLoader = new ConfigLoader();
+	private ServerSocketChannel server;
+	
+	private LauncherDaemon() {}
+	
+	/**
+	 * Checks if the daemon is requested.
+	 *
+	 * @param args Command-line arguments.
+	 * @return {@code true} if the daemon is requested, {@code false} otherwise.
+	 */
+	public static boolean isRequested(String... args) {
+		return args.length > 0 && ARGUMENT.equals(args[0]);
+	}
+	
+	/**
+	 * Runs the daemon until it is shut down.
+	 *
+	 * @param args Command-line arguments.
+	 * @return The exit code of the daemon.
+	 */
+	public static int run(String... args) {
+		return new LauncherDaemon().serve();
+	}
+	
+	private int serve() {
+		long startTime = System.nanoTime();
+		
+		// before anything is loaded, a second daemon must not touch the config of the running one
+		try {
+			server = bind();
+		} catch (IOException e) {
+			LOGGER.error("Failed to open daemon socket " + FileMetadata.DAEMON_SOCKET + ": " + e.getMessage());
+			return 1;
+		}
+		
+		try {
+			FileMetadata.completeFiles();
+		} catch (IOException e) {
+			LOGGER.error("Complete files failed: ", e);
+		}
+		
+		configLoader.parseConfig();
+		configLoader.loadProfiles();
+		configLoader.loadRuntimes();
+		configLoader.loadLauncher();
+		configLoader.startConfigStore();
+		ProcessListenerCollection.load();
+		JavaRuntimeCollection.search();
+		
+		// commands wait in the backlog of the socket until now
+		Thread shutdownHook = new Thread(this::close, "daemonShutdown");
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+		
+		LOGGER.info("Daemon listening on " + FileMetadata.DAEMON_SOCKET + ", ready in " + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+		
+		try {
+			while (true) {
+				SocketChannel client = server.accept();
+				Thread.ofVirtual().name("daemonClient").start(() -> handle(client));
+			}
+		} catch (ClosedChannelException e) {
+			// shut down
+		} catch (IOException e) {
+			LOGGER.error("Daemon socket failed: ", e);
+		}
+		
+		close();
+		Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		
+		LOGGER.info("Daemon stopped");
+		return 0;
+	}
+	
+	/**
+	 * Binds the control socket, replacing the socket file of a daemon that is not running anymore.
+	 * The socket lives in a directory only the user may enter, so nobody else can connect even before its own
+	 * permissions are set.
+	 *
+	 * @return The bound server channel.
+	 * @throws IOException If the socket cannot be bound, or another daemon is running.
+	 */
+	private static ServerSocketChannel bind() throws IOException {
+		UnixDomainSocketAddress address = UnixDomainSocketAddress.of(FileMetadata.DAEMON_SOCKET.toPath());
+		
+		Path directory = address.getPath().getParent();
+		Files.createDirectories(directory);
+		try {
+			// the daemon launches processes on request, so only the user may connect
+			Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+		} catch (UnsupportedOperationException ignored) {}
+		
+		if (Files.exists(address.getPath())) {
+			if (isRunning(address)) {
+				throw new IOException("Another daemon is running");
+			}
+			Files.delete(address.getPath());
+		}
+		
+		ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		server.bind(address);
+		
+		try {
+			Files.setPosixFilePermissions(address.getPath(), PosixFilePermissions.fromString("rw-------"));
+		} catch (UnsupportedOperationException ignored) {}
+		
+		return server;
+	}
+	
+	private static boolean isRunning(UnixDomainSocketAddress address) {
+		try {
+			SocketChannel.open(address).close();
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Stops accepting commands and saves pending changes. Called once by the shutdown command or the shutdown hook.
+	 */
+	private synchronized void close() {
+		if (server == null) {
+			return;
+		}
+		
+		try {
+			server.close();
+			Files.deleteIfExists(FileMetadata.DAEMON_SOCKET.toPath());
+		} catch (IOException e) {
+			LOGGER.warn("Failed to close daemon socket: " + e.getMessage());
+		}
+		server = null;
+		
+		ConfigStore.close();
+	}
+	
+	/**
+	 * Answers the requests of a client until it disconnects.
+	 *
+	 * @param client The client channel.
+	 */
+	private void handle(SocketChannel client) {
+		try (client) {
+			Frame request;
+			while ((request = DaemonProtocol.read(client)) != null) {
+				Command command = Command.of(request.head());
+				DaemonProtocol.write(client, execute(command, request.strings()));
+				
+				if (command == Command.SHUTDOWN) {
+					close();
+					return;
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.debug("Daemon client failed: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Executes a command.
+	 *
+	 * @param command The command, or {@code null} if unknown.
+	 * @param arguments The arguments of the command.
+	 * @return The response.
+	 */
+	private Frame execute(Command command, List<String> arguments) {
+		if (command == null) {
+			return Frame.error("Unknown command");
+		}
+		
+		long startTime = System.nanoTime();
+		try {
+			return switch (command) {
+				case LAUNCH -> launch(arguments);
+				case STOP -> stop(arguments);
+				case LIST -> list();
+				case TAIL -> tail(arguments);
+				case SHUTDOWN -> Frame.ok(List.of());
+			};
+			
+		} catch (Exception e) {
+			return Frame.error(command + " failed: " + e.getMessage());
+			
+		} finally {
+			LOGGER.debug("Daemon command " + command + " " + arguments + " took " + (System.nanoTime() - startTime) / 1000 + " us");
+		}
+	}
+	
+	private Frame launch(List<String> arguments) throws Exception {
+		Profile profile = !arguments.isEmpty() ? ProfileCollection.resolve(arguments.get(0)) : configLoader.getLauncher().getProfile();
+		if (profile == null) {
+			return Frame.error(!arguments.isEmpty() ? "Profile not found: " + arguments.get(0) : "No profile selected");
+		}
+		
+		ProcessListener listener = configLoader.getLauncher().launch(profile);
+		return Frame.ok(List.of(String.valueOf(listener.getPid())));
+	}
+	
+	private Frame stop(List<String> arguments) {
+		ProcessListener listener = resolve(arguments);
+		if (listener == null) {
+			return Frame.error("Instance not found");
+		}
+		
+		listener.stop();
+		return Frame.ok(List.of());
+	}
+	
+	private Frame list() {
+		return Frame.ok(ProcessListenerCollection.get().stream()
+				                .map(listener -> listener.getPid() + "\t" + listener.getProfileName() + "\t" + listener.getState())
+				                .toList());
+	}
+	
+	private Frame tail(List<String> arguments) {
+		ProcessListener listener = resolve(arguments);
+		if (listener == null) {
+			return Frame.error("Instance not found");
+		}
+		
+		int lines = Math.min(arguments.size() > 1 ? Integer.parseInt(arguments.get(1)) : DEFAULT_TAIL_LINES, DaemonProtocol.MAX_STRINGS);
+		List<String> logs = listener.getMinecraftLogs();
+		
+		// the most recent lines that fit into one frame
+		int from = logs.size();
+		int remaining = DaemonProtocol.MAX_FRAME_LENGTH - DaemonProtocol.EMPTY_FRAME_LENGTH;
+		while (from > 0 && logs.size() - from < lines) {
+			int length = DaemonProtocol.encodedLength(logs.get(from - 1));
+			if (length < 0 || length > remaining) {
+				break;
+			}
+			
+			remaining -= length;
+			from--;
+		}
+		
+		return Frame.ok(logs.subList(from, logs.size()));
+	}
+	
+	private static ProcessListener resolve(List<String> arguments) {
+		if (arguments.isEmpty()) {
+			throw new IllegalArgumentException("Missing process ID");
+		}
+		
+		return ProcessListenerCollection.resolve(Long.parseLong(arguments.get(0)));
+	}
+}
@@ -0,0 +1,106 @@
+package minecraft.morningmc.mcli.launcher.main;
+
+import minecraft.morningmc.mcli.launcher.config.ConfigLoader;
+import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
+import minecraft.morningmc.mcli.minecraft.client.profile.Profile;
+import minecraft.morningmc.mcli.minecraft.client.profile.ProfileCollection;
+import minecraft.morningmc.mcli.minecraft.launch.Launcher;
+import minecraft.morningmc.mcli.minecraft.launch.listener.OutputPolicy;
+import minecraft.morningmc.mcli.minecraft.launch.listener.ProcessListener;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Launches a profile without the JavaFX UI, for scripted launches.
+ * <p>
+ * Usage: {@code --headless [profile]}. Without a profile name, the profile selected in the launcher is launched.
+ * The config is loaded as usual, the game output is streamed to stdout without being thinned out,
+ * and the launcher exits with the exit code of the game once its output is drained.
+ * <p>
+ * No JavaFX class is loaded on this path, so the toolkit and FXML loading costs are never paid.
+ */
+public class HeadlessLauncher {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The argument selecting the headless launcher. */
+	public static final String ARGUMENT = "--headless";
+	
+	/** The exit code when the game could not be launched. */
+	public static final int LAUNCH_FAILED = 1;
+	
+	private HeadlessLauncher() {}
+	
+	/**
+	 * Checks if the headless launcher is requested.
+	 *
+	 * @param args Command-line arguments.
+	 * @return {@code true} if the headless launcher is requested, {@code false} otherwise.
+	 */
+	public static boolean isRequested(String... args) {
+		return args.length > 0 && ARGUMENT.equals(args[0]);
+	}
+	
+	/**
+	 * Launches a profile and waits for the game to exit.
+	 *
+	 * @param args Command-line arguments, {@code --headless [profile]}.
+	 * @return The exit code of the game, or {@link #LAUNCH_FAILED} if it could not be launched.
+	 */
+	public static int run(String... args) {
+		long startTime = System.nanoTime();
+		
+		try {
+			FileMetadata.completeFiles();
+		} catch (IOException e) {
+			LOGGER.error("Complete files failed: ", e);
+		}
+		
+		ConfigLoader configLoader = new ConfigLoader();
+		configLoader.parseConfig();
+		configLoader.loadProfiles();
+		configLoader.loadLauncher();
+		
+		try {
+			Launcher launcher = configLoader.getLauncher();
+			Profile profile = args.length > 1 ? ProfileCollection.resolve(args[1]) : launcher.getProfile();
+			
+			if (profile == null) {
+				LOGGER.error(args.length > 1 ? "Profile not found: " + args[1] : "No profile selected, pass a profile name after " + ARGUMENT);
+				return LAUNCH_FAILED;
+			}
+			
+			// the raw game output goes to stdout, so keep it out of the console log
+			Configurator.setLevel("Minecraft", Level.OFF);
+			
+			// unthinned from the first line, the readers start as soon as the process does
+			ProcessListener listener = launcher.launch(profile, OutputPolicy.UNLIMITED);
+			LOGGER.info("Launched " + profile.getName() + " in " + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+			
+			PrintStream out = System.out;
+			listener.addOutputListener(out::println);
+			
+			int exitCode = listener.waitFor();
+			out.flush();
+			
+			return exitCode;
+			
+		} catch (InterruptedException e) {
+			LOGGER.error("Interrupted while waiting for the game: ", e);
+			return LAUNCH_FAILED;
+			
+		} catch (Exception e) {
+			LOGGER.error("Launch failed: ", e);
+			return LAUNCH_FAILED;
+			
+		} finally {
+			configLoader.close();
+		}
+	}
+}
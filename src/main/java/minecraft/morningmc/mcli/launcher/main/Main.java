@@ -1,13 +1,16 @@
 package minecraft.morningmc.mcli.launcher.main;
 
+import minecraft.morningmc.mcli.launcher.config.ConfigLoader;
+import minecraft.morningmc.mcli.launcher.config.ConfigStore;
 import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
 import minecraft.morningmc.mcli.launcher.metadata.LauncherMetadata;
+import minecraft.morningmc.mcli.minecraft.client.directory.SourceMinecraftDirectory;
+import minecraft.morningmc.mcli.minecraft.client.version.VersionIndex;
 import minecraft.morningmc.mcli.minecraft.java.JavaRuntimeCollection;
-import minecraft.morningmc.mcli.minecraft.client.profile.ProfileCollection;
-import minecraft.morningmc.mcli.minecraft.launch.LaunchOptions;
-import minecraft.morningmc.mcli.minecraft.launch.Launcher;
+import minecraft.morningmc.mcli.minecraft.launch.listener.ProcessListenerCollection;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 import javafx.scene.image.Image;
 import javafx.scene.Scene;
@@ -16,12 +19,13 @@ import javafx.fxml.FXMLLoader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import dev.dewy.nbt.Nbt;
-import dev.dewy.nbt.tags.collection.CompoundTag;
-
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.HashMap;
+import java.util.concurrent.*;
 
 /**
  * The Main class represents the main entry point for the Minecraft launcher application.
@@ -31,19 +35,84 @@ import java.util.HashMap;
 public class Main extends Application {
 	private static final Logger LOGGER = LogManager.getLogger();
 	
-	private Launcher launcher;
+	/** The system property making the launcher quit after its first frame, set by startup measurements. */
+	public static final String FIRST_FRAME_PROPERTY = "mcli.quitAfterFirstFrame";
+	
+	private final ConfigLoader configLoader = new ConfigLoader();
 	
 	private final Map<String, Scene> scenes = new HashMap<>();
 	
 	/**
-	 * Initializes the application. Completes files, loads configuration.
+	 * Initializes the application. Completes files, loads configuration and prepares scenes.
+	 * <p>
+	 * Startup runs as a graph of phases, each starting as soon as the phases it depends on are done.
+	 * Loading the Java runtimes probes every JVM, so it keeps running in the background instead of gating the UI.
 	 *
 	 * @throws Exception If an error occurs during initialization.
 	 */
 	@Override
 	public void init() throws Exception {
 		LOGGER.info("Initializing launcher...");
+		long startTime = System.nanoTime();
+		
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		
+		CompletableFuture<Void> files = phase(executor, "completeFiles", this::completeFiles);
+		CompletableFuture<Void> config = phase(executor, "parseConfig", configLoader::parseConfig, files);
+		CompletableFuture<Void> scenes = phase(executor, "prepareScenes", this::prepareScenes);
+		
+		CompletableFuture<Void> profiles = phase(executor, "loadProfiles", configLoader::loadProfiles, config);
+		CompletableFuture<Void> runtimes = phase(executor, "loadRuntimes", configLoader::loadRuntimes, config);
+		CompletableFuture<Void> launcher = phase(executor, "loadLauncher", configLoader::loadLauncher, profiles);
+		CompletableFuture<Void> store = phase(executor, "startConfigStore", configLoader::startConfigStore, files, launcher);
+		
+		// Reattach to instances started before a restart
+		CompletableFuture<Void> instances = phase(executor, "reattachInstances", ProcessListenerCollection::load, files);
+		
+		// Keep the installed versions indexed in the background, the UI only reads the index
+		phase(executor, "indexVersions", this::indexVersions, files);
+		
+		// Search for new runtimes once the saved ones are loaded and changes can be saved
+		CompletableFuture.allOf(runtimes, store).whenComplete((result, e) -> {
+			if (JavaRuntimeCollection.instance != null) {
+				JavaRuntimeCollection.search();
+			}
+			
+			executor.shutdown();
+		});
+		
+		try {
+			CompletableFuture.allOf(files, profiles, launcher, store, instances, scenes).join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof Exception cause ? cause : e;
+		}
 		
+		LOGGER.info("Initialized launcher in " + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+	}
+	
+	/**
+	 * Runs a startup phase once its dependencies are done, logging how long it took.
+	 *
+	 * @param executor The executor running the phase.
+	 * @param name The name of the phase.
+	 * @param phase The phase to run.
+	 * @param dependencies The phases that have to be done first.
+	 * @return The future of the phase.
+	 */
+	private static CompletableFuture<Void> phase(Executor executor, String name, Runnable phase, CompletableFuture<?>... dependencies) {
+		return CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+			long startTime = System.nanoTime();
+			
+			try {
+				phase.run();
+			} finally {
+				LOGGER.debug("Startup phase " + name + " took " + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+			}
+		}, executor);
+	}
+	
+	// Startup phases
+	private void completeFiles() {
 		try {
 			int created = FileMetadata.completeFiles();
 			LOGGER.debug("Completed " + created + " files.");
@@ -51,45 +120,31 @@ public class Main extends Application {
 		} catch (IOException e) {
 			LOGGER.error("Complete files failed: ", e);
 		}
+	}
+	
+	private void indexVersions() {
+		VersionIndex index = VersionIndex.of(SourceMinecraftDirectory.STANDARD);
+		index.refresh();
 		
-		// Load config
-		CompoundTag config;
 		try {
-			config = new Nbt().fromFile(FileMetadata.CONFIG);
+			index.watch();
 		} catch (IOException e) {
-			LOGGER.warn("Failed to load config: " + e.getMessage());
-			config = new CompoundTag();
+			LOGGER.warn("Failed to watch versions: " + e.getMessage());
 		}
+	}
+	
+	private void prepareScenes() {
+		LOGGER.info("Preparing scenes...");
 		
 		try {
-			ProfileCollection.LOADER.loadFromNbt(config.getList("profileCollection"));
-		} catch (Exception e) {
-			LOGGER.warn("Failed to load profileCollection: " + e.getMessage());
-			ProfileCollection.init(Set.of());
-		}
-		
-		try {
-			JavaRuntimeCollection.LOADER.loadFromNbt(config.getList("javaRuntimeCollection"));
-		} catch (Exception e) {
-			LOGGER.warn("Failed to load javaRuntimeCollection: " + e.getMessage());
-			JavaRuntimeCollection.init(Set.of());
-		}
-		JavaRuntimeCollection.search();
-		
-		try {
-			launcher = Launcher.LOADER.loadFromNbt(config.getCompound("launcher"));
-		} catch (Exception e) {
-			LOGGER.warn("Failed to load launcher: " + e.getMessage());
-			launcher = new Launcher(LaunchOptions.DEFAULT, null);
+			FXMLLoader loader = new FXMLLoader();
+			
+			Scene launch = new Scene(loader.load(FileMetadata.getResource("fxmls/LaunchScene.fxml")));
+			scenes.put("launch", launch);
+			
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
-		
-		// Preparing scenes
-		LOGGER.info("Preparing scenes...");
-		
-		FXMLLoader loader = new FXMLLoader();
-		
-		Scene launch = new Scene(loader.load(FileMetadata.getResource("fxmls/LaunchScene.fxml")));
-		scenes.put("launch", launch);
 	}
 	
 	/**
@@ -105,13 +160,32 @@ public class Main extends Application {
 		mainStage.getIcons().add(new Image(FileMetadata.getResource("assets/icon.png")));
 		mainStage.setTitle(LauncherMetadata.FULL_NAME);
 		
-		mainStage.setScene(scenes.get("launch"));
+		Scene scene = scenes.get("launch");
+		mainStage.setScene(scene);
+		
+		// the headline startup number: from process start until the first frame is laid out
+		scene.addPostLayoutPulseListener(new Runnable() {
+			@Override
+			public void run() {
+				scene.removePostLayoutPulseListener(this);
+				
+				Instant processStart = ProcessHandle.current().info().startInstant().orElse(null);
+				if (processStart != null) {
+					LOGGER.info("Time to first frame: " + Duration.between(processStart, Instant.now()).toMillis() + " ms");
+				}
+				
+				if (Boolean.getBoolean(FIRST_FRAME_PROPERTY)) {
+					LOGGER.info("First frame shown, quitting");
+					Platform.exit();
+				}
+			}
+		});
 		
 		mainStage.show();
 	}
 	
 	/**
-	 * Stops the application. Saves the configuration when the application is closed.
+	 * Stops the application. Writes the configuration changes that are still pending.
 	 *
 	 * @throws Exception If an error occurs during the shutdown of the application.
 	 */
@@ -119,17 +193,6 @@ public class Main extends Application {
 	public void stop() throws Exception {
 		LOGGER.info("Stopping launcher...");
 		
-		// Save config
-		CompoundTag config = new CompoundTag();
-		
-		config.put("profileCollection", ProfileCollection.LOADER.saveToNbt(ProfileCollection.instance));
-		config.put("javaRuntimeCollection", JavaRuntimeCollection.LOADER.saveToNbt(JavaRuntimeCollection.instance));
-		config.put("launcher", Launcher.LOADER.saveToNbt(launcher));
-		
-		try {
-			new Nbt().toFile(config, FileMetadata.CONFIG);
-		} catch (IOException e) {
-			LOGGER.error("Failed to save config: ", e);
-		}
+		ConfigStore.close();
 	}
 }
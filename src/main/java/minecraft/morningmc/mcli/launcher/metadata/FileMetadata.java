@@ -13,6 +13,9 @@ import java.io.InputStream;
  * @see LauncherMetadata
  */
 public class FileMetadata {
+	/** The system property holding {@link #APPDATA}, so that {@code log4j2.xml} writes the logs below the same root. */
+	public static final String APPDATA_PROPERTY = "mcli.appdata";
+	
 	/** The root directory for application data. */
 	public static final File APPDATA = resolveAppData();
 	
@@ -24,9 +27,20 @@ public class FileMetadata {
 
 	/** The configuration file for MCLI. */
 	public static final File CONFIG = new File(WORKING_ROOT, "config.nbt");
+	
+	/** The configuration file for MCLI, as records read through a memory mapping. Replaces {@link #CONFIG}. */
+	public static final File CONFIG_RECORDS = new File(WORKING_ROOT, "config.mcr");
+	
+	/** The file holding the running Minecraft instances, used to reattach to them after a restart. */
+	public static final File INSTANCES = new File(WORKING_ROOT, "instances.nbt");
+	
+	/** The Unix domain socket the launcher daemon is controlled through, in a directory only the user may enter. */
+	public static final File DAEMON_SOCKET = new File(WORKING_ROOT, "daemon/daemon.sock");
 
 	/**
-	 * Resolves the root directory for application data.
+	 * Resolves the root directory for application data. The operating system is inferred from {@code os.name}, as
+	 * {@link Platform#CURRENT} starts a Java process and logging, which must not start before {@link #APPDATA_PROPERTY}
+	 * is set.
 	 *
 	 * @return The root directory for application data.
 	 */
@@ -37,7 +51,7 @@ public class FileMetadata {
 		}
 		
 		try {
-			return switch (Platform.CURRENT.operatingSystem()) {
+			return switch (Platform.OperatingSystem.infer(System.getProperty("os.name"))) {
 				case WINDOWS -> new File(System.getenv("UserProfile") != null ? System.getenv("UserProfile") : System.getProperty("user.home"), "AppData/Roaming");
 				case MACOS -> new File(System.getProperty("user.home"), "Library/Application Support");
 				case LINUX -> new File(System.getProperty("user.home"), ".config");
@@ -62,17 +76,12 @@ public class FileMetadata {
 				TargetMinecraftDirectory.STANDARD.getRoot(),
 				TargetMinecraftDirectory.ISOLATE_ROOT
 		};
-		File[] files = {
-				CONFIG
-		};
 		
+		// the config files are created by the ConfigLoader, an existing record file means the config was migrated
 		int created = 0;
 		
 		for (File directory : directories) {
-			created = directory.mkdirs() ? 1 : 0;
-		}
-		for (File file : files) {
-			created += file.createNewFile() ? 1 : 0;
+			created += directory.mkdirs() ? 1 : 0;
 		}
 		
 		return created;
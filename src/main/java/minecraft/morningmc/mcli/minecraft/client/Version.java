@@ -1,30 +1,67 @@
 package minecraft.morningmc.mcli.minecraft.client;
 
 import minecraft.morningmc.mcli.minecraft.client.directory.SourceMinecraftDirectory;
+import minecraft.morningmc.mcli.minecraft.client.version.VersionMetadata;
+import minecraft.morningmc.mcli.minecraft.client.version.VersionMetadataCache;
+import minecraft.morningmc.mcli.minecraft.client.version.VersionResolver;
 import minecraft.morningmc.mcli.utils.exceptions.IllegalNbtException;
 
 import dev.dewy.nbt.tags.collection.CompoundTag;
 import minecraft.morningmc.mcli.utils.interfaces.NbtLoader;
 
+import java.io.File;
+import java.io.IOException;
+
 public class Version {
 	/** NbtLoader for loading and saving {@code Version} objects from/to NBT data. */
 	public static final NbtLoader<Version, CompoundTag> LOADER = new NbtLoader<>() {
 		
 		@Override
 		public Version loadFromNbt(CompoundTag tag) throws IllegalNbtException {
-			return null;
+			try {
+				return new Version(new SourceMinecraftDirectory(new File(tag.getString("source").getValue())), tag.getString("id").getValue());
+			} catch (Exception e) {
+				throw new IllegalNbtException("Invalid version: " + e.getMessage(), e);
+			}
 		}
 		
 		@Override
 		public CompoundTag saveToNbt(Version object) {
-			return null;
+			CompoundTag tag = new CompoundTag();
+			
+			tag.putString("source", object.source.getRoot().getAbsolutePath());
+			tag.putString("id", object.id);
+			
+			return tag;
 		}
 	};
 	
 	public final SourceMinecraftDirectory source;
+	public final String id;
 	
-	public Version(SourceMinecraftDirectory source) {
+	public Version(SourceMinecraftDirectory source, String id) {
 		this.source = source;
+		this.id = id;
+	}
+	
+	/**
+	 * Loads the metadata of the version from its JSON, see {@link VersionMetadataCache}.
+	 *
+	 * @return The version metadata.
+	 * @throws IOException If the JSON cannot be read or parsed.
+	 */
+	public VersionMetadata loadMetadata() throws IOException {
+		return VersionMetadataCache.load(getJsonFile());
+	}
+	
+	/**
+	 * Resolves the version through its {@code inheritsFrom} chain, see {@link VersionResolver}.
+	 *
+	 * @return The merged metadata of the version and all versions it inherits from.
+	 * @throws IOException If a JSON of the chain cannot be read, or the chain is circular.
+	 */
+	public VersionMetadata resolveMetadata() throws IOException {
+		return VersionResolver.resolve(this);
 	}
 	
 	// Getters
@@ -32,6 +69,28 @@ public class Version {
 		return source;
 	}
 	
+	public String getId() {
+		return id;
+	}
+	
+	/**
+	 * Gets the directory of the version, {@code versions/<id>}.
+	 *
+	 * @return The version directory.
+	 */
+	public File getDirectory() {
+		return new File(source.getVersionsDirectory(), id);
+	}
+	
+	/**
+	 * Gets the JSON of the version, {@code versions/<id>/<id>.json}.
+	 *
+	 * @return The version JSON file.
+	 */
+	public File getJsonFile() {
+		return new File(getDirectory(), id + ".json");
+	}
+	
 	public enum Policy {
 		RELEASE, SNAPSHOT, CUSTOM
 	}
@@ -0,0 +1,354 @@
+package minecraft.morningmc.mcli.minecraft.client.asset;
+
+import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
+import minecraft.morningmc.mcli.minecraft.client.directory.SourceMinecraftDirectory;
+import minecraft.morningmc.mcli.minecraft.download.DownloadTask;
+import minecraft.morningmc.mcli.utils.HashIndex;
+
+import com.google.gson.stream.JsonReader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies the asset objects of an asset index, {@code assets/objects/<xx>/<sha1>}, against their SHA-1 hashes.
+ * <p>
+ * Objects are first checked against the {@link HashIndex} of the directory by size and modification time,
+ * only the objects that changed since they were last verified are hashed. Hashing runs in parallel, each thread reusing
+ * one direct buffer and digest; large objects are memory-mapped instead.
+ */
+public class AssetVerifier {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The directory holding the hash indexes. */
+	public static final File INDEX_ROOT = new File(FileMetadata.CACHE_ROOT, "assets");
+	
+	/** The default base URL of the asset objects, followed by {@code <xx>/<sha1>}. */
+	public static final String RESOURCES_URL = "https://resources.download.minecraft.net/";
+	
+	/** The size of the buffer each thread reads objects with. */
+	public static final int BUFFER_SIZE = 1 << 16;
+	
+	/** Objects larger than this are memory-mapped instead of read. */
+	public static final long MAP_THRESHOLD = 1 << 20;
+	
+	private static final ExecutorService HASHER = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+		Thread thread = new Thread(runnable, "assetHasher");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private static final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+	private static final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+	
+	private final SourceMinecraftDirectory source;
+	private final File objects;
+	private final URI resources;
+	
+	/**
+	 * Constructs a verifier for the assets of a Minecraft directory, repairing them from {@link #RESOURCES_URL}.
+	 *
+	 * @param source The Minecraft directory.
+	 */
+	public AssetVerifier(SourceMinecraftDirectory source) {
+		this(source, URI.create(RESOURCES_URL));
+	}
+	
+	/**
+	 * Constructs a verifier for the assets of a Minecraft directory.
+	 *
+	 * @param source The Minecraft directory.
+	 * @param resources The base URL of the asset objects the repairs download from, e.g. a mirror, ending with a slash.
+	 */
+	public AssetVerifier(SourceMinecraftDirectory source, URI resources) {
+		this.source = source;
+		this.objects = new File(source.getAssetsDirectory(), "objects");
+		this.resources = resources;
+	}
+	
+	/**
+	 * Verifies the objects of an asset index.
+	 *
+	 * @param indexId The ID of the asset index, e.g. {@code 5}.
+	 * @return The verification report.
+	 * @throws IOException If the asset index or the hash index cannot be read.
+	 */
+	public Report verify(String indexId) throws IOException {
+		return verify(readIndex(new File(new File(source.getAssetsDirectory(), "indexes"), indexId + ".json")));
+	}
+	
+	/**
+	 * Verifies asset objects.
+	 *
+	 * @param assets The objects.
+	 * @return The verification report.
+	 * @throws IOException If the hash index cannot be read.
+	 */
+	public Report verify(Collection<Asset> assets) throws IOException {
+		long startTime = System.nanoTime();
+		
+		// objects are shared by names, e.g. the sounds of several languages
+		Map<String, Asset> objects = new LinkedHashMap<>();
+		for (Asset asset : assets) {
+			objects.putIfAbsent(asset.hash(), asset);
+		}
+		
+		try (HashIndex index = new HashIndex(getIndexFile())) {
+			List<Asset> missing = Collections.synchronizedList(new ArrayList<>());
+			List<Asset> corrupt = Collections.synchronizedList(new ArrayList<>());
+			List<Verified> verified = Collections.synchronizedList(new ArrayList<>());
+			AtomicInteger hashed = new AtomicInteger();
+			
+			// lookups only read the table, so they run in parallel as well; verified objects are put afterwards
+			List<Asset> list = new ArrayList<>(objects.values());
+			int batches = Math.min(list.size(), Runtime.getRuntime().availableProcessors() * 4);
+			List<Future<?>> futures = new ArrayList<>(batches);
+			
+			for (int batch = 0; batch < batches; batch++) {
+				List<Asset> slice = list.subList(batch * list.size() / batches, (batch + 1) * list.size() / batches);
+				
+				futures.add(HASHER.submit(() -> {
+					for (Asset asset : slice) {
+						check(asset, index, missing, corrupt, verified, hashed);
+					}
+				}));
+			}
+			
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException();
+				} catch (ExecutionException e) {
+					throw new IOException("Asset verification failed", e.getCause());
+				}
+			}
+			
+			for (Verified object : verified) {
+				index.put(object.sha1(), object.size(), object.lastModified());
+			}
+			
+			Report report = new Report(objects.size(), objects.size() - hashed.get() - missing.size(), hashed.get(),
+					List.copyOf(missing), List.copyOf(corrupt), System.nanoTime() - startTime);
+			
+			LOGGER.info("Verified " + report.total() + " assets in " + report.nanos() / 1_000_000 + " ms: "
+					            + report.hashed() + " hashed, " + report.missing().size() + " missing, " + report.corrupt().size() + " corrupt");
+			
+			return report;
+		}
+	}
+	
+	private void check(Asset asset, HashIndex index, List<Asset> missing, List<Asset> corrupt, List<Verified> verified, AtomicInteger hashed) {
+		Path path = resolve(asset).toPath();
+		
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		} catch (IOException e) {
+			missing.add(asset);
+			return;
+		}
+		
+		long size = attributes.size();
+		long lastModified = attributes.lastModifiedTime().toMillis();
+		byte[] expected = HexFormat.of().parseHex(asset.hash());
+		
+		if (index.isVerified(expected, size, lastModified)) {
+			return;
+		}
+		
+		hashed.incrementAndGet();
+		try {
+			if ((asset.size() < 0 || size == asset.size()) && Arrays.equals(hash(path, size), expected)) {
+				verified.add(new Verified(expected, size, lastModified));
+			} else {
+				corrupt.add(asset);
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to hash asset " + asset.name() + ": " + e.getMessage());
+			corrupt.add(asset);
+		}
+	}
+	
+	/**
+	 * Hashes a file with the buffer and digest of the current thread.
+	 */
+	private static byte[] hash(Path path, long size) throws IOException {
+		MessageDigest digest = digests.get();
+		digest.reset();
+		
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (size > MAP_THRESHOLD) {
+				digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+			} else {
+				ByteBuffer buffer = buffers.get();
+				buffer.clear();
+				
+				while (channel.read(buffer) >= 0) {
+					buffer.flip();
+					digest.update(buffer);
+					buffer.clear();
+				}
+			}
+		}
+		
+		return digest.digest();
+	}
+	
+	/**
+	 * Reads the objects of an asset index JSON.
+	 *
+	 * @param json The asset index JSON, {@code assets/indexes/<id>.json}.
+	 * @return The objects.
+	 * @throws IOException If the JSON cannot be read.
+	 */
+	public static List<Asset> readIndex(File json) throws IOException {
+		List<Asset> assets = new ArrayList<>();
+		
+		try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(new FileInputStream(json), StandardCharsets.UTF_8), 1 << 16))) {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if (!reader.nextName().equals("objects")) {
+					reader.skipValue();
+					continue;
+				}
+				
+				reader.beginObject();
+				while (reader.hasNext()) {
+					String name = reader.nextName();
+					String hash = null;
+					long size = -1;
+					
+					reader.beginObject();
+					while (reader.hasNext()) {
+						switch (reader.nextName()) {
+							case "hash" -> hash = reader.nextString();
+							case "size" -> size = reader.nextLong();
+							default -> reader.skipValue();
+						}
+					}
+					reader.endObject();
+					
+					if (isSha1(hash)) {
+						assets.add(new Asset(name, hash.toLowerCase(Locale.ROOT), size));
+					} else {
+						LOGGER.debug("Skipped asset " + name + " of " + json + ": invalid hash " + hash);
+					}
+				}
+				reader.endObject();
+			}
+			reader.endObject();
+			
+		} catch (IllegalStateException | NumberFormatException e) {
+			throw new IOException("Malformed asset index " + json + ": " + e.getMessage(), e);
+		}
+		
+		return assets;
+	}
+	
+	/**
+	 * Checks if a hash is 40 hex digits, so that it can be parsed and used as a file name.
+	 */
+	private static boolean isSha1(String hash) {
+		if (hash == null || hash.length() != 40) {
+			return false;
+		}
+		
+		for (int i = 0; i < hash.length(); i++) {
+			if (!HexFormat.isHexDigit(hash.charAt(i))) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Resolves the file of an asset object.
+	 *
+	 * @param asset The asset.
+	 * @return The object file.
+	 */
+	public File resolve(Asset asset) {
+		return new File(new File(objects, asset.hash().substring(0, 2)), asset.hash());
+	}
+	
+	/**
+	 * Creates the downloads repairing the missing and corrupt objects of a report.
+	 *
+	 * @param report The verification report.
+	 * @return The downloads.
+	 */
+	public List<DownloadTask> getRepairTasks(Report report) {
+		List<DownloadTask> tasks = new ArrayList<>(report.missing().size() + report.corrupt().size());
+		for (List<Asset> assets : List.of(report.missing(), report.corrupt())) {
+			for (Asset asset : assets) {
+				URI uri = resources.resolve(asset.hash().substring(0, 2) + "/" + asset.hash());
+				tasks.add(new DownloadTask(uri, resolve(asset), asset.hash(), asset.size()));
+			}
+		}
+		
+		return tasks;
+	}
+	
+	/**
+	 * Gets the hash index of the directory.
+	 *
+	 * @return The hash index file.
+	 */
+	public File getIndexFile() {
+		return new File(INDEX_ROOT, "hashes-" + Integer.toHexString(source.getRoot().getAbsolutePath().hashCode()) + ".idx");
+	}
+	
+	private record Verified(byte[] sha1, long size, long lastModified) {}
+	
+	/**
+	 * An asset object.
+	 *
+	 * @param name The name of the asset, e.g. {@code minecraft/sounds/ambient/cave/cave1.ogg}.
+	 * @param hash The SHA-1 hash of the object, lowercase hex.
+	 * @param size The size of the object in bytes, or -1 if unknown.
+	 */
+	public record Asset(String name, String hash, long size) {}
+	
+	/**
+	 * The result of a verification.
+	 *
+	 * @param total The number of distinct objects.
+	 * @param skipped The number of objects skipped as unchanged since they were verified.
+	 * @param hashed The number of objects hashed.
+	 * @param missing The missing objects.
+	 * @param corrupt The objects with a wrong size or hash.
+	 * @param nanos The time the verification took, in nanoseconds.
+	 */
+	public record Report(int total, int skipped, int hashed, List<Asset> missing, List<Asset> corrupt, long nanos) {
+		/**
+		 * Checks if all objects are intact.
+		 *
+		 * @return {@code true} if no object is missing or corrupt, {@code false} otherwise.
+		 */
+		public boolean isIntact() {
+			return missing.isEmpty() && corrupt.isEmpty();
+		}
+	}
+}
@@ -0,0 +1,471 @@
+package minecraft.morningmc.mcli.minecraft.client.directory;
+
+import minecraft.morningmc.mcli.utils.AtomicFiles;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * An index of the entries of a directory, e.g. the versions, mods or worlds of a Minecraft directory, for listing them
+ * without reading every entry.
+ * <p>
+ * Each entry is keyed by its name in the directory and stamped with the modification time and size of the file it is
+ * read from. The index is persisted, so it is available as soon as it is loaded. {@link #refresh()} then re-reads the
+ * entries whose stamp changed, in parallel, and {@link #watch()} keeps the index current with a {@link WatchService}.
+ * <p>
+ * Entries are either files of the directory, or subdirectories holding the file they are read from. Subdirectories are
+ * watched as well, and a change inside one updates its entry.
+ *
+ * @param <E> The type of the entries.
+ */
+public abstract class DirectoryIndex<E extends DirectoryIndex.Stamped> implements Closeable {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** How long the watcher waits for more changes before updating the index, in milliseconds. */
+	public static final long WATCH_DELAY = 200;
+	
+	private final File directory;
+	private final File file;
+	private final int magic;
+	private final short format;
+	private final boolean nested;
+	private final String name;
+	private final ExecutorService scanner;
+	private final Comparator<E> order;
+	
+	private final Map<String, E> entries = new ConcurrentHashMap<>();
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+	
+	private volatile List<E> snapshot = List.of();
+	private WatchService watchService;
+	
+	/**
+	 * Constructs an index. It is empty until {@link #load()} is called.
+	 *
+	 * @param directory The indexed directory.
+	 * @param file The file the index is persisted to.
+	 * @param magic The magic number of the persisted index.
+	 * @param format The format of the persisted index, to be increased whenever the entries are written differently.
+	 * @param nested {@code true} if the entries are subdirectories, {@code false} if they are files.
+	 * @param name The name of the index, naming its watcher thread, e.g. {@code version}.
+	 * @param scanner The executor reading the entries.
+	 * @param order The order of {@link #getEntries()}.
+	 */
+	protected DirectoryIndex(File directory, File file, int magic, short format, boolean nested, String name,
+	                         ExecutorService scanner, Comparator<E> order) {
+		this.directory = directory.getAbsoluteFile();
+		this.file = file;
+		this.magic = magic;
+		this.format = format;
+		this.nested = nested;
+		this.name = name;
+		this.scanner = scanner;
+		this.order = order;
+	}
+	
+	/**
+	 * Creates an executor of daemon threads reading entries.
+	 *
+	 * @param threads The number of entries read at the same time.
+	 * @param name The name of the threads.
+	 * @return The executor.
+	 */
+	protected static ExecutorService newScanner(int threads, String name) {
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Gets the file an entry is read from. Its modification time and size decide if the entry is read again.
+	 *
+	 * @param name The name of the entry in the directory.
+	 * @return The file, which may not exist.
+	 */
+	protected abstract File getSource(String name);
+	
+	/**
+	 * Reads an entry.
+	 *
+	 * @param name The name of the entry in the directory.
+	 * @param source The file of the entry.
+	 * @param lastModified The modification time of the file.
+	 * @param length The size of the file.
+	 * @return The entry.
+	 * @throws IOException If the entry cannot be read, it is then dropped from the index.
+	 */
+	protected abstract E read(String name, File source, long lastModified, long length) throws IOException;
+	
+	/**
+	 * Writes the fields of an entry to the persisted index, except its name.
+	 *
+	 * @param out The output.
+	 * @param entry The entry.
+	 * @throws IOException If the entry cannot be written.
+	 */
+	protected abstract void writeEntry(DataOutputStream out, E entry) throws IOException;
+	
+	/**
+	 * Reads the fields of an entry from the persisted index, as written by {@link #writeEntry(DataOutputStream, Stamped)}.
+	 *
+	 * @param in The input.
+	 * @param name The name of the entry in the directory.
+	 * @return The entry.
+	 * @throws IOException If the entry cannot be read.
+	 */
+	protected abstract E readEntry(DataInputStream in, String name) throws IOException;
+	
+	/**
+	 * Checks if a name in the directory can be an entry. Defaults to all names.
+	 *
+	 * @param name The name.
+	 * @return {@code true} if the name is indexed, {@code false} otherwise.
+	 */
+	protected boolean accepts(String name) {
+		return true;
+	}
+	
+	/**
+	 * Checks if a change to a file inside a subdirectory may change its entry. Defaults to all files.
+	 *
+	 * @param file The name of the changed file.
+	 * @return {@code true} if the entry is read again, {@code false} otherwise.
+	 */
+	protected boolean isRelevant(String file) {
+		return true;
+	}
+	
+	/**
+	 * Scans the directory, re-reading the entries that changed since they were indexed.
+	 *
+	 * @return A future completing when the index is up-to-date.
+	 */
+	public CompletableFuture<Void> refresh() {
+		return CompletableFuture.supplyAsync(() -> {
+			File[] files = directory.listFiles(file -> file.isDirectory() == nested && accepts(file.getName()));
+			return files != null ? files : new File[0];
+		}, scanner).thenCompose(files -> {
+			Set<String> names = new HashSet<>(entries.keySet());
+			for (File file : files) {
+				names.add(file.getName());
+			}
+			
+			return update(names);
+		});
+	}
+	
+	/**
+	 * Re-reads some entries if they changed, and drops the entries that are gone.
+	 *
+	 * @param names The names of the entries.
+	 * @return A future completing when the entries are updated.
+	 */
+	private CompletableFuture<Void> update(Collection<String> names) {
+		List<CompletableFuture<Void>> futures = new ArrayList<>(names.size());
+		for (String name : names) {
+			futures.add(CompletableFuture.runAsync(() -> scan(name), scanner));
+		}
+		
+		return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).thenRun(() -> {
+			if (publish()) {
+				save();
+			}
+		});
+	}
+	
+	private void scan(String name) {
+		File source = getSource(name);
+		long lastModified = source.lastModified();
+		long length = source.length();
+		
+		if (lastModified == 0 || !accepts(name)) {
+			entries.remove(name);
+			return;
+		}
+		
+		E entry = entries.get(name);
+		if (entry != null && entry.lastModified() == lastModified && entry.length() == length) {
+			return;
+		}
+		
+		try {
+			entries.put(name, read(name, source, lastModified, length));
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Failed to index " + source + ": " + e.getMessage());
+			entries.remove(name);
+		}
+	}
+	
+	/**
+	 * Publishes the entries as a new snapshot.
+	 *
+	 * @return {@code true} if the snapshot changed, {@code false} otherwise.
+	 */
+	private synchronized boolean publish() {
+		List<E> sorted = new ArrayList<>(entries.values());
+		sorted.sort(order);
+		
+		if (sorted.equals(snapshot)) {
+			return false;
+		}
+		
+		snapshot = List.copyOf(sorted);
+		listeners.forEach(Runnable::run);
+		return true;
+	}
+	
+	// Persistence
+	/**
+	 * Loads the persisted index. A missing, outdated or corrupt index is ignored, the next refresh rebuilds it.
+	 */
+	protected void load() {
+		if (!file.isFile()) {
+			return;
+		}
+		
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != magic || in.readShort() != format || !directory.getPath().equals(in.readUTF())) {
+				return;
+			}
+			
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				entries.put(name, readEntry(in, name));
+			}
+			
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Failed to load index " + file + ": " + e.getMessage());
+			entries.clear();
+		}
+		
+		publish();
+	}
+	
+	private synchronized void save() {
+		try {
+			file.getParentFile().mkdirs();
+			File temp = new File(file.getPath() + ".tmp");
+			
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeInt(magic);
+				out.writeShort(format);
+				out.writeUTF(directory.getPath());
+				
+				out.writeInt(entries.size());
+				for (Map.Entry<String, E> entry : entries.entrySet()) {
+					out.writeUTF(entry.getKey());
+					writeEntry(out, entry.getValue());
+				}
+			}
+			
+			AtomicFiles.replace(temp.toPath(), file.toPath());
+			
+		} catch (IOException e) {
+			LOGGER.warn("Failed to save index " + file + ": " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Writes a string that may be {@code null}.
+	 *
+	 * @param out The output.
+	 * @param value The string, or {@code null}.
+	 * @throws IOException If the string cannot be written.
+	 */
+	protected static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+	
+	/**
+	 * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+	 *
+	 * @param in The input.
+	 * @return The string, or {@code null}.
+	 * @throws IOException If the string cannot be read.
+	 */
+	protected static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+	
+	// Watching
+	/**
+	 * Starts watching the directory, updating the index when an entry is added, changed, renamed or removed.
+	 * Does nothing if already watching.
+	 *
+	 * @throws IOException If the directory cannot be watched.
+	 */
+	public synchronized void watch() throws IOException {
+		if (watchService != null) {
+			return;
+		}
+		
+		directory.mkdirs();
+		watchService = directory.toPath().getFileSystem().newWatchService();
+		
+		if (nested) {
+			directory.toPath().register(watchService, ENTRY_CREATE, ENTRY_DELETE);
+			File[] subdirectories = directory.listFiles(File::isDirectory);
+			if (subdirectories != null) {
+				for (File subdirectory : subdirectories) {
+					register(subdirectory.toPath());
+				}
+			}
+		} else {
+			directory.toPath().register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+		}
+		
+		Thread watcher = new Thread(() -> watchLoop(watchService), name + "Watcher");
+		watcher.setDaemon(true);
+		watcher.start();
+	}
+	
+	/**
+	 * Watches a subdirectory. A subdirectory that cannot be watched, e.g. one removed in the meantime or past the
+	 * watch limit of the system, is only skipped: its entry is still updated by every refresh.
+	 */
+	private void register(Path subdirectory) {
+		try {
+			subdirectory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+		} catch (IOException e) {
+			LOGGER.debug("Failed to watch " + subdirectory + ": " + e.getMessage());
+		}
+	}
+	
+	private void watchLoop(WatchService watchService) {
+		try {
+			while (true) {
+				Set<String> names = new HashSet<>();
+				boolean overflow = false;
+				
+				// collect the changes until the directory is quiet, e.g. while an entry is being written
+				WatchKey key = watchService.take();
+				do {
+					Path watched = (Path) key.watchable();
+					
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (event.kind() == OVERFLOW) {
+							overflow = true;
+							continue;
+						}
+						
+						Path path = watched.resolve((Path) event.context());
+						if (watched.equals(directory.toPath())) {
+							names.add(path.getFileName().toString());
+							
+							if (nested && event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+								register(path);
+							}
+						} else if (isRelevant(path.getFileName().toString())) {
+							names.add(watched.getFileName().toString());
+						}
+					}
+					
+					key.reset();
+				} while ((key = watchService.poll(WATCH_DELAY, TimeUnit.MILLISECONDS)) != null);
+				
+				// a failed update must not stop the watcher, the next change updates the entries again
+				try {
+					(overflow ? refresh() : update(names)).join();
+				} catch (RuntimeException e) {
+					LOGGER.warn("Failed to update index of " + directory + ": " + (e instanceof CompletionException && e.getCause() != null ? e.getCause() : e));
+				}
+			}
+		} catch (ClosedWatchServiceException | InterruptedException e) {
+			// closed
+		}
+	}
+	
+	/**
+	 * Stops watching the directory.
+	 */
+	@Override
+	public synchronized void close() {
+		if (watchService == null) {
+			return;
+		}
+		
+		try {
+			watchService.close();
+		} catch (IOException ignored) {}
+		watchService = null;
+	}
+	
+	// Getters
+	/**
+	 * Gets the indexed directory.
+	 *
+	 * @return The directory.
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+	
+	/**
+	 * Gets the indexed entries, in the order of the index.
+	 *
+	 * @return An immutable snapshot of the entries.
+	 */
+	public List<E> getEntries() {
+		return snapshot;
+	}
+	
+	/**
+	 * Gets an indexed entry.
+	 *
+	 * @param name The name of the entry in the directory.
+	 * @return The entry, or {@code null} if not indexed.
+	 */
+	public E get(String name) {
+		return entries.get(name);
+	}
+	
+	/**
+	 * Adds a listener called whenever the indexed entries change, on the thread updating the index.
+	 *
+	 * @param listener The listener.
+	 */
+	public void addListener(Runnable listener) {
+		listeners.add(listener);
+	}
+	
+	/**
+	 * Removes a listener.
+	 *
+	 * @param listener The listener.
+	 */
+	public void removeListener(Runnable listener) {
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * An indexed entry, stamped with the file it was read from.
+	 */
+	public interface Stamped {
+		/**
+		 * Gets the modification time of the file when the entry was indexed.
+		 *
+		 * @return The modification time, in milliseconds since the epoch.
+		 */
+		long lastModified();
+		
+		/**
+		 * Gets the size of the file when the entry was indexed.
+		 *
+		 * @return The size in bytes.
+		 */
+		long length();
+	}
+}
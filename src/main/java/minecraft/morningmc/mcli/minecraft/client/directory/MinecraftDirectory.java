@@ -37,4 +37,31 @@ public abstract class MinecraftDirectory {
 	public File getRoot() {
 		return this.root;
 	}
+	
+	/**
+	 * Gets the directory holding the version JSONs and client jars, {@code versions}.
+	 *
+	 * @return The versions directory.
+	 */
+	public File getVersionsDirectory() {
+		return new File(this.root, "versions");
+	}
+	
+	/**
+	 * Gets the directory holding the libraries in Maven layout, {@code libraries}.
+	 *
+	 * @return The libraries directory.
+	 */
+	public File getLibrariesDirectory() {
+		return new File(this.root, "libraries");
+	}
+	
+	/**
+	 * Gets the directory holding the asset indexes and objects, {@code assets}.
+	 *
+	 * @return The assets directory.
+	 */
+	public File getAssetsDirectory() {
+		return new File(this.root, "assets");
+	}
 }
\ No newline at end of file
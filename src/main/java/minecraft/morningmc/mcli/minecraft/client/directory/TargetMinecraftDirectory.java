@@ -1,10 +1,28 @@
 package minecraft.morningmc.mcli.minecraft.client.directory;
 
 import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
+import minecraft.morningmc.mcli.utils.exceptions.IllegalNbtException;
+import minecraft.morningmc.mcli.utils.interfaces.NbtLoader;
+
+import dev.dewy.nbt.tags.primitive.StringTag;
 
 import java.io.File;
 
 public class TargetMinecraftDirectory extends MinecraftDirectory {
+	/** NbtLoader for loading and saving {@code TargetMinecraftDirectory} objects from/to NBT data. */
+	public static final NbtLoader<TargetMinecraftDirectory, StringTag> LOADER = new NbtLoader<>() {
+		
+		@Override
+		public TargetMinecraftDirectory loadFromNbt(StringTag tag) throws IllegalNbtException {
+			return new TargetMinecraftDirectory(new File(tag.getValue()));
+		}
+		
+		@Override
+		public StringTag saveToNbt(TargetMinecraftDirectory object) {
+			return new StringTag(object.getRoot().getAbsolutePath());
+		}
+	};
+	
 	public static final TargetMinecraftDirectory STANDARD = new TargetMinecraftDirectory(new File(FileMetadata.APPDATA, ".minecraft"));
 	public static final File ISOLATE_ROOT = new File(STANDARD.getRoot(), "isolate");
 	
@@ -20,6 +38,24 @@ public class TargetMinecraftDirectory extends MinecraftDirectory {
 		return new SourceMinecraftDirectory(root);
 	}
 	
+	/**
+	 * Gets the directory holding the mod jars, {@code mods}.
+	 *
+	 * @return The mods directory.
+	 */
+	public File getModsDirectory() {
+		return new File(this.root, "mods");
+	}
+	
+	/**
+	 * Gets the directory holding the worlds, {@code saves}.
+	 *
+	 * @return The saves directory.
+	 */
+	public File getSavesDirectory() {
+		return new File(this.root, "saves");
+	}
+	
 	public enum Policy {
 		STANDARD, SOURCE, ISOLATED, CUSTOM
 	}
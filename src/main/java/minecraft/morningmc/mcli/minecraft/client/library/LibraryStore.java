@@ -0,0 +1,409 @@
+package minecraft.morningmc.mcli.minecraft.client.library;
+
+import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
+import minecraft.morningmc.mcli.utils.HashIndex;
+import minecraft.morningmc.mcli.minecraft.client.directory.SourceMinecraftDirectory;
+import minecraft.morningmc.mcli.utils.AtomicFiles;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * A launcher-wide content-addressed store of library jars, {@code store/<xx>/<sha1>}, shared by all game directories.
+ * <p>
+ * {@link #link(List)} moves the jars of the {@code libraries} directories into the store and replaces them with hardlinks,
+ * so a jar used by several directories is stored once, and the classpath stays unchanged. Objects are verified once per hash,
+ * tracked by an {@link HashIndex} of the store. Directories on another file system than the store are skipped,
+ * and where hardlinks are not supported, a jar is left in place and only counted: copying it into the store
+ * would keep it twice.
+ * <p>
+ * An object whose only link is the store itself is no longer used by any directory, e.g. after a library was updated
+ * or a directory removed, and is swept by {@link #sweep()}.
+ * <p>
+ * To avoid hashing every jar on every run, the hash of each jar is remembered per directory with its size and modification time.
+ * Hardlinks share the modification time of the object, so linked jars are never hashed again.
+ */
+public class LibraryStore implements Closeable {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The root of the store. */
+	public static final File STORE_ROOT = new File(FileMetadata.WORKING_ROOT, "store");
+	
+	private static final int MAGIC = 0x4D434C50; // MCLP
+	private static final int FORMAT = 1;
+	
+	private final File root;
+	private final HashIndex verified;
+	
+	/**
+	 * Opens the store at {@link #STORE_ROOT}.
+	 *
+	 * @throws IOException If the store index cannot be opened.
+	 */
+	public LibraryStore() throws IOException {
+		this(STORE_ROOT);
+	}
+	
+	/**
+	 * Opens a store.
+	 *
+	 * @param root The root of the store.
+	 * @throws IOException If the store index cannot be opened.
+	 */
+	public LibraryStore(File root) throws IOException {
+		this.root = root;
+		this.verified = new HashIndex(new File(root, "verified.idx"));
+	}
+	
+	/**
+	 * Gets the file of an object, whether it is stored or not.
+	 *
+	 * @param sha1 The SHA-1 hash of the object, lowercase hex.
+	 * @return The object file.
+	 */
+	public File getObject(String sha1) {
+		return new File(new File(root, sha1.substring(0, 2)), sha1);
+	}
+	
+	/**
+	 * Checks if an object is stored and intact, hashing it only if it changed since it was last verified.
+	 * A corrupt object is removed from the store.
+	 *
+	 * @param sha1 The SHA-1 hash of the object, lowercase hex.
+	 * @return {@code true} if the object is stored and intact, {@code false} otherwise.
+	 */
+	public synchronized boolean verify(String sha1) {
+		Path object = getObject(sha1).toPath();
+		
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(object, BasicFileAttributes.class);
+		} catch (IOException e) {
+			return false;
+		}
+		
+		byte[] hash = HexFormat.of().parseHex(sha1);
+		long lastModified = attributes.lastModifiedTime().toMillis();
+		if (verified.isVerified(hash, attributes.size(), lastModified)) {
+			return true;
+		}
+		
+		try {
+			if (sha1.equals(hash(object))) {
+				verified.put(hash, attributes.size(), lastModified);
+				return true;
+			}
+			
+			LOGGER.warn("Removing corrupt object " + sha1 + " from the library store");
+			Files.delete(object);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to verify object " + sha1 + ": " + e.getMessage());
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Adds a file to the store and replaces it with a hardlink to the object.
+	 * If the file cannot be hardlinked, it is left in place and the store is unchanged.
+	 *
+	 * @param file The file.
+	 * @param sha1 The SHA-1 hash of the file, lowercase hex.
+	 * @return {@code true} if the file is a hardlink to the object afterwards, {@code false} if it is kept as a copy.
+	 * @throws IOException If the file cannot be added.
+	 */
+	public synchronized boolean add(Path file, String sha1) throws IOException {
+		Path object = getObject(sha1).toPath();
+		
+		if (!verify(sha1)) {
+			Files.createDirectories(object.getParent());
+			
+			try {
+				Files.createLink(object, file);
+			} catch (IOException | UnsupportedOperationException e) {
+				return false;
+			}
+			
+			BasicFileAttributes attributes = Files.readAttributes(object, BasicFileAttributes.class);
+			verified.put(HexFormat.of().parseHex(sha1), attributes.size(), attributes.lastModifiedTime().toMillis());
+		}
+		
+		if (isSameFile(file, object)) {
+			return true;
+		}
+		
+		Path temp = file.resolveSibling(file.getFileName() + ".link");
+		try {
+			Files.deleteIfExists(temp);
+			Files.createLink(temp, object);
+			AtomicFiles.replace(temp, file);
+			return true;
+			
+		} catch (IOException | UnsupportedOperationException e) {
+			Files.deleteIfExists(temp);
+			return false;
+		}
+	}
+	
+	/**
+	 * Links the libraries of game directories to the store, then sweeps the objects no directory uses any more.
+	 *
+	 * @param sources The game directories.
+	 * @return The report of each directory, in the same order.
+	 */
+	public List<Report> link(List<SourceMinecraftDirectory> sources) {
+		List<Report> reports = new ArrayList<>(sources.size());
+		
+		for (SourceMinecraftDirectory source : sources) {
+			long startTime = System.nanoTime();
+			Report report = link(source);
+			reports.add(report);
+			
+			LOGGER.info("Linked " + report.files() + " libraries of " + source.getRoot() + " in " + (System.nanoTime() - startTime) / 1_000_000 + " ms: "
+					            + report.bytes() / 1024 + " KiB, " + report.copies() + " kept as copies");
+		}
+		
+		sweep();
+		return reports;
+	}
+	
+	/**
+	 * Removes the objects whose only link is the store itself, and measures the store.
+	 * <p>
+	 * Link counts are read from the {@code unix} attribute view. Where it is not supported, e.g. on Windows, nothing is removed.
+	 * An object linked by another process while it is swept is only removed from the store: the directory keeps the content,
+	 * and the next {@link #link(List)} adds it again.
+	 *
+	 * @return The usage of the store after sweeping, or {@code null} if link counts are not available.
+	 */
+	public synchronized Usage sweep() {
+		Path store = root.toPath();
+		try {
+			if (!Files.isDirectory(store) || !Files.getFileStore(store).supportsFileAttributeView("unix")) {
+				return null;
+			}
+		} catch (IOException e) {
+			return null;
+		}
+		
+		List<Path> objects;
+		try (var stream = Files.walk(store, 2)) {
+			objects = stream.filter(path -> path.getNameCount() == store.getNameCount() + 2 && path.getParent().getFileName().toString().length() == 2
+					                                && path.getFileName().toString().length() == 40).toList();
+		} catch (IOException e) {
+			LOGGER.warn("Failed to sweep the library store: " + e.getMessage());
+			return null;
+		}
+		
+		int count = 0, swept = 0;
+		long bytes = 0, savedBytes = 0, sweptBytes = 0;
+		
+		for (Path object : objects) {
+			try {
+				Map<String, Object> attributes = Files.readAttributes(object, "unix:nlink,size");
+				int links = (Integer) attributes.get("nlink");
+				long size = (Long) attributes.get("size");
+				
+				if (links <= 1) {
+					Files.delete(object);
+					swept++;
+					sweptBytes += size;
+					continue;
+				}
+				
+				count++;
+				bytes += size;
+				// without the store, each of the links but the store's own would be a copy
+				savedBytes += (links - 2) * size;
+				
+			} catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+				LOGGER.warn("Failed to sweep object " + object.getFileName() + ": " + e.getMessage());
+			}
+		}
+		
+		Usage usage = new Usage(count, bytes, savedBytes, swept, sweptBytes);
+		LOGGER.info("Library store holds " + count + " objects, " + bytes / 1024 + " KiB, " + savedBytes / 1024 + " KiB saved; swept "
+				            + swept + " unused objects, " + sweptBytes / 1024 + " KiB");
+		return usage;
+	}
+	
+	private Report link(SourceMinecraftDirectory source) {
+		Path libraries = source.getLibrariesDirectory().toPath();
+		if (!Files.isDirectory(libraries)) {
+			return new Report(source.getRoot(), 0, 0, 0);
+		}
+		if (!isSameFileStore(libraries, root.toPath())) {
+			LOGGER.info("Skipped libraries of " + source.getRoot() + ": not on the file system of the library store");
+			return new Report(source.getRoot(), 0, 0, 0);
+		}
+		
+		File indexFile = new File(new File(root, "directories"), Integer.toHexString(source.getRoot().getAbsolutePath().hashCode()) + ".bin");
+		Map<String, Hashed> hashes = loadHashes(indexFile, libraries);
+		Map<String, Hashed> updated = new HashMap<>();
+		
+		int files = 0, copies = 0;
+		long bytes = 0;
+		
+		List<Path> jars;
+		try (var stream = Files.walk(libraries)) {
+			jars = stream.filter(path -> path.getFileName().toString().endsWith(".jar") && Files.isRegularFile(path)).toList();
+		} catch (IOException e) {
+			return new Report(source.getRoot(), 0, 0, 0);
+		}
+		
+		for (Path jar : jars) {
+			String relative = libraries.relativize(jar).toString();
+			
+			try {
+				BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+				long size = attributes.size();
+				long lastModified = attributes.lastModifiedTime().toMillis();
+				
+				Hashed hashed = hashes.get(relative);
+				String sha1 = hashed != null && hashed.size() == size && hashed.lastModified() == lastModified ? hashed.sha1() : hash(jar);
+				
+				boolean linked = add(jar, sha1);
+				if (!linked) {
+					copies++;
+				}
+				
+				// linking may change the modification time to the one of the object
+				BasicFileAttributes current = Files.readAttributes(jar, BasicFileAttributes.class);
+				updated.put(relative, new Hashed(sha1, current.size(), current.lastModifiedTime().toMillis()));
+				
+				files++;
+				bytes += size;
+				
+			} catch (IOException e) {
+				LOGGER.warn("Failed to link library " + jar + ": " + e.getMessage());
+			}
+		}
+		
+		saveHashes(indexFile, libraries, updated);
+		verified.force();
+		
+		return new Report(source.getRoot(), files, copies, bytes);
+	}
+	
+	// Hashes
+	private static boolean isSameFile(Path a, Path b) {
+		try {
+			return Files.isSameFile(a, b);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+	
+	private static boolean isSameFileStore(Path a, Path b) {
+		try {
+			Files.createDirectories(b);
+			return Files.getFileStore(a).equals(Files.getFileStore(b));
+		} catch (IOException e) {
+			return false;
+		}
+	}
+	
+	private static String hash(Path path) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		
+		try (InputStream in = Files.newInputStream(path)) {
+			byte[] buffer = new byte[1 << 16];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		
+		return HexFormat.of().formatHex(digest.digest());
+	}
+	
+	private static Map<String, Hashed> loadHashes(File file, Path libraries) {
+		Map<String, Hashed> hashes = new HashMap<>();
+		if (!file.isFile()) {
+			return hashes;
+		}
+		
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT || !in.readUTF().equals(libraries.toAbsolutePath().toString())) {
+				return hashes;
+			}
+			
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				hashes.put(in.readUTF(), new Hashed(in.readUTF(), in.readLong(), in.readLong()));
+			}
+			
+		} catch (IOException e) {
+			LOGGER.warn("Failed to load library hashes " + file + ": " + e.getMessage());
+			hashes.clear();
+		}
+		
+		return hashes;
+	}
+	
+	private static void saveHashes(File file, Path libraries, Map<String, Hashed> hashes) {
+		try {
+			file.getParentFile().mkdirs();
+			File temp = new File(file.getPath() + ".tmp");
+			
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT);
+				out.writeUTF(libraries.toAbsolutePath().toString());
+				
+				out.writeInt(hashes.size());
+				for (Map.Entry<String, Hashed> entry : hashes.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeUTF(entry.getValue().sha1());
+					out.writeLong(entry.getValue().size());
+					out.writeLong(entry.getValue().lastModified());
+				}
+			}
+			
+			AtomicFiles.replace(temp.toPath(), file.toPath());
+			
+		} catch (IOException e) {
+			LOGGER.warn("Failed to save library hashes " + file + ": " + e.getMessage());
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		verified.close();
+	}
+	
+	private record Hashed(String sha1, long size, long lastModified) {}
+	
+	/**
+	 * The result of linking a game directory to the store.
+	 *
+	 * @param directory The game directory.
+	 * @param files The number of library jars, 0 if the directory is not on the file system of the store.
+	 * @param copies The number of jars kept as copies, because they could not be hardlinked.
+	 * @param bytes The total size of the jars.
+	 */
+	public record Report(File directory, int files, int copies, long bytes) {}
+	
+	/**
+	 * The usage of the store, measured by {@link #sweep()}.
+	 *
+	 * @param objects The number of objects used by at least one directory.
+	 * @param bytes The size of these objects.
+	 * @param savedBytes The size the directories would take in addition if each kept its own copies, from the link counts.
+	 * @param swept The number of objects removed, because no directory used them any more.
+	 * @param sweptBytes The size of the removed objects.
+	 */
+	public record Usage(int objects, long bytes, long savedBytes, int swept, long sweptBytes) {}
+}
@@ -0,0 +1,276 @@
+package minecraft.morningmc.mcli.minecraft.client.mod;
+
+import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
+import minecraft.morningmc.mcli.minecraft.client.directory.DirectoryIndex;
+import minecraft.morningmc.mcli.minecraft.client.directory.TargetMinecraftDirectory;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchService;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.jar.Manifest;
+
+/**
+ * An index of the mods in the {@code mods} directory of a game directory, for listing them without opening every jar.
+ * <p>
+ * A jar is indexed by reading its zip central directory and the one metadata entry of its loader, {@code fabric.mod.json},
+ * {@code quilt.mod.json}, {@code META-INF/mods.toml}, {@code META-INF/neoforge.mods.toml} or {@code mcmod.info}, without
+ * inflating anything else. The index is persisted under {@link #CACHE_DIRECTORY} and only jars whose path, size or
+ * modification time changed are read again, in parallel. {@link #watch()} keeps the index current with a {@link WatchService}.
+ */
+public class ModIndex extends DirectoryIndex<ModIndex.Mod> {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The directory holding the persisted indexes. */
+	public static final File CACHE_DIRECTORY = new File(FileMetadata.CACHE_ROOT, "mods");
+	
+	/** The number of jars read at the same time. */
+	public static final int SCAN_THREADS = 8;
+	
+	/** The suffix of disabled mods, as used by most launchers. */
+	public static final String DISABLED_SUFFIX = ".disabled";
+	
+	private static final int MAGIC = 0x4D434D49; // MCMI
+	private static final short FORMAT = 1;
+	
+	private static final Set<String> METADATA_ENTRIES = Set.of("fabric.mod.json", "quilt.mod.json", "META-INF/mods.toml",
+			"META-INF/neoforge.mods.toml", "mcmod.info");
+	private static final String MANIFEST = "META-INF/MANIFEST.MF";
+	
+	private static final ExecutorService SCANNER = newScanner(SCAN_THREADS, "modScanner");
+	
+	private static final Map<File, ModIndex> indexes = new ConcurrentHashMap<>();
+	
+	private ModIndex(TargetMinecraftDirectory target) {
+		super(target.getModsDirectory(),
+				new File(CACHE_DIRECTORY, "index-" + Integer.toHexString(target.getModsDirectory().getAbsolutePath().hashCode()) + ".bin"),
+				MAGIC, FORMAT, false, "mod", SCANNER, Comparator.comparing(Mod::file, String.CASE_INSENSITIVE_ORDER));
+	}
+	
+	/**
+	 * Gets the index of a game directory, loading the persisted index when first called for the directory.
+	 *
+	 * @param target The game directory.
+	 * @return The mod index.
+	 */
+	public static ModIndex of(TargetMinecraftDirectory target) {
+		return indexes.computeIfAbsent(target.getModsDirectory().getAbsoluteFile(), mods -> {
+			ModIndex index = new ModIndex(target);
+			index.load();
+			return index;
+		});
+	}
+	
+	@Override
+	protected boolean accepts(String name) {
+		return name.endsWith(".jar") || name.endsWith(".jar" + DISABLED_SUFFIX);
+	}
+	
+	@Override
+	protected File getSource(String name) {
+		return new File(getDirectory(), name);
+	}
+	
+	/**
+	 * Reads the metadata of a jar. A jar without readable metadata is indexed with a {@code null} ID.
+	 */
+	@Override
+	protected Mod read(String name, File jar, long lastModified, long length) {
+		boolean enabled = !name.endsWith(DISABLED_SUFFIX);
+		
+		try (FileChannel channel = FileChannel.open(jar.toPath(), StandardOpenOption.READ)) {
+			Map<String, byte[]> metadata = ZipEntryReader.read(channel, METADATA_ENTRIES);
+			
+			if (metadata.containsKey("fabric.mod.json")) {
+				JsonObject json = parseJson(metadata.get("fabric.mod.json")).getAsJsonObject();
+				return new Mod(name, Loader.FABRIC, getString(json, "id"), getString(json, "name"), getString(json, "version"), enabled, lastModified, length);
+			}
+			
+			if (metadata.containsKey("quilt.mod.json")) {
+				JsonObject loader = parseJson(metadata.get("quilt.mod.json")).getAsJsonObject().getAsJsonObject("quilt_loader");
+				JsonObject info = loader.has("metadata") ? loader.getAsJsonObject("metadata") : new JsonObject();
+				return new Mod(name, Loader.QUILT, getString(loader, "id"), getString(info, "name"), getString(loader, "version"), enabled, lastModified, length);
+			}
+			
+			for (String entry : List.of("META-INF/neoforge.mods.toml", "META-INF/mods.toml")) {
+				if (metadata.containsKey(entry)) {
+					Map<String, String> mod = readFirstMod(new String(metadata.get(entry), StandardCharsets.UTF_8));
+					
+					// without an Implementation-Version, the placeholder is kept rather than a made-up version
+					String version = mod.get("version");
+					String jarVersion = version != null && version.contains("${file.jarVersion}") ? readJarVersion(channel) : null;
+					if (jarVersion != null) {
+						version = version.replace("${file.jarVersion}", jarVersion);
+					}
+					
+					Loader loader = entry.startsWith("META-INF/neoforge") ? Loader.NEOFORGE : Loader.FORGE;
+					return new Mod(name, loader, mod.get("modId"), mod.get("displayName"), version, enabled, lastModified, length);
+				}
+			}
+			
+			if (metadata.containsKey("mcmod.info")) {
+				JsonElement json = parseJson(metadata.get("mcmod.info"));
+				JsonArray list = json.isJsonArray() ? json.getAsJsonArray() : json.getAsJsonObject().getAsJsonArray("modList");
+				JsonObject mod = list.get(0).getAsJsonObject();
+				return new Mod(name, Loader.LEGACY_FORGE, getString(mod, "modid"), getString(mod, "name"), getString(mod, "version"), enabled, lastModified, length);
+			}
+			
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Failed to read mod " + jar + ": " + e.getMessage());
+		}
+		
+		return new Mod(name, null, null, null, null, enabled, lastModified, length);
+	}
+	
+	private static JsonElement parseJson(byte[] bytes) {
+		// some mods ship their metadata with a byte order mark
+		String json = new String(bytes, StandardCharsets.UTF_8);
+		return JsonParser.parseString(json.startsWith("\uFEFF") ? json.substring(1) : json);
+	}
+	
+	private static String getString(JsonObject json, String key) {
+		JsonElement element = json.get(key);
+		return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+	}
+	
+	/**
+	 * Reads the string keys of the first {@code [[mods]]} table of a {@code mods.toml}. Values spanning lines are not needed.
+	 */
+	private static Map<String, String> readFirstMod(String toml) {
+		Map<String, String> mod = new HashMap<>();
+		boolean inMods = false;
+		
+		for (String line : toml.split("\\R")) {
+			line = line.strip();
+			
+			if (line.startsWith("[")) {
+				if (inMods) {
+					break;
+				}
+				inMods = line.replace(" ", "").equals("[[mods]]");
+				continue;
+			}
+			
+			int equals = line.indexOf('=');
+			if (!inMods || equals < 0) {
+				continue;
+			}
+			
+			String value = line.substring(equals + 1).strip();
+			if (value.length() >= 2 && (value.charAt(0) == '"' || value.charAt(0) == '\'')) {
+				int end = value.indexOf(value.charAt(0), 1);
+				if (end > 0) {
+					mod.put(line.substring(0, equals).strip(), value.substring(1, end));
+				}
+			}
+		}
+		
+		return mod;
+	}
+	
+	/**
+	 * Reads the version of a jar from its manifest, which is only needed by Forge mods using {@code ${file.jarVersion}}.
+	 */
+	private static String readJarVersion(FileChannel channel) throws IOException {
+		byte[] manifest = ZipEntryReader.read(channel, Set.of(MANIFEST)).get(MANIFEST);
+		if (manifest == null) {
+			return null;
+		}
+		
+		return new Manifest(new ByteArrayInputStream(manifest)).getMainAttributes().getValue("Implementation-Version");
+	}
+	
+	// Persistence
+	@Override
+	protected void writeEntry(DataOutputStream out, Mod mod) throws IOException {
+		out.writeByte(mod.loader() != null ? mod.loader().ordinal() : -1);
+		writeString(out, mod.id());
+		writeString(out, mod.name());
+		writeString(out, mod.version());
+		out.writeBoolean(mod.enabled());
+		out.writeLong(mod.lastModified());
+		out.writeLong(mod.length());
+	}
+	
+	@Override
+	protected Mod readEntry(DataInputStream in, String name) throws IOException {
+		int loader = in.readByte();
+		return new Mod(name, loader >= 0 ? Loader.values()[loader] : null, readString(in), readString(in), readString(in),
+				in.readBoolean(), in.readLong(), in.readLong());
+	}
+	
+	// Getters
+	/**
+	 * Gets the indexed jars, sorted by file name.
+	 *
+	 * @return An immutable snapshot of the jars.
+	 */
+	public List<Mod> getMods() {
+		return getEntries();
+	}
+	
+	/**
+	 * Gets the number of enabled mods.
+	 *
+	 * @return The number of mods.
+	 */
+	public int getEnabledCount() {
+		int count = 0;
+		for (Mod mod : getEntries()) {
+			if (mod.enabled()) {
+				count++;
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Gets the mods enabled more than once, e.g. two versions of the same mod.
+	 *
+	 * @return The jars of each duplicated mod ID, sorted by ID.
+	 */
+	public Map<String, List<Mod>> getDuplicates() {
+		Map<String, List<Mod>> byId = new TreeMap<>();
+		for (Mod mod : getEntries()) {
+			if (mod.enabled() && mod.id() != null) {
+				byId.computeIfAbsent(mod.id(), id -> new ArrayList<>()).add(mod);
+			}
+		}
+		
+		byId.values().removeIf(mods -> mods.size() < 2);
+		return byId;
+	}
+	
+	/**
+	 * The loader a mod is made for, by the metadata it ships.
+	 */
+	public enum Loader {
+		FABRIC, QUILT, FORGE, NEOFORGE, LEGACY_FORGE
+	}
+	
+	/**
+	 * An indexed jar.
+	 *
+	 * @param file The file name of the jar in the mods directory.
+	 * @param loader The loader of the mod, or {@code null} if the jar has no known metadata.
+	 * @param id The ID of the mod, or {@code null} if unknown.
+	 * @param name The display name of the mod, or {@code null} if unknown.
+	 * @param version The version of the mod, or {@code null} if unknown.
+	 * @param enabled Whether the mod is enabled, i.e. not renamed to {@code .jar.disabled}.
+	 * @param lastModified The modification time of the jar when it was indexed.
+	 * @param length The size of the jar when it was indexed.
+	 */
+	public record Mod(String file, Loader loader, String id, String name, String version, boolean enabled, long lastModified, long length) implements Stamped {}
+}
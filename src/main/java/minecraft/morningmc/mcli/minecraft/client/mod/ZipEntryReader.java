@@ -0,0 +1,240 @@
+package minecraft.morningmc.mcli.minecraft.client.mod;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads single entries of a zip file from its central directory, without reading or inflating any other entry.
+ * <p>
+ * The end of central directory record is found at the end of the file, then the central directory is read in one go,
+ * and only the local headers and data of the requested entries follow. Zip64 archives are supported, encryption is not.
+ */
+class ZipEntryReader {
+	/** The largest entry read, in bytes. Metadata files are small, anything larger is not metadata. */
+	static final int MAX_ENTRY_SIZE = 1 << 20;
+	
+	private static final int EOCD_SIGNATURE = 0x06054B50;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064B50;
+	private static final int ZIP64_EOCD_SIGNATURE = 0x06064B50;
+	private static final int CENTRAL_SIGNATURE = 0x02014B50;
+	private static final int LOCAL_SIGNATURE = 0x04034B50;
+	
+	private static final int EOCD_SIZE = 22;
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+	private static final int SHORT_TAIL_SIZE = 1 << 10;
+	
+	private ZipEntryReader() {}
+	
+	/**
+	 * Reads entries of a zip file.
+	 *
+	 * @param channel The zip file.
+	 * @param names The names of the entries to read.
+	 * @return The contents of the entries found, by name.
+	 * @throws IOException If the file is not a valid zip file or cannot be read.
+	 */
+	static Map<String, byte[]> read(FileChannel channel, Set<String> names) throws IOException {
+		Map<String, byte[]> entries = new HashMap<>();
+		
+		// most entries are classes, only the names with a wanted length are decoded
+		BitSet lengths = new BitSet();
+		for (String name : names) {
+			lengths.set(name.getBytes(StandardCharsets.UTF_8).length);
+		}
+		
+		ByteBuffer directory = readCentralDirectory(channel);
+		while (directory.remaining() >= 46) {
+			int start = directory.position();
+			if (directory.getInt(start) != CENTRAL_SIGNATURE) {
+				throw new IOException("Invalid central directory entry");
+			}
+			
+			int method = directory.getShort(start + 10) & 0xFFFF;
+			long compressedSize = directory.getInt(start + 20) & 0xFFFFFFFFL;
+			long size = directory.getInt(start + 24) & 0xFFFFFFFFL;
+			int nameLength = directory.getShort(start + 28) & 0xFFFF;
+			int extraLength = directory.getShort(start + 30) & 0xFFFF;
+			int commentLength = directory.getShort(start + 32) & 0xFFFF;
+			long offset = directory.getInt(start + 42) & 0xFFFFFFFFL;
+			
+			if (start + 46 + nameLength + extraLength + commentLength > directory.limit()) {
+				throw new IOException("Truncated central directory");
+			}
+			
+			String name = null;
+			if (lengths.get(nameLength)) {
+				byte[] nameBytes = new byte[nameLength];
+				directory.get(start + 46, nameBytes);
+				name = new String(nameBytes, StandardCharsets.UTF_8);
+			}
+			
+			if (name != null && names.contains(name)) {
+				if (size == 0xFFFFFFFFL || compressedSize == 0xFFFFFFFFL || offset == 0xFFFFFFFFL) {
+					long[] values = readZip64Extra(directory, start + 46 + nameLength, extraLength, size, compressedSize, offset);
+					size = values[0];
+					compressedSize = values[1];
+					offset = values[2];
+				}
+				
+				entries.put(name, readEntry(channel, method, compressedSize, size, offset));
+				if (entries.size() == names.size()) {
+					break;
+				}
+			}
+			
+			directory.position(start + 46 + nameLength + extraLength + commentLength);
+		}
+		
+		return entries;
+	}
+	
+	private static ByteBuffer readCentralDirectory(FileChannel channel) throws IOException {
+		long fileSize = channel.size();
+		if (fileSize < EOCD_SIZE) {
+			throw new IOException("Not a zip file");
+		}
+		
+		// the record is followed by a comment of up to 64 KiB, which is usually empty, so a short tail is tried first
+		ByteBuffer tail = null;
+		int eocd = -1;
+		for (int tailSize : new int[] {(int) Math.min(fileSize, SHORT_TAIL_SIZE), (int) Math.min(fileSize, EOCD_SIZE + MAX_COMMENT_SIZE)}) {
+			tail = readFully(channel, fileSize - tailSize, tailSize);
+			eocd = findEndOfCentralDirectory(tail);
+			
+			if (eocd >= 0 || tailSize == fileSize) {
+				break;
+			}
+		}
+		if (eocd < 0) {
+			throw new IOException("Not a zip file");
+		}
+		
+		long directorySize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+		long directoryOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+		
+		if ((directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) && eocd >= 20 && tail.getInt(eocd - 20) == ZIP64_LOCATOR_SIGNATURE) {
+			ByteBuffer record = readFully(channel, tail.getLong(eocd - 12), 56);
+			if (record.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+				throw new IOException("Invalid zip64 end of central directory");
+			}
+			
+			directorySize = record.getLong(40);
+			directoryOffset = record.getLong(48);
+		}
+		
+		if (directoryOffset + directorySize > fileSize || directorySize > Integer.MAX_VALUE) {
+			throw new IOException("Invalid central directory");
+		}
+		
+		return readFully(channel, directoryOffset, (int) directorySize);
+	}
+	
+	private static int findEndOfCentralDirectory(ByteBuffer tail) {
+		for (int position = tail.limit() - EOCD_SIZE; position >= 0; position--) {
+			if (tail.getInt(position) == EOCD_SIGNATURE && position + EOCD_SIZE + (tail.getShort(position + 20) & 0xFFFF) <= tail.limit()) {
+				return position;
+			}
+		}
+		
+		return -1;
+	}
+	
+	private static long[] readZip64Extra(ByteBuffer directory, int position, int length, long size, long compressedSize, long offset) {
+		int end = position + length;
+		
+		while (position + 4 <= end) {
+			int id = directory.getShort(position) & 0xFFFF;
+			int dataSize = directory.getShort(position + 2) & 0xFFFF;
+			int data = position + 4;
+			
+			if (id == 0x0001) {
+				// only the values saturated in the header are present, in this order
+				if (size == 0xFFFFFFFFL && data + 8 <= end) {
+					size = directory.getLong(data);
+					data += 8;
+				}
+				if (compressedSize == 0xFFFFFFFFL && data + 8 <= end) {
+					compressedSize = directory.getLong(data);
+					data += 8;
+				}
+				if (offset == 0xFFFFFFFFL && data + 8 <= end) {
+					offset = directory.getLong(data);
+				}
+				break;
+			}
+			
+			position = data + dataSize;
+		}
+		
+		return new long[] {size, compressedSize, offset};
+	}
+	
+	private static byte[] readEntry(FileChannel channel, int method, long compressedSize, long size, long offset) throws IOException {
+		if (size > MAX_ENTRY_SIZE || compressedSize > MAX_ENTRY_SIZE) {
+			throw new IOException("Entry too large: " + size + " bytes");
+		}
+		
+		ByteBuffer header = readFully(channel, offset, 30);
+		if (header.getInt(0) != LOCAL_SIGNATURE) {
+			throw new IOException("Invalid local header");
+		}
+		
+		// the lengths of the local header may differ from the central directory
+		long dataOffset = offset + 30 + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+		ByteBuffer data = readFully(channel, dataOffset, (int) compressedSize);
+		
+		switch (method) {
+			case 0 -> {
+				byte[] bytes = new byte[data.remaining()];
+				data.get(bytes);
+				return bytes;
+			}
+			case 8 -> {
+				Inflater inflater = new Inflater(true);
+				try {
+					inflater.setInput(data);
+					
+					byte[] bytes = new byte[(int) size];
+					int inflated = 0;
+					while (inflated < bytes.length && !inflater.finished()) {
+						int count = inflater.inflate(bytes, inflated, bytes.length - inflated);
+						if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+							break;
+						}
+						inflated += count;
+					}
+					
+					if (inflated != bytes.length) {
+						throw new IOException("Truncated entry");
+					}
+					return bytes;
+					
+				} catch (DataFormatException e) {
+					throw new IOException("Corrupt entry: " + e.getMessage(), e);
+				} finally {
+					inflater.end();
+				}
+			}
+			default -> throw new IOException("Unsupported compression method " + method);
+		}
+	}
+	
+	private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+		
+		return buffer.flip();
+	}
+}
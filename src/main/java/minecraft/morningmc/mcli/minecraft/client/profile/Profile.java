@@ -1,13 +1,16 @@
 package minecraft.morningmc.mcli.minecraft.client.profile;
 
-import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
+import minecraft.morningmc.mcli.launcher.config.ConfigStore;
 import minecraft.morningmc.mcli.minecraft.client.directory.TargetMinecraftDirectory;
 import minecraft.morningmc.mcli.minecraft.client.Version;
 import minecraft.morningmc.mcli.minecraft.launch.LaunchOptions;
+import minecraft.morningmc.mcli.ui.IconCache;
 import minecraft.morningmc.mcli.utils.Switchable;
-import minecraft.morningmc.mcli.utils.exceptions.IllegalNbtException;
+import minecraft.morningmc.mcli.utils.annotations.NbtField;
+import minecraft.morningmc.mcli.utils.annotations.NbtModel;
 import minecraft.morningmc.mcli.utils.interfaces.NbtLoader;
 
+import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.scene.image.Image;
 
 import dev.dewy.nbt.tags.collection.CompoundTag;
@@ -21,40 +24,12 @@ import java.util.*;
 /**
  * Represents a Minecraft profile, storing information such as name, icon, version, launch options, etc.
  */
+@NbtModel
 public class Profile implements Comparable<Profile> {
 	private static final Logger LOGGER = LogManager.getLogger();
 	
 	/** NbtLoader for loading and saving {@code Profile} objects from/to NBT data. */
-	public static final NbtLoader<Profile, CompoundTag> LOADER = new NbtLoader<>() {
-		
-		@Override
-		public Profile loadFromNbt(CompoundTag tag) throws IllegalNbtException {
-			String name = tag.getString("name").getValue();
-			String icon = tag.getString("icon").getValue();
-			Version.Policy versionPolicy = Version.Policy.valueOf(tag.getString("versionPolicy").getValue());
-			Version version = Version.LOADER.loadFromNbt(tag.getCompound("version"));
-			Switchable<LaunchOptions> options = NbtLoader.switchableLoader(LaunchOptions.LOADER).loadFromNbt(tag.getCompound("options"));
-			
-			return new Profile(name, icon, versionPolicy, version, options);
-		}
-		
-		@Override
-		public CompoundTag saveToNbt(Profile object) {
-			CompoundTag tag = new CompoundTag();
-			
-			if (object == null) {
-				return tag;
-			}
-			
-			tag.putString("name", object.name);
-			tag.putString("icon", object.icon);
-			tag.putString("versionPolicy", object.versionPolicy.name());
-			tag.put("version", Version.LOADER.saveToNbt(object.version));
-			tag.put("options", NbtLoader.switchableLoader(LaunchOptions.LOADER).saveToNbt(object.options));
-			
-			return tag;
-		}
-	};
+	public static final NbtLoader<Profile, CompoundTag> LOADER = ProfileCodec.INSTANCE;
 	
 	private String name;
 	private String icon;
@@ -74,7 +49,7 @@ public class Profile implements Comparable<Profile> {
 	public Profile(String name,
 	               String icon,
 	               Version.Policy versionPolicy,
-	               Version version,
+	               @NbtField(optional = true) Version version,
 	               Switchable<LaunchOptions> options) {
 		
 		this.name = name;
@@ -88,14 +63,18 @@ public class Profile implements Comparable<Profile> {
 	 * Renames the profile.
 	 *
 	 * @param name The new name for the profile.
+	 * @throws IllegalArgumentException If another profile of the collection has the new name.
 	 */
 	public void rename(String name) {
+		ProfileCollection.rename(this, name);
+		
 		File isolated = new File(TargetMinecraftDirectory.ISOLATE_ROOT, this.name);
 		if (isolated.exists()) {
 			isolated.renameTo(new File(TargetMinecraftDirectory.ISOLATE_ROOT, name));
 		}
 		
 		this.name = name;
+		ConfigStore.markDirty(ConfigStore.Section.PROFILES);
 	}
 	
 	// Getters
@@ -118,17 +97,14 @@ public class Profile implements Comparable<Profile> {
 	}
 	
 	/**
-	 * Gets the icon image associated with the profile.
+	 * Gets the icon image associated with the profile, decoded in the background.
 	 *
-	 * @return The icon image.
+	 * @param size The size the icon is displayed at, in pixels.
+	 * @return The property holding the icon image, a placeholder until it is decoded.
+	 * @see IconCache
 	 */
-	public Image getIconImage() {
-		try {
-			return new Image(FileMetadata.getResource(icon));
-			
-		} catch (Exception e) {
-			return null;
-		}
+	public ReadOnlyObjectProperty<Image> getIconImage(int size) {
+		return IconCache.image(icon, size);
 	}
 	
 	/**
@@ -166,6 +142,7 @@ public class Profile implements Comparable<Profile> {
 	 */
 	public void setIcon(String icon) {
 		this.icon = icon;
+		ConfigStore.markDirty(ConfigStore.Section.PROFILES);
 	}
 	
 	/**
@@ -175,6 +152,7 @@ public class Profile implements Comparable<Profile> {
 	 */
 	public void setVersionPolicy(Version.Policy versionPolicy) {
 		this.versionPolicy = versionPolicy;
+		ConfigStore.markDirty(ConfigStore.Section.PROFILES);
 	}
 	
 	/**
@@ -184,6 +162,7 @@ public class Profile implements Comparable<Profile> {
 	 */
 	public void setVersion(Version version) {
 		this.version = version;
+		ConfigStore.markDirty(ConfigStore.Section.PROFILES);
 	}
 	
 	/**
@@ -193,6 +172,7 @@ public class Profile implements Comparable<Profile> {
 	 */
 	public void setOptions(Switchable<LaunchOptions> options) {
 		this.options = options;
+		ConfigStore.markDirty(ConfigStore.Section.PROFILES);
 	}
 	
 	// Overrides
@@ -1,21 +1,34 @@
 package minecraft.morningmc.mcli.minecraft.client.profile;
 
-
+import minecraft.morningmc.mcli.launcher.config.ConfigStore;
+import minecraft.morningmc.mcli.launcher.config.RecordStore;
 import minecraft.morningmc.mcli.utils.annotations.ObjectCollection;
 import minecraft.morningmc.mcli.utils.exceptions.IllegalNbtException;
 import minecraft.morningmc.mcli.utils.interfaces.NbtLoader;
 
 import dev.dewy.nbt.tags.collection.CompoundTag;
 import dev.dewy.nbt.tags.collection.ListTag;
+import dev.dewy.nbt.tags.primitive.StringTag;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.*;
 
 /**
  * The {@code ProfileCollection} class manages a collection of Minecraft profiles.
+ * <p>
+ * Profiles are held as {@link ProfileHandle}s and loaded lazily: loading the collection only reads
+ * the name and icon of every profile, and a profile is decoded the first time it is resolved.
+ * <p>
+ * Profiles are indexed by their exact name in a concurrent map sorted case-insensitively like {@link Profile#compareTo(Profile)},
+ * names differing only in case next to each other, so lookups and prefix searches take O(log n) and the collection is
+ * safe to read from any thread. Names are unique: a duplicate is renamed when loading and rejected when adding or renaming.
+ * Every change publishes an immutable, sorted snapshot, so readers such as profile pickers can page
+ * through the profiles without copying or sorting them.
  */
 @ObjectCollection
 public class ProfileCollection {
@@ -26,6 +39,7 @@ public class ProfileCollection {
 		
 		/**
 		 * Loads a {@code ProfileCollection} object from a list of NBT compound tags.
+		 * Only the names and icons are read, profiles are decoded on first access.
 		 *
 		 * @param tag The list of NBT compound tags representing profiles.
 		 * @return The loaded ProfileCollection object.
@@ -33,16 +47,21 @@ public class ProfileCollection {
 		 */
 		@Override
 		public ProfileCollection loadFromNbt(ListTag<CompoundTag> tag) throws IllegalNbtException {
-			init(tag.getValue().stream()
-					     .flatMap(subTag -> {
-						     try {
-							     return Stream.of(Profile.LOADER.loadFromNbt(subTag));
-						     } catch (IllegalNbtException e) {
-							     LOGGER.warn("Failed to load profile from NBT: " + e.getMessage());
-							     return Stream.empty();
-						     }
-					     })
-					     .collect(Collectors.toSet()));
+			long startTime = System.nanoTime();
+			
+			Set<String> names = new HashSet<>();
+			initHandles(tag.getValue().stream()
+					            .flatMap(subTag -> {
+						            try {
+							            return Stream.of(ProfileHandle.of(renameDuplicate(subTag, names)));
+						            } catch (IllegalNbtException e) {
+							            LOGGER.warn("Failed to load profile from NBT: " + e.getMessage());
+							            return Stream.empty();
+						            }
+					            })
+					            .toList());
+			
+			LOGGER.debug("Indexed " + instance.profiles.size() + " profiles in " + (System.nanoTime() - startTime) / 1000 + " us");
 			return instance;
 		}
 		
@@ -57,7 +76,8 @@ public class ProfileCollection {
 			ListTag<CompoundTag> tag = new ListTag<>();
 			
 			object.profiles.values().stream()
-					.map(Profile.LOADER::saveToNbt)
+					.map(ProfileHandle::save)
+					.filter(Objects::nonNull)
 					.forEach(tag::add);
 			
 			return tag;
@@ -66,7 +86,11 @@ public class ProfileCollection {
 	
 	public static ProfileCollection instance = null;
 	
-	private final Map<String, Profile> profiles = new HashMap<>();
+	/** The order of the profile names: ignoring case, then by case, so every exact name is a distinct key. */
+	private static final Comparator<String> NAME_ORDER = String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+	
+	private final ConcurrentNavigableMap<String, ProfileHandle> profiles = new ConcurrentSkipListMap<>(NAME_ORDER);
+	private volatile List<ProfileHandle> snapshot = List.of();
 	
 	/**
 	 * Initializes the ProfileCollection with the given profiles.
@@ -74,32 +98,201 @@ public class ProfileCollection {
 	 * @param profiles The initial set of profiles for the collection.
 	 */
 	public static void init(Collection<Profile> profiles) {
+		initHandles(profiles.stream().map(ProfileHandle::of).toList());
+	}
+	
+	/**
+	 * Initializes the ProfileCollection with the given profile handles.
+	 *
+	 * @param handles The initial handles for the collection.
+	 */
+	private static void initHandles(Collection<ProfileHandle> handles) {
 		if (instance != null) {
 			throw new IllegalStateException("ProfileCollection already initialized");
 		}
 		
 		instance = new ProfileCollection();
-		for (Profile profile : profiles) {
-			add(profile);
+		for (ProfileHandle handle : handles) {
+			if (instance.profiles.putIfAbsent(handle.getName(), handle) != null) {
+				throw new IllegalArgumentException("Duplicate profile " + handle.getName());
+			}
+		}
+		instance.publish();
+	}
+	
+	/**
+	 * Renames a profile read from NBT if an earlier profile has the same name, e.g. {@code Test} to {@code Test (2)}.
+	 * Names from a record store are unique already.
+	 *
+	 * @param tag The NBT data of the profile.
+	 * @param names The names taken by the earlier profiles, the name of this profile is added.
+	 * @return The NBT data, renamed in place if needed.
+	 */
+	private static CompoundTag renameDuplicate(CompoundTag tag, Set<String> names) {
+		if (!(tag.get("name") instanceof StringTag name) || names.add(name.getValue())) {
+			return tag;
 		}
+		
+		String renamed;
+		int suffix = 1;
+		do {
+			renamed = name.getValue() + " (" + ++suffix + ")";
+		} while (!names.add(renamed));
+		
+		LOGGER.warn("Renamed duplicate profile " + name.getValue() + " to " + renamed);
+		tag.putString("name", renamed);
+		
+		return tag;
+	}
+	
+	/**
+	 * Publishes a new snapshot of the profiles. Must be called after every change, while holding the lock of the collection.
+	 */
+	private void publish() {
+		snapshot = List.copyOf(profiles.values());
+	}
+	
+	/**
+	 * Loads the collection from a record store, reading only the keys and summaries of the profile records.
+	 * Profiles are read and decoded on first access.
+	 *
+	 * @param store The record store.
+	 * @return The loaded ProfileCollection object.
+	 */
+	public static ProfileCollection loadFromRecords(RecordStore store) {
+		long startTime = System.nanoTime();
+		
+		initHandles(store.keys(ConfigStore.Section.PROFILES).stream()
+				            .map(name -> ProfileHandle.of(name, store.summary(ConfigStore.Section.PROFILES, name), store))
+				            .toList());
+		
+		LOGGER.debug("Indexed " + instance.profiles.size() + " profile records in " + (System.nanoTime() - startTime) / 1000 + " us");
+		return instance;
+	}
+	
+	/**
+	 * Gets the profiles as record store entries. Profiles never read from the record store are left unchanged.
+	 *
+	 * @return The entries by profile name.
+	 */
+	public static Map<String, ConfigStore.Entry> getRecords() {
+		Map<String, ConfigStore.Entry> records = new LinkedHashMap<>();
+		
+		instance.profiles.forEach((name, handle) -> records.put(name, new ConfigStore.Entry(handle.getIcon(), handle.isStored() ? null : handle::save)));
+		return records;
 	}
 	
 	/**
-	 * Gets the set of profiles in the collection.
+	 * Gets the set of profiles in the collection, decoding every profile not yet loaded.
+	 * Prefer {@link #getHandles()} where the names and icons are enough.
 	 *
 	 * @return The set of profiles.
 	 */
 	public static Collection<Profile> get() {
-		return instance.profiles.values();
+		return instance.profiles.values().stream()
+				       .map(ProfileHandle::get)
+				       .filter(Objects::nonNull)
+				       .toList();
+	}
+	
+	/**
+	 * Gets the handles of the profiles in the collection sorted by name, without decoding them.
+	 *
+	 * @return An immutable snapshot of the profile handles.
+	 */
+	public static List<ProfileHandle> getHandles() {
+		return instance.snapshot;
+	}
+	
+	/**
+	 * Gets a page of the profile handles sorted by name, without decoding them.
+	 *
+	 * @param offset The index of the first handle of the page.
+	 * @param limit The maximum number of handles in the page.
+	 * @return An immutable page of the profile handles, empty if the offset is past the end.
+	 */
+	public static List<ProfileHandle> getPage(int offset, int limit) {
+		List<ProfileHandle> snapshot = instance.snapshot;
+		
+		int from = Math.min(Math.max(offset, 0), snapshot.size());
+		return snapshot.subList(from, Math.min(from + Math.max(limit, 0), snapshot.size()));
+	}
+	
+	/**
+	 * Searches the profile handles whose names start with a prefix, ignoring case, without decoding them.
+	 *
+	 * @param prefix The prefix of the names.
+	 * @param limit The maximum number of handles returned.
+	 * @return The matching profile handles sorted by name.
+	 */
+	public static List<ProfileHandle> search(String prefix, int limit) {
+		List<ProfileHandle> snapshot = instance.snapshot;
+		
+		return snapshot.subList(lowerBound(snapshot, prefix), snapshot.size()).stream()
+				       .takeWhile(handle -> handle.getName().regionMatches(true, 0, prefix, 0, prefix.length()))
+				       .limit(limit)
+				       .toList();
+	}
+	
+	/**
+	 * Finds the first handle whose name is not before a name, ignoring case. The snapshot is sorted ignoring case
+	 * first, so names differing from it only in case are found too, which a lookup in the map would skip.
+	 */
+	private static int lowerBound(List<ProfileHandle> snapshot, String name) {
+		int low = 0, high = snapshot.size();
+		
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (String.CASE_INSENSITIVE_ORDER.compare(snapshot.get(middle).getName(), name) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		
+		return low;
+	}
+	
+	/**
+	 * Checks if a profile name is taken.
+	 *
+	 * @param name The name, case-sensitive.
+	 * @return {@code true} if a profile has the name, {@code false} otherwise.
+	 */
+	public static boolean contains(String name) {
+		return instance != null && instance.profiles.containsKey(name);
+	}
+	
+	/**
+	 * Gets the number of profiles in the collection.
+	 *
+	 * @return The number of profiles.
+	 */
+	public static int size() {
+		return instance.snapshot.size();
 	}
 	
 	/**
 	 * Adds a profile to the collection.
 	 *
 	 * @param profile The profile to be added.
+	 * @throws IllegalArgumentException If another profile has the same name.
 	 */
 	public static void add(Profile profile) {
-		instance.profiles.put(profile.getName(), profile);
+		synchronized (instance) {
+			ProfileHandle present = instance.profiles.get(profile.getName());
+			if (present != null) {
+				if (present.get() == profile) {
+					return;
+				}
+				throw new IllegalArgumentException("A profile named " + profile.getName() + " already exists");
+			}
+			
+			instance.profiles.put(profile.getName(), ProfileHandle.of(profile));
+			instance.publish();
+		}
+		
+		ConfigStore.markDirty(ConfigStore.Section.PROFILES);
 	}
 	
 	/**
@@ -108,16 +301,61 @@ public class ProfileCollection {
 	 * @param profile The profile to be removed.
 	 */
 	public static void remove(Profile profile) {
-		instance.profiles.remove(profile.getName());
+		synchronized (instance) {
+			instance.profiles.remove(profile.getName());
+			instance.publish();
+		}
+		
+		ConfigStore.markDirty(ConfigStore.Section.PROFILES);
+	}
+	
+	/**
+	 * Moves a profile being renamed to its new name in the index, before the profile itself is renamed.
+	 *
+	 * @param profile The profile, still with its old name.
+	 * @param name The new name of the profile.
+	 * @throws IllegalArgumentException If another profile has the new name.
+	 */
+	static void rename(Profile profile, String name) {
+		if (instance == null) {
+			return;
+		}
+		
+		synchronized (instance) {
+			ProfileHandle handle = instance.profiles.get(profile.getName());
+			if (handle == null || handle.get() != profile || name.equals(profile.getName())) {
+				return;
+			}
+			
+			if (instance.profiles.putIfAbsent(name, handle) != null) {
+				throw new IllegalArgumentException("A profile named " + name + " already exists");
+			}
+			instance.profiles.remove(profile.getName());
+			instance.publish();
+		}
 	}
 	
 	/**
-	 * Resolves a profile by name from the collection.
+	 * Resolves a profile by name from the collection, decoding it if not yet loaded.
+	 * A name matching no profile exactly resolves to the only profile with that name ignoring case, if there is one.
 	 *
 	 * @param name The name of the profile to be resolved.
 	 * @return The resolved Profile object, or null if not found.
 	 */
 	public static Profile resolve(String name) {
-		return instance.profiles.get(name);
+		ProfileHandle handle = instance.profiles.get(name);
+		
+		if (handle == null) {
+			List<ProfileHandle> snapshot = instance.snapshot;
+			int index = lowerBound(snapshot, name);
+			
+			// names differing only in case are next to each other
+			if (index < snapshot.size() && snapshot.get(index).getName().equalsIgnoreCase(name)
+					    && (index + 1 == snapshot.size() || !snapshot.get(index + 1).getName().equalsIgnoreCase(name))) {
+				handle = snapshot.get(index);
+			}
+		}
+		
+		return handle != null ? handle.get() : null;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,195 @@
+package minecraft.morningmc.mcli.minecraft.client.profile;
+
+import minecraft.morningmc.mcli.launcher.config.ConfigStore;
+import minecraft.morningmc.mcli.launcher.config.RecordStore;
+import minecraft.morningmc.mcli.ui.IconCache;
+import minecraft.morningmc.mcli.utils.exceptions.IllegalNbtException;
+
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.scene.image.Image;
+
+import dev.dewy.nbt.tags.collection.CompoundTag;
+import dev.dewy.nbt.tags.primitive.StringTag;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+
+/**
+ * A lightweight handle to a profile, decoded from its NBT data on first access and cached afterwards.
+ * <p>
+ * Loading a handle only reads the name and the icon of the profile, so loading hundreds of profiles costs
+ * little more than listing them. Until the profile is accessed, it is saved back from its original NBT data
+ * without being decoded at all.
+ * <p>
+ * A handle backed by a {@link RecordStore} does not even hold the NBT data, it reads its record on first access.
+ */
+public class ProfileHandle {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	private final String name;
+	private final String icon;
+	
+	private final RecordStore store;
+	
+	private CompoundTag tag;
+	private volatile Profile profile;
+	private boolean failed = false;
+	
+	private ProfileHandle(String name, String icon, CompoundTag tag, Profile profile, RecordStore store) {
+		this.name = name;
+		this.icon = icon;
+		this.tag = tag;
+		this.profile = profile;
+		this.store = store;
+	}
+	
+	/**
+	 * Creates a handle to a profile that is already decoded.
+	 *
+	 * @param profile The profile.
+	 * @return The handle to the profile.
+	 */
+	public static ProfileHandle of(Profile profile) {
+		return new ProfileHandle(profile.getName(), profile.getIcon(), null, profile, null);
+	}
+	
+	/**
+	 * Creates a handle to a profile saved in an NBT compound tag, reading only its name and icon.
+	 *
+	 * @param tag The NBT compound tag representing the profile.
+	 * @return The handle to the profile.
+	 * @throws IllegalNbtException If the name of the profile is missing.
+	 */
+	public static ProfileHandle of(CompoundTag tag) throws IllegalNbtException {
+		if (!(tag.get("name") instanceof StringTag name)) {
+			throw new IllegalNbtException("Missing name");
+		}
+		
+		String icon = tag.get("icon") instanceof StringTag iconTag ? iconTag.getValue() : null;
+		return new ProfileHandle(name.getValue(), icon, tag, null, null);
+	}
+	
+	/**
+	 * Creates a handle to a profile saved as a record, reading nothing until it is accessed.
+	 *
+	 * @param name The name of the profile, the key of its record.
+	 * @param icon The icon of the profile, the summary of its record.
+	 * @param store The record store holding the profile.
+	 * @return The handle to the profile.
+	 */
+	public static ProfileHandle of(String name, String icon, RecordStore store) {
+		return new ProfileHandle(name, icon, null, null, store);
+	}
+	
+	/**
+	 * Gets the profile, decoding it on first access.
+	 *
+	 * @return The profile, or {@code null} if its NBT data is invalid.
+	 */
+	public Profile get() {
+		Profile profile = this.profile;
+		if (profile != null) {
+			return profile;
+		}
+		
+		synchronized (this) {
+			if (this.profile == null && !failed) {
+				try {
+					this.profile = Profile.LOADER.loadFromNbt(read());
+					tag = null;
+					
+				} catch (IllegalNbtException | IOException e) {
+					// keep the NBT data, so the profile is not lost when saving
+					LOGGER.warn("Failed to load profile " + name + " from NBT: " + e.getMessage());
+					failed = true;
+				}
+			}
+			
+			return this.profile;
+		}
+	}
+	
+	/**
+	 * Saves the profile, from its original NBT data if it was never accessed.
+	 *
+	 * @return The NBT compound tag representing the profile.
+	 */
+	public synchronized CompoundTag save() {
+		if (profile != null) {
+			return Profile.LOADER.saveToNbt(profile);
+		}
+		
+		try {
+			return read();
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read profile " + name + ": " + e.getMessage());
+			return null;
+		}
+	}
+	
+	private CompoundTag read() throws IOException {
+		if (tag == null && store != null) {
+			tag = store.get(ConfigStore.Section.PROFILES, name);
+		}
+		
+		return tag;
+	}
+	
+	// Getters
+	/**
+	 * Checks if the profile has been decoded.
+	 *
+	 * @return {@code true} if decoded, {@code false} otherwise.
+	 */
+	public boolean isLoaded() {
+		return profile != null;
+	}
+	
+	/**
+	 * Checks if the profile is only held by its record, so saving it to the record store can be skipped.
+	 *
+	 * @return {@code true} if neither decoded nor read from the record store, {@code false} otherwise.
+	 */
+	public synchronized boolean isStored() {
+		return store != null && profile == null && tag == null;
+	}
+	
+	/**
+	 * Gets the name of the profile without decoding it.
+	 *
+	 * @return The name of the profile.
+	 */
+	public String getName() {
+		Profile profile = this.profile;
+		return profile != null ? profile.getName() : name;
+	}
+	
+	/**
+	 * Gets the icon of the profile without decoding it.
+	 *
+	 * @return The icon of the profile.
+	 */
+	public String getIcon() {
+		Profile profile = this.profile;
+		return profile != null ? profile.getIcon() : icon;
+	}
+	
+	/**
+	 * Gets the icon image of the profile without decoding the profile. The image is decoded in the background.
+	 *
+	 * @param size The size the icon is displayed at, in pixels.
+	 * @return The property holding the icon image, a placeholder until it is decoded.
+	 * @see IconCache
+	 */
+	public ReadOnlyObjectProperty<Image> getIconImage(int size) {
+		return IconCache.image(getIcon(), size);
+	}
+	
+	// Overrides
+	@Override
+	public String toString() {
+		return getName() + (isLoaded() ? "" : " (not loaded)");
+	}
+}
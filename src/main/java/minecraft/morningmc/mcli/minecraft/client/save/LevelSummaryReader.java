@@ -0,0 +1,210 @@
+package minecraft.morningmc.mcli.minecraft.client.save;
+
+import java.io.*;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the summary fields of a {@code level.dat} straight from the NBT stream, without building the tag tree.
+ * <p>
+ * Only the {@code Data} compound is walked: the wanted tags are read, everything else, e.g. the player inventory or the
+ * data packs, is skipped by its length. Reading stops as soon as all fields are found, so the rest is never inflated.
+ */
+class LevelSummaryReader {
+	/** The deepest nesting of tags accepted, as in Minecraft. */
+	static final int MAX_DEPTH = 512;
+	
+	private static final int TAG_END = 0;
+	private static final int TAG_BYTE = 1;
+	private static final int TAG_SHORT = 2;
+	private static final int TAG_INT = 3;
+	private static final int TAG_LONG = 4;
+	private static final int TAG_FLOAT = 5;
+	private static final int TAG_DOUBLE = 6;
+	private static final int TAG_BYTE_ARRAY = 7;
+	private static final int TAG_STRING = 8;
+	private static final int TAG_LIST = 9;
+	private static final int TAG_COMPOUND = 10;
+	private static final int TAG_INT_ARRAY = 11;
+	private static final int TAG_LONG_ARRAY = 12;
+	
+	/** The tags read from the {@code Data} compound, in the order of the fields they fill. */
+	private static final List<String> FIELDS = List.of("LevelName", "LastPlayed", "GameType", "hardcore", "Version", "RandomSeed", "WorldGenSettings");
+	
+	private final DataInputStream in;
+	
+	private String levelName;
+	private long lastPlayed;
+	private int gameType = -1;
+	private boolean hardcore;
+	private String version;
+	private Long seed;
+	
+	private LevelSummaryReader(DataInputStream in) {
+		this.in = in;
+	}
+	
+	/**
+	 * Reads the summary of a world.
+	 *
+	 * @param directory The name of the world directory.
+	 * @param levelDat The {@code level.dat} of the world.
+	 * @param lastModified The modification time of the file.
+	 * @param length The size of the file.
+	 * @return The summary.
+	 * @throws IOException If the file cannot be read or is not a valid {@code level.dat}.
+	 */
+	static SavesIndex.World read(String directory, File levelDat, long lastModified, long length) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(levelDat), 1 << 13), 1 << 13))) {
+			LevelSummaryReader reader = new LevelSummaryReader(in);
+			reader.readRoot();
+			
+			SavesIndex.GameMode gameMode = reader.gameType >= 0 && reader.gameType < SavesIndex.GameMode.values().length
+					                               ? SavesIndex.GameMode.values()[reader.gameType] : null;
+			
+			return new SavesIndex.World(directory, reader.levelName != null ? reader.levelName : directory, reader.lastPlayed, gameMode,
+					reader.hardcore, reader.version, reader.seed, lastModified, length);
+		}
+	}
+	
+	private void readRoot() throws IOException {
+		if (in.readByte() != TAG_COMPOUND) {
+			throw new IOException("Not an NBT compound");
+		}
+		in.readUTF();
+		
+		int type;
+		while ((type = in.readByte()) != TAG_END) {
+			String name = in.readUTF();
+			
+			if (type == TAG_COMPOUND && name.equals("Data")) {
+				readData();
+				return;
+			}
+			skip(type, 1);
+		}
+		
+		throw new IOException("No Data compound");
+	}
+	
+	private void readData() throws IOException {
+		int found = 0;
+		
+		int type;
+		while ((type = in.readByte()) != TAG_END) {
+			String name = in.readUTF();
+			int field = expectedType(name) == type ? FIELDS.indexOf(name) : -1;
+			
+			switch (field) {
+				case 0 -> levelName = in.readUTF();
+				case 1 -> lastPlayed = in.readLong();
+				case 2 -> gameType = in.readInt();
+				case 3 -> hardcore = in.readByte() != 0;
+				case 4 -> version = readCompoundString("Name");
+				case 5 -> seed = in.readLong();
+				// the seed moved here in 1.16
+				case 6 -> seed = readCompoundLong("seed");
+				default -> skip(type, 2);
+			}
+			
+			// both seed tags fill the same field
+			if (field >= 0) {
+				found |= 1 << Math.min(field, 5);
+			}
+			if (found == (1 << 6) - 1) {
+				return;
+			}
+		}
+	}
+	
+	private static int expectedType(String name) {
+		return switch (name) {
+			case "LevelName" -> TAG_STRING;
+			case "LastPlayed", "RandomSeed" -> TAG_LONG;
+			case "GameType" -> TAG_INT;
+			case "hardcore" -> TAG_BYTE;
+			case "Version", "WorldGenSettings" -> TAG_COMPOUND;
+			default -> -1;
+		};
+	}
+	
+	/**
+	 * Reads a string tag of a compound, skipping the other tags up to the end of the compound.
+	 */
+	private String readCompoundString(String key) throws IOException {
+		String value = null;
+		
+		int type;
+		while ((type = in.readByte()) != TAG_END) {
+			if (in.readUTF().equals(key) && type == TAG_STRING) {
+				value = in.readUTF();
+			} else {
+				skip(type, 3);
+			}
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Reads a long tag of a compound, skipping the other tags up to the end of the compound.
+	 */
+	private Long readCompoundLong(String key) throws IOException {
+		Long value = null;
+		
+		int type;
+		while ((type = in.readByte()) != TAG_END) {
+			if (in.readUTF().equals(key) && type == TAG_LONG) {
+				value = in.readLong();
+			} else {
+				skip(type, 3);
+			}
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Skips the payload of a tag.
+	 */
+	private void skip(int type, int depth) throws IOException {
+		if (depth > MAX_DEPTH) {
+			throw new IOException("NBT nested too deeply");
+		}
+		
+		switch (type) {
+			case TAG_BYTE -> in.skipNBytes(1);
+			case TAG_SHORT -> in.skipNBytes(2);
+			case TAG_INT, TAG_FLOAT -> in.skipNBytes(4);
+			case TAG_LONG, TAG_DOUBLE -> in.skipNBytes(8);
+			case TAG_BYTE_ARRAY -> in.skipNBytes(readLength());
+			case TAG_STRING -> in.skipNBytes(in.readUnsignedShort());
+			case TAG_INT_ARRAY -> in.skipNBytes(4L * readLength());
+			case TAG_LONG_ARRAY -> in.skipNBytes(8L * readLength());
+			case TAG_LIST -> {
+				int elementType = in.readByte();
+				int length = readLength();
+				for (int i = 0; i < length; i++) {
+					skip(elementType, depth + 1);
+				}
+			}
+			case TAG_COMPOUND -> {
+				int childType;
+				while ((childType = in.readByte()) != TAG_END) {
+					in.skipNBytes(in.readUnsignedShort());
+					skip(childType, depth + 1);
+				}
+			}
+			default -> throw new IOException("Invalid NBT tag type " + type);
+		}
+	}
+	
+	private int readLength() throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			throw new IOException("Negative NBT length " + length);
+		}
+		
+		return length;
+	}
+}
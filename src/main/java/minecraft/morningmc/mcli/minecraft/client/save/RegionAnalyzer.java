@@ -0,0 +1,255 @@
+package minecraft.morningmc.mcli.minecraft.client.save;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Gathers the chunk statistics of a world from the headers of its region files, {@code r.<x>.<z>.mca}.
+ * <p>
+ * A region file starts with two tables of 1024 entries: the location of each chunk, {@code int offset << 8 | sectors},
+ * and the time it was last saved, in seconds. Only these 8 KiB are memory-mapped and read, chunk data is never
+ * decompressed, so the time taken depends on the number of region files rather than the size of the world.
+ * The region files are read in parallel.
+ */
+public class RegionAnalyzer {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The size of a sector of a region file, in bytes. */
+	public static final int SECTOR_SIZE = 4096;
+	
+	/** The number of chunks of a region, 32 x 32. */
+	public static final int CHUNKS_PER_REGION = 1024;
+	
+	private static final int HEADER_SIZE = 2 * SECTOR_SIZE;
+	
+	private static final ExecutorService SCANNER = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()), runnable -> {
+		Thread thread = new Thread(runnable, "regionScanner");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private RegionAnalyzer() {}
+	
+	/**
+	 * Analyzes the region files of a world.
+	 *
+	 * @param world The world directory, e.g. {@code saves/New World}.
+	 * @return The statistics of each dimension with region files.
+	 * @throws IOException If the world directory cannot be listed.
+	 */
+	public static Report analyze(File world) throws IOException {
+		long startTime = System.nanoTime();
+		
+		Map<String, Path> dimensions = findDimensions(world.toPath());
+		Map<String, List<Future<RegionStats>>> futures = new LinkedHashMap<>();
+		
+		for (Map.Entry<String, Path> dimension : dimensions.entrySet()) {
+			List<Future<RegionStats>> regions = new ArrayList<>();
+			
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(dimension.getValue(), "r.*.mca")) {
+				for (Path region : stream) {
+					regions.add(SCANNER.submit(() -> readHeader(region)));
+				}
+			}
+			
+			futures.put(dimension.getKey(), regions);
+		}
+		
+		List<DimensionStats> stats = new ArrayList<>(futures.size());
+		for (Map.Entry<String, List<Future<RegionStats>>> dimension : futures.entrySet()) {
+			int regionFiles = 0, chunks = 0, invalidChunks = 0;
+			long bytes = 0, chunkBytes = 0, oldest = Long.MAX_VALUE, newest = 0;
+			
+			for (Future<RegionStats> future : dimension.getValue()) {
+				RegionStats region;
+				try {
+					region = future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException();
+				} catch (ExecutionException e) {
+					throw new IOException("Region analysis failed", e.getCause());
+				}
+				
+				if (region == null) {
+					continue;
+				}
+				
+				regionFiles++;
+				chunks += region.chunks();
+				invalidChunks += region.invalidChunks();
+				bytes += region.bytes();
+				chunkBytes += region.chunkBytes();
+				if (region.chunks() > 0) {
+					oldest = Math.min(oldest, region.oldest());
+					newest = Math.max(newest, region.newest());
+				}
+			}
+			
+			stats.add(new DimensionStats(dimension.getKey(), regionFiles, chunks, invalidChunks, bytes, chunkBytes,
+					oldest == Long.MAX_VALUE ? 0 : oldest * 1000, newest * 1000));
+		}
+		
+		Report report = new Report(world, stats, System.nanoTime() - startTime);
+		LOGGER.info("Analyzed " + report.getRegionFiles() + " region files of " + world + " in " + report.nanos() / 1_000_000 + " ms: "
+				            + report.getChunks() + " chunks, " + report.getBytes() / (1024 * 1024) + " MiB");
+		
+		return report;
+	}
+	
+	/**
+	 * Finds the region directories of a world by dimension: the overworld, the nether and the end in their legacy
+	 * locations, and the dimensions of data packs under {@code dimensions/<namespace>/<path>} since 1.16.
+	 */
+	private static Map<String, Path> findDimensions(Path world) throws IOException {
+		Map<String, Path> dimensions = new LinkedHashMap<>();
+		
+		for (String[] dimension : new String[][] {{"minecraft:overworld", "region"}, {"minecraft:the_nether", "DIM-1/region"}, {"minecraft:the_end", "DIM1/region"}}) {
+			Path region = world.resolve(dimension[1]);
+			if (Files.isDirectory(region)) {
+				dimensions.put(dimension[0], region);
+			}
+		}
+		
+		Path custom = world.resolve("dimensions");
+		if (Files.isDirectory(custom)) {
+			try (var stream = Files.find(custom, 8, (path, attributes) -> attributes.isDirectory() && path.getFileName().toString().equals("region"))) {
+				stream.sorted().forEach(region -> {
+					Path relative = custom.relativize(region.getParent());
+					if (relative.getNameCount() >= 2) {
+						String path = relative.subpath(1, relative.getNameCount()).toString().replace(File.separatorChar, '/');
+						dimensions.put(relative.getName(0) + ":" + path, region);
+					}
+				});
+			}
+		}
+		
+		return dimensions;
+	}
+	
+	/**
+	 * Reads the header of a region file.
+	 *
+	 * @return The statistics of the region, or {@code null} if the file has no header, e.g. while it is being created.
+	 */
+	private static RegionStats readHeader(Path region) {
+		try (FileChannel channel = FileChannel.open(region, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE) {
+				return null;
+			}
+			
+			ByteBuffer header;
+			try {
+				header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			} catch (IOException e) {
+				// mappings are released lazily, a huge world may run out of them
+				header = ByteBuffer.allocate(HEADER_SIZE);
+				while (header.hasRemaining()) {
+					if (channel.read(header, header.position()) < 0) {
+						break;
+					}
+				}
+				header.flip();
+			}
+			
+			long fileSectors = (size + SECTOR_SIZE - 1) / SECTOR_SIZE;
+			int chunks = 0, invalidChunks = 0;
+			long chunkBytes = 0, oldest = Long.MAX_VALUE, newest = 0;
+			
+			for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+				int location = header.getInt(i * 4);
+				if (location == 0) {
+					continue;
+				}
+				
+				int offset = location >>> 8;
+				int sectors = location & 0xFF;
+				
+				if (offset < 2 || sectors == 0 || offset + sectors > fileSectors) {
+					invalidChunks++;
+					continue;
+				}
+				
+				long timestamp = header.getInt(SECTOR_SIZE + i * 4) & 0xFFFFFFFFL;
+				
+				chunks++;
+				chunkBytes += (long) sectors * SECTOR_SIZE;
+				oldest = Math.min(oldest, timestamp);
+				newest = Math.max(newest, timestamp);
+			}
+			
+			return new RegionStats(chunks, invalidChunks, size, chunkBytes, oldest, newest);
+			
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read region file " + region + ": " + e.getMessage());
+			return null;
+		}
+	}
+	
+	private record RegionStats(int chunks, int invalidChunks, long bytes, long chunkBytes, long oldest, long newest) {}
+	
+	/**
+	 * The chunk statistics of a dimension.
+	 *
+	 * @param dimension The ID of the dimension, e.g. {@code minecraft:overworld}.
+	 * @param regionFiles The number of region files.
+	 * @param chunks The number of saved chunks.
+	 * @param invalidChunks The number of chunks whose location points outside of the region file.
+	 * @param bytes The size of the region files on disk.
+	 * @param chunkBytes The size of the sectors used by chunks, the rest of the files are headers and free sectors.
+	 * @param oldestChunk When the least recently saved chunk was saved, in milliseconds since the epoch, or 0 without chunks.
+	 * @param newestChunk When the most recently saved chunk was saved, in milliseconds since the epoch, or 0 without chunks.
+	 */
+	public record DimensionStats(String dimension, int regionFiles, int chunks, int invalidChunks, long bytes, long chunkBytes,
+	                             long oldestChunk, long newestChunk) {}
+	
+	/**
+	 * The result of an analysis.
+	 *
+	 * @param world The world directory.
+	 * @param dimensions The statistics of each dimension with region files.
+	 * @param nanos The time the analysis took, in nanoseconds.
+	 */
+	public record Report(File world, List<DimensionStats> dimensions, long nanos) {
+		public Report {
+			dimensions = List.copyOf(dimensions);
+		}
+		
+		/**
+		 * Gets the number of region files of all dimensions.
+		 *
+		 * @return The number of region files.
+		 */
+		public int getRegionFiles() {
+			return dimensions.stream().mapToInt(DimensionStats::regionFiles).sum();
+		}
+		
+		/**
+		 * Gets the number of saved chunks of all dimensions.
+		 *
+		 * @return The number of chunks.
+		 */
+		public long getChunks() {
+			return dimensions.stream().mapToLong(DimensionStats::chunks).sum();
+		}
+		
+		/**
+		 * Gets the size of the region files of all dimensions.
+		 *
+		 * @return The size in bytes.
+		 */
+		public long getBytes() {
+			return dimensions.stream().mapToLong(DimensionStats::bytes).sum();
+		}
+	}
+}
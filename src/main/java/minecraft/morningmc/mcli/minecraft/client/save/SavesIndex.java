@@ -0,0 +1,145 @@
+package minecraft.morningmc.mcli.minecraft.client.save;
+
+import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
+import minecraft.morningmc.mcli.minecraft.client.directory.DirectoryIndex;
+import minecraft.morningmc.mcli.minecraft.client.directory.TargetMinecraftDirectory;
+
+import java.io.*;
+import java.nio.file.WatchService;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * An index of the worlds in the {@code saves} directory of a game directory, for listing them without parsing every {@code level.dat}.
+ * <p>
+ * Only the summary fields of a {@code level.dat} are read, see {@link LevelSummaryReader}. The index is persisted under
+ * {@link #CACHE_DIRECTORY} and only worlds whose {@code level.dat} changed are read again, in parallel.
+ * {@link #watch()} keeps the index current with a {@link WatchService}.
+ */
+public class SavesIndex extends DirectoryIndex<SavesIndex.World> {
+	/** The directory holding the persisted indexes. */
+	public static final File CACHE_DIRECTORY = new File(FileMetadata.CACHE_ROOT, "saves");
+	
+	/** The number of worlds read at the same time. */
+	public static final int SCAN_THREADS = 8;
+	
+	private static final int MAGIC = 0x4D435357; // MCSW
+	private static final short FORMAT = 1;
+	
+	private static final ExecutorService SCANNER = newScanner(SCAN_THREADS, "saveScanner");
+	
+	private static final Map<File, SavesIndex> indexes = new ConcurrentHashMap<>();
+	
+	private SavesIndex(TargetMinecraftDirectory target) {
+		super(target.getSavesDirectory(),
+				new File(CACHE_DIRECTORY, "index-" + Integer.toHexString(target.getSavesDirectory().getAbsolutePath().hashCode()) + ".bin"),
+				MAGIC, FORMAT, true, "save", SCANNER, Comparator.comparingLong(World::lastPlayed).reversed().thenComparing(World::directory));
+	}
+	
+	/**
+	 * Gets the index of a game directory, loading the persisted index when first called for the directory.
+	 *
+	 * @param target The game directory.
+	 * @return The saves index.
+	 */
+	public static SavesIndex of(TargetMinecraftDirectory target) {
+		return indexes.computeIfAbsent(target.getSavesDirectory().getAbsoluteFile(), saves -> {
+			SavesIndex index = new SavesIndex(target);
+			index.load();
+			return index;
+		});
+	}
+	
+	@Override
+	protected File getSource(String name) {
+		return new File(new File(getDirectory(), name), "level.dat");
+	}
+	
+	@Override
+	protected World read(String name, File levelDat, long lastModified, long length) throws IOException {
+		return LevelSummaryReader.read(name, levelDat, lastModified, length);
+	}
+	
+	/**
+	 * Checks if a file of a world is {@code level.dat}, which is replaced through {@code level.dat_new}.
+	 * Region files and the like are of no interest.
+	 */
+	@Override
+	protected boolean isRelevant(String file) {
+		return file.startsWith("level.dat");
+	}
+	
+	// Persistence
+	@Override
+	protected void writeEntry(DataOutputStream out, World world) throws IOException {
+		out.writeUTF(world.name());
+		out.writeLong(world.lastPlayed());
+		out.writeByte(world.gameMode() != null ? world.gameMode().ordinal() : -1);
+		out.writeBoolean(world.hardcore());
+		
+		writeString(out, world.version());
+		out.writeBoolean(world.seed() != null);
+		if (world.seed() != null) {
+			out.writeLong(world.seed());
+		}
+		
+		out.writeLong(world.lastModified());
+		out.writeLong(world.length());
+	}
+	
+	@Override
+	protected World readEntry(DataInputStream in, String directory) throws IOException {
+		String levelName = in.readUTF();
+		long lastPlayed = in.readLong();
+		int gameMode = in.readByte();
+		boolean hardcore = in.readBoolean();
+		String version = readString(in);
+		Long seed = in.readBoolean() ? in.readLong() : null;
+		
+		return new World(directory, levelName, lastPlayed, gameMode >= 0 ? GameMode.values()[gameMode] : null,
+				hardcore, version, seed, in.readLong(), in.readLong());
+	}
+	
+	// Getters
+	/**
+	 * Gets the indexed worlds, last played first.
+	 *
+	 * @return An immutable snapshot of the worlds.
+	 */
+	public List<World> getWorlds() {
+		return getEntries();
+	}
+	
+	/**
+	 * Gets the directory of a world.
+	 *
+	 * @param world The world.
+	 * @return The world directory.
+	 */
+	public File getDirectory(World world) {
+		return new File(getDirectory(), world.directory());
+	}
+	
+	/**
+	 * The game mode of a world, by its {@code GameType} ID.
+	 */
+	public enum GameMode {
+		SURVIVAL, CREATIVE, ADVENTURE, SPECTATOR
+	}
+	
+	/**
+	 * An indexed world.
+	 *
+	 * @param directory The name of the world directory.
+	 * @param name The name of the world, or the directory name if it has none.
+	 * @param lastPlayed When the world was last played, in milliseconds since the epoch.
+	 * @param gameMode The game mode, or {@code null} if unknown.
+	 * @param hardcore Whether the world is hardcore.
+	 * @param version The name of the version the world was last played with, or {@code null} before 1.9.
+	 * @param seed The seed of the world, or {@code null} if unknown.
+	 * @param lastModified The modification time of the {@code level.dat} when it was indexed.
+	 * @param length The size of the {@code level.dat} when it was indexed.
+	 */
+	public record World(String directory, String name, long lastPlayed, GameMode gameMode, boolean hardcore, String version, Long seed,
+	                    long lastModified, long length) implements Stamped {}
+}
@@ -0,0 +1,236 @@
+package minecraft.morningmc.mcli.minecraft.client.version;
+
+import minecraft.morningmc.mcli.minecraft.client.Version;
+import minecraft.morningmc.mcli.minecraft.client.directory.SourceMinecraftDirectory;
+import minecraft.morningmc.mcli.minecraft.client.version.VersionMetadata.*;
+import minecraft.morningmc.mcli.utils.Platform;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the classpath and the native jars of a version for a {@link Platform}.
+ * <p>
+ * Libraries are filtered by the {@link RuleTable} of the platform and de-duplicated by Maven coordinates
+ * without the version, keeping the newest version at the position of the first occurrence.
+ * A modded version thus replaces the libraries it upgrades in place. Results are cached per version and platform
+ * for as long as {@link VersionResolver} returns the same metadata.
+ */
+public final class ClasspathResolver {
+	private static final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+	
+	private ClasspathResolver() {}
+	
+	/**
+	 * Resolves the classpath of a version.
+	 *
+	 * @param version The version.
+	 * @param platform The platform the game runs on.
+	 * @return The classpath.
+	 * @throws IOException If the version cannot be resolved.
+	 */
+	public static Classpath resolve(Version version, Platform platform) throws IOException {
+		VersionMetadata metadata = VersionResolver.resolve(version);
+		Key key = new Key(version.getSource().getRoot().getAbsoluteFile(), version.getId(), platform);
+		
+		Entry entry = cache.get(key);
+		if (entry != null && entry.metadata() == metadata) {
+			return entry.classpath();
+		}
+		
+		Classpath classpath = resolve(version.getSource(), metadata, RuleTable.of(platform));
+		cache.put(key, new Entry(metadata, classpath));
+		
+		return classpath;
+	}
+	
+	/**
+	 * Resolves the classpath of resolved version metadata.
+	 *
+	 * @param source The Minecraft directory holding the version and its libraries.
+	 * @param metadata The resolved metadata of the version.
+	 * @param rules The rules of the platform the game runs on.
+	 * @return The classpath.
+	 */
+	public static Classpath resolve(SourceMinecraftDirectory source, VersionMetadata metadata, RuleTable rules) {
+		File libraries = source.getLibrariesDirectory();
+		String arch = String.valueOf(rules.getPlatform().architecture().bits());
+		
+		Map<String, Candidate> jars = new LinkedHashMap<>();
+		Map<String, Candidate> natives = new LinkedHashMap<>();
+		
+		for (Library library : metadata.libraries()) {
+			if (!rules.allows(library.rules())) {
+				continue;
+			}
+			
+			Coordinate coordinate = Coordinate.parse(library.name());
+			if (coordinate == null) {
+				continue;
+			}
+			
+			// old style natives are a classifier of the library, extracted instead of put on the classpath
+			String classifier = library.natives().get(rules.getOsName());
+			if (classifier != null) {
+				putNewest(natives, new Candidate(coordinate.withClassifier(classifier.replace("${arch}", arch)), library));
+			}
+			
+			if (library.artifact() != null || library.natives().isEmpty()) {
+				putNewest(jars, new Candidate(coordinate, library));
+			}
+		}
+		
+		List<File> classpath = new ArrayList<>(jars.size() + 1);
+		for (Candidate candidate : jars.values()) {
+			Artifact artifact = candidate.library().artifact();
+			String path = artifact != null && artifact.path() != null ? artifact.path() : candidate.coordinate().path();
+			
+			classpath.add(new File(libraries, path));
+		}
+		
+		String jar = metadata.jar() != null ? metadata.jar() : metadata.id();
+		classpath.add(new File(new File(source.getVersionsDirectory(), jar), jar + ".jar"));
+		
+		List<Native> nativeJars = new ArrayList<>(natives.size());
+		for (Candidate candidate : natives.values()) {
+			Artifact artifact = candidate.library().classifiers().get(candidate.coordinate().classifier());
+			String path = artifact != null && artifact.path() != null ? artifact.path() : candidate.coordinate().path();
+			
+			nativeJars.add(new Native(new File(libraries, path), candidate.library().extractExclude()));
+		}
+		
+		return new Classpath(classpath, nativeJars);
+	}
+	
+	/**
+	 * Puts a library unless the same or a newer version of it is already present.
+	 */
+	private static void putNewest(Map<String, Candidate> candidates, Candidate candidate) {
+		String key = candidate.coordinate().key();
+		
+		Candidate present = candidates.get(key);
+		if (present == null || compareVersions(present.coordinate().version(), candidate.coordinate().version()) < 0) {
+			candidates.put(key, candidate);
+		}
+	}
+	
+	/**
+	 * Compares Maven versions by their numeric and textual parts, e.g. {@code 3.2.2 < 3.2.10 < 3.3.1}.
+	 *
+	 * @param a A version.
+	 * @param b Another version.
+	 * @return A negative number, zero or a positive number if {@code a} is older than, the same as or newer than {@code b}.
+	 */
+	public static int compareVersions(String a, String b) {
+		String[] as = a.split("[.\\-_+]");
+		String[] bs = b.split("[.\\-_+]");
+		
+		for (int i = 0; i < Math.max(as.length, bs.length); i++) {
+			String ap = i < as.length ? as[i] : "0";
+			String bp = i < bs.length ? bs[i] : "0";
+			
+			boolean an = !ap.isEmpty() && ap.chars().allMatch(Character::isDigit);
+			boolean bn = !bp.isEmpty() && bp.chars().allMatch(Character::isDigit);
+			
+			int result;
+			if (an && bn) {
+				result = ap.length() != bp.length() && ap.length() < 19 && bp.length() < 19
+						         ? Long.compare(Long.parseLong(ap), Long.parseLong(bp)) : ap.compareTo(bp);
+			} else if (an != bn) {
+				// a release is newer than a qualifier, e.g. 1.0 > 1.0-beta
+				result = an ? 1 : -1;
+			} else {
+				result = ap.compareToIgnoreCase(bp);
+			}
+			
+			if (result != 0) {
+				return result;
+			}
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * Maven coordinates of a library, {@code group:artifact:version[:classifier][@extension]}.
+	 */
+	private record Coordinate(String group, String artifact, String version, String classifier, String extension) {
+		static Coordinate parse(String name) {
+			String extension = "jar";
+			int at = name.indexOf('@');
+			if (at >= 0) {
+				extension = name.substring(at + 1);
+				name = name.substring(0, at);
+			}
+			
+			String[] parts = name.split(":");
+			if (parts.length < 3) {
+				return null;
+			}
+			
+			return new Coordinate(parts[0], parts[1], parts[2], parts.length > 3 ? parts[3] : null, extension);
+		}
+		
+		Coordinate withClassifier(String classifier) {
+			return new Coordinate(group, artifact, version, classifier, extension);
+		}
+		
+		/** The key of the coordinate without the version. */
+		String key() {
+			return classifier != null ? group + ":" + artifact + ":" + classifier : group + ":" + artifact;
+		}
+		
+		String path() {
+			return group.replace('.', '/') + "/" + artifact + "/" + version + "/"
+					       + artifact + "-" + version + (classifier != null ? "-" + classifier : "") + "." + extension;
+		}
+	}
+	
+	private record Candidate(Coordinate coordinate, Library library) {}
+	
+	private record Key(File root, String id, Platform platform) {}
+	
+	private record Entry(VersionMetadata metadata, Classpath classpath) {}
+	
+	/**
+	 * The resolved classpath of a version.
+	 *
+	 * @param classpath The jars on the classpath in order, the client jar last.
+	 * @param natives The native jars to extract before launching.
+	 */
+	public record Classpath(List<File> classpath, List<Native> natives) {
+		public Classpath {
+			classpath = List.copyOf(classpath);
+			natives = List.copyOf(natives);
+		}
+		
+		/**
+		 * Joins the classpath with the path separator of a platform.
+		 *
+		 * @param platform The platform.
+		 * @return The classpath argument.
+		 */
+		public String toArgument(Platform platform) {
+			StringJoiner joiner = new StringJoiner(platform.pathSeparator());
+			for (File file : classpath) {
+				joiner.add(file.getAbsolutePath());
+			}
+			
+			return joiner.toString();
+		}
+	}
+	
+	/**
+	 * A native jar.
+	 *
+	 * @param jar The jar file.
+	 * @param extractExclude The paths not extracted from the jar.
+	 */
+	public record Native(File jar, List<String> extractExclude) {
+		public Native {
+			extractExclude = List.copyOf(extractExclude);
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package minecraft.morningmc.mcli.minecraft.client.version;
+
+import minecraft.morningmc.mcli.minecraft.client.version.VersionMetadata.Rule;
+import minecraft.morningmc.mcli.utils.Platform;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * The rules of version JSONs compiled for one {@link Platform}.
+ * <p>
+ * The OS part of a rule only depends on the platform, so it is evaluated once per distinct rule list
+ * and kept in a flat table; checking a library afterwards is a single lookup. Only rules requiring launcher features,
+ * which occur in arguments, are evaluated per call.
+ */
+public final class RuleTable {
+	private static final Map<Platform, RuleTable> tables = new ConcurrentHashMap<>();
+	
+	private final Platform platform;
+	private final String osName;
+	private final String osVersion;
+	private final String osArch;
+	
+	private final Map<List<Rule>, Boolean> table = new ConcurrentHashMap<>();
+	
+	private RuleTable(Platform platform) {
+		this.platform = platform;
+		this.osName = switch (platform.operatingSystem()) {
+			case WINDOWS -> "windows";
+			case MACOS -> "osx";
+			case LINUX -> "linux";
+			default -> "unknown";
+		};
+		
+		// the version and the exact architecture are only known for the system the launcher runs on
+		boolean system = platform.operatingSystem() == Platform.SYSTEM.operatingSystem();
+		this.osVersion = system ? System.getProperty("os.version", "") : "";
+		this.osArch = platform.architecture() == Platform.Architecture.BIT32 ? "x86" : system ? System.getProperty("os.arch", "") : "";
+	}
+	
+	/**
+	 * Gets the rule table of a platform.
+	 *
+	 * @param platform The platform.
+	 * @return The rule table.
+	 */
+	public static RuleTable of(Platform platform) {
+		return tables.computeIfAbsent(platform, RuleTable::new);
+	}
+	
+	/**
+	 * Checks if rules without launcher features allow something, e.g. a library.
+	 *
+	 * @param rules The rules.
+	 * @return {@code true} if allowed, {@code false} otherwise.
+	 */
+	public boolean allows(List<Rule> rules) {
+		if (rules.isEmpty()) {
+			return true;
+		}
+		
+		return table.computeIfAbsent(rules, key -> allows(key, Set.of()));
+	}
+	
+	/**
+	 * Checks if rules allow something, e.g. an argument.
+	 *
+	 * @param rules The rules.
+	 * @param features The launcher features enabled, e.g. {@code has_custom_resolution}.
+	 * @return {@code true} if allowed, {@code false} otherwise.
+	 */
+	public boolean allows(List<Rule> rules, Set<String> features) {
+		if (rules.isEmpty()) {
+			return true;
+		}
+		
+		// the last matching rule decides, nothing matching means disallowed
+		boolean allowed = false;
+		for (Rule rule : rules) {
+			if (matches(rule, features)) {
+				allowed = rule.allow();
+			}
+		}
+		
+		return allowed;
+	}
+	
+	private boolean matches(Rule rule, Set<String> features) {
+		if (rule.osName() != null && !rule.osName().equals(osName)) {
+			return false;
+		}
+		if (rule.osArch() != null && !rule.osArch().equals(osArch)) {
+			return false;
+		}
+		if (rule.osVersion() != null && !matchesVersion(rule.osVersion())) {
+			return false;
+		}
+		
+		for (Map.Entry<String, Boolean> feature : rule.features().entrySet()) {
+			if (features.contains(feature.getKey()) != feature.getValue()) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private boolean matchesVersion(String regex) {
+		try {
+			return Pattern.compile(regex).matcher(osVersion).find();
+		} catch (Exception e) {
+			return false;
+		}
+	}
+	
+	// Getters
+	/**
+	 * Gets the platform the rules are compiled for.
+	 *
+	 * @return The platform.
+	 */
+	public Platform getPlatform() {
+		return platform;
+	}
+	
+	/**
+	 * Gets the OS name of the platform as written in rules, e.g. {@code osx}.
+	 *
+	 * @return The OS name.
+	 */
+	public String getOsName() {
+		return osName;
+	}
+}
@@ -0,0 +1,118 @@
+package minecraft.morningmc.mcli.minecraft.client.version;
+
+import minecraft.morningmc.mcli.minecraft.client.directory.DirectoryIndex;
+import minecraft.morningmc.mcli.minecraft.client.directory.SourceMinecraftDirectory;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.WatchService;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * An index of the versions installed in a {@link SourceMinecraftDirectory}, for listing them without reading every JSON.
+ * <p>
+ * The index is persisted under {@link VersionMetadataCache#CACHE_DIRECTORY}, so it is available as soon as it is opened.
+ * {@link #refresh()} then scans {@code versions/} in parallel, only re-reading the JSONs whose modification time or size
+ * changed, and only reading the header fields of those. {@link #watch()} keeps the index current with a {@link WatchService}.
+ */
+public class VersionIndex extends DirectoryIndex<VersionIndex.Entry> {
+	/** The number of JSONs read at the same time. Scanning is I/O bound, and slow drives benefit most. */
+	public static final int SCAN_THREADS = 16;
+	
+	private static final int MAGIC = 0x4D435649; // MCVI
+	private static final short FORMAT = 2;
+	
+	private static final ExecutorService SCANNER = newScanner(SCAN_THREADS, "versionScanner");
+	
+	private static final Map<File, VersionIndex> indexes = new ConcurrentHashMap<>();
+	
+	private VersionIndex(SourceMinecraftDirectory source) {
+		super(source.getVersionsDirectory(),
+				new File(VersionMetadataCache.CACHE_DIRECTORY, "index-" + Integer.toHexString(source.getRoot().getAbsolutePath().hashCode()) + ".bin"),
+				MAGIC, FORMAT, true, "version", SCANNER,
+				Comparator.comparing(Entry::releaseTime, Comparator.nullsLast(Comparator.reverseOrder())).thenComparing(Entry::id));
+	}
+	
+	/**
+	 * Gets the index of a Minecraft directory, loading the persisted index when first called for the directory.
+	 *
+	 * @param source The Minecraft directory.
+	 * @return The version index.
+	 */
+	public static VersionIndex of(SourceMinecraftDirectory source) {
+		return indexes.computeIfAbsent(source.getRoot().getAbsoluteFile(), root -> {
+			VersionIndex index = new VersionIndex(source);
+			index.load();
+			return index;
+		});
+	}
+	
+	@Override
+	protected File getSource(String id) {
+		return new File(new File(getDirectory(), id), id + ".json");
+	}
+	
+	/**
+	 * Reads the header fields of a version JSON, skipping everything else.
+	 */
+	@Override
+	protected Entry read(String directory, File json, long lastModified, long length) throws IOException {
+		String id = null, type = null, inheritsFrom = null, releaseTime = null;
+		
+		try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(new FileInputStream(json), StandardCharsets.UTF_8), 1 << 16))) {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				switch (reader.nextName()) {
+					case "id" -> id = VersionJsonParser.nextString(reader);
+					case "type" -> type = VersionJsonParser.nextString(reader);
+					case "inheritsFrom" -> inheritsFrom = VersionJsonParser.nextString(reader);
+					case "releaseTime" -> releaseTime = VersionJsonParser.nextString(reader);
+					default -> reader.skipValue();
+				}
+			}
+		}
+		
+		return new Entry(id != null ? id : directory, type, inheritsFrom, releaseTime, lastModified, length);
+	}
+	
+	// Persistence
+	@Override
+	protected void writeEntry(DataOutputStream out, Entry entry) throws IOException {
+		writeString(out, entry.id());
+		writeString(out, entry.type());
+		writeString(out, entry.inheritsFrom());
+		writeString(out, entry.releaseTime());
+		out.writeLong(entry.lastModified());
+		out.writeLong(entry.length());
+	}
+	
+	@Override
+	protected Entry readEntry(DataInputStream in, String directory) throws IOException {
+		return new Entry(readString(in), readString(in), readString(in), readString(in), in.readLong(), in.readLong());
+	}
+	
+	// Getters
+	/**
+	 * Gets the indexed versions, newest first.
+	 *
+	 * @return An immutable snapshot of the versions.
+	 */
+	public List<Entry> getVersions() {
+		return getEntries();
+	}
+	
+	/**
+	 * An indexed version.
+	 *
+	 * @param id The ID of the version.
+	 * @param type The type of the version, e.g. {@code release} or {@code snapshot}.
+	 * @param inheritsFrom The ID of the version it inherits from, or {@code null}.
+	 * @param releaseTime The release time, as written in the JSON.
+	 * @param lastModified The modification time of the JSON when it was indexed.
+	 * @param length The size of the JSON when it was indexed.
+	 */
+	public record Entry(String id, String type, String inheritsFrom, String releaseTime, long lastModified, long length) implements Stamped {}
+}
@@ -0,0 +1,335 @@
+package minecraft.morningmc.mcli.minecraft.client.version;
+
+import minecraft.morningmc.mcli.minecraft.client.version.VersionMetadata.*;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Parses version JSONs with a streaming {@link JsonReader}, pulling out only the fields in {@link VersionMetadata}.
+ * <p>
+ * No tree is built, everything else in the JSON, e.g. the logging configuration, is skipped token by token.
+ */
+public final class VersionJsonParser {
+	private VersionJsonParser() {}
+	
+	/**
+	 * Parses a version JSON file.
+	 *
+	 * @param file The version JSON file.
+	 * @return The parsed version metadata.
+	 * @throws IOException If the file cannot be read or is not a version JSON.
+	 */
+	public static VersionMetadata parse(File file) throws IOException {
+		try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 1 << 16))) {
+			return parse(reader);
+		} catch (IllegalStateException | NumberFormatException e) {
+			throw new IOException("Malformed version JSON " + file + ": " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * Parses a version JSON.
+	 *
+	 * @param reader The reader positioned before the root object.
+	 * @return The parsed version metadata.
+	 * @throws IOException If the JSON cannot be read.
+	 */
+	public static VersionMetadata parse(JsonReader reader) throws IOException {
+		String id = null, inheritsFrom = null, type = null, mainClass = null, minecraftArguments = null;
+		String assets = null, jar = null, releaseTime = null;
+		List<Argument> gameArguments = List.of(), jvmArguments = List.of();
+		AssetIndex assetIndex = null;
+		Artifact client = null;
+		int javaVersion = 0;
+		List<Library> libraries = List.of();
+		
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "id" -> id = nextString(reader);
+				case "inheritsFrom" -> inheritsFrom = nextString(reader);
+				case "type" -> type = nextString(reader);
+				case "mainClass" -> mainClass = nextString(reader);
+				case "minecraftArguments" -> minecraftArguments = nextString(reader);
+				case "assets" -> assets = nextString(reader);
+				case "jar" -> jar = nextString(reader);
+				case "releaseTime" -> releaseTime = nextString(reader);
+				case "assetIndex" -> assetIndex = assetIndex(reader);
+				case "javaVersion" -> javaVersion = javaVersion(reader);
+				case "libraries" -> libraries = libraries(reader);
+				case "downloads" -> client = downloads(reader).get("client");
+				case "arguments" -> {
+					if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+						reader.skipValue();
+						continue;
+					}
+					
+					reader.beginObject();
+					while (reader.hasNext()) {
+						switch (reader.nextName()) {
+							case "game" -> gameArguments = arguments(reader);
+							case "jvm" -> jvmArguments = arguments(reader);
+							default -> reader.skipValue();
+						}
+					}
+					reader.endObject();
+				}
+				default -> reader.skipValue();
+			}
+		}
+		reader.endObject();
+		
+		if (id == null) {
+			throw new IOException("Missing version ID");
+		}
+		
+		return new VersionMetadata(id, inheritsFrom, type, mainClass, minecraftArguments, gameArguments, jvmArguments,
+				assets, assetIndex, client, jar, javaVersion, releaseTime, libraries);
+	}
+	
+	// Parts
+	/**
+	 * Reads a string that may be {@code null} in the JSON, as launchers write e.g. {@code "inheritsFrom": null}.
+	 */
+	static String nextString(JsonReader reader) throws IOException {
+		if (reader.peek() == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+		
+		return reader.nextString();
+	}
+	
+	private static AssetIndex assetIndex(JsonReader reader) throws IOException {
+		String id = null, sha1 = null, url = null;
+		long size = -1, totalSize = -1;
+		
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "id" -> id = nextString(reader);
+				case "sha1" -> sha1 = nextString(reader);
+				case "url" -> url = nextString(reader);
+				case "size" -> size = reader.nextLong();
+				case "totalSize" -> totalSize = reader.nextLong();
+				default -> reader.skipValue();
+			}
+		}
+		reader.endObject();
+		
+		return new AssetIndex(id, sha1, size, totalSize, url);
+	}
+	
+	private static int javaVersion(JsonReader reader) throws IOException {
+		int majorVersion = 0;
+		
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if (reader.nextName().equals("majorVersion")) {
+				majorVersion = reader.nextInt();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		
+		return majorVersion;
+	}
+	
+	private static Artifact artifact(JsonReader reader) throws IOException {
+		String path = null, sha1 = null, url = null;
+		long size = -1;
+		
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "path" -> path = nextString(reader);
+				case "sha1" -> sha1 = nextString(reader);
+				case "url" -> url = nextString(reader);
+				case "size" -> size = reader.nextLong();
+				default -> reader.skipValue();
+			}
+		}
+		reader.endObject();
+		
+		return new Artifact(path, sha1, size, url);
+	}
+	
+	/**
+	 * Reads an object of artifacts, such as the downloads of a version or the classifiers of a library.
+	 */
+	private static Map<String, Artifact> downloads(JsonReader reader) throws IOException {
+		Map<String, Artifact> downloads = new LinkedHashMap<>();
+		
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+				downloads.put(name, artifact(reader));
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		
+		return downloads;
+	}
+	
+	private static List<Argument> arguments(JsonReader reader) throws IOException {
+		List<Argument> arguments = new ArrayList<>();
+		
+		reader.beginArray();
+		while (reader.hasNext()) {
+			if (reader.peek() == JsonToken.STRING) {
+				arguments.add(new Argument(List.of(reader.nextString()), List.of()));
+				continue;
+			}
+			
+			List<String> values = List.of();
+			List<Rule> rules = List.of();
+			
+			reader.beginObject();
+			while (reader.hasNext()) {
+				switch (reader.nextName()) {
+					case "value" -> values = strings(reader);
+					case "rules" -> rules = rules(reader);
+					default -> reader.skipValue();
+				}
+			}
+			reader.endObject();
+			
+			arguments.add(new Argument(values, rules));
+		}
+		reader.endArray();
+		
+		return arguments;
+	}
+	
+	/**
+	 * Reads a string or an array of strings.
+	 */
+	private static List<String> strings(JsonReader reader) throws IOException {
+		if (reader.peek() == JsonToken.STRING) {
+			return List.of(reader.nextString());
+		}
+		
+		List<String> strings = new ArrayList<>();
+		reader.beginArray();
+		while (reader.hasNext()) {
+			strings.add(reader.nextString());
+		}
+		reader.endArray();
+		
+		return strings;
+	}
+	
+	private static List<Rule> rules(JsonReader reader) throws IOException {
+		List<Rule> rules = new ArrayList<>();
+		
+		reader.beginArray();
+		while (reader.hasNext()) {
+			boolean allow = true;
+			String osName = null, osArch = null, osVersion = null;
+			Map<String, Boolean> features = new LinkedHashMap<>();
+			
+			reader.beginObject();
+			while (reader.hasNext()) {
+				switch (reader.nextName()) {
+					case "action" -> allow = "allow".equals(reader.nextString());
+					case "os" -> {
+						reader.beginObject();
+						while (reader.hasNext()) {
+							switch (reader.nextName()) {
+								case "name" -> osName = nextString(reader);
+								case "arch" -> osArch = nextString(reader);
+								case "version" -> osVersion = nextString(reader);
+								default -> reader.skipValue();
+							}
+						}
+						reader.endObject();
+					}
+					case "features" -> {
+						reader.beginObject();
+						while (reader.hasNext()) {
+							features.put(reader.nextName(), reader.nextBoolean());
+						}
+						reader.endObject();
+					}
+					default -> reader.skipValue();
+				}
+			}
+			reader.endObject();
+			
+			rules.add(new Rule(allow, osName, osArch, osVersion, features));
+		}
+		reader.endArray();
+		
+		return rules;
+	}
+	
+	private static List<Library> libraries(JsonReader reader) throws IOException {
+		List<Library> libraries = new ArrayList<>();
+		
+		reader.beginArray();
+		while (reader.hasNext()) {
+			String name = null, url = null;
+			Artifact artifact = null;
+			Map<String, Artifact> classifiers = Map.of();
+			Map<String, String> natives = new LinkedHashMap<>();
+			List<String> extractExclude = List.of();
+			List<Rule> rules = List.of();
+			
+			reader.beginObject();
+			while (reader.hasNext()) {
+				switch (reader.nextName()) {
+					case "name" -> name = nextString(reader);
+					case "url" -> url = nextString(reader);
+					case "rules" -> rules = rules(reader);
+					case "downloads" -> {
+						reader.beginObject();
+						while (reader.hasNext()) {
+							switch (reader.nextName()) {
+								case "artifact" -> artifact = artifact(reader);
+								case "classifiers" -> classifiers = downloads(reader);
+								default -> reader.skipValue();
+							}
+						}
+						reader.endObject();
+					}
+					case "natives" -> {
+						reader.beginObject();
+						while (reader.hasNext()) {
+							natives.put(reader.nextName(), reader.nextString());
+						}
+						reader.endObject();
+					}
+					case "extract" -> {
+						reader.beginObject();
+						while (reader.hasNext()) {
+							if (reader.nextName().equals("exclude")) {
+								extractExclude = strings(reader);
+							} else {
+								reader.skipValue();
+							}
+						}
+						reader.endObject();
+					}
+					default -> reader.skipValue();
+				}
+			}
+			reader.endObject();
+			
+			if (name != null) {
+				libraries.add(new Library(name, artifact, classifiers, natives, extractExclude, rules, url));
+			}
+		}
+		reader.endArray();
+		
+		return libraries;
+	}
+}
@@ -0,0 +1,121 @@
+package minecraft.morningmc.mcli.minecraft.client.version;
+
+import java.util.*;
+
+/**
+ * The parts of a version JSON ({@code versions/<id>/<id>.json}) needed to launch the version.
+ * <p>
+ * Every field may be missing from a version that inherits from another one, see {@link #inheritsFrom()}.
+ *
+ * @param id The ID of the version.
+ * @param inheritsFrom The ID of the version this version inherits from, or {@code null}.
+ * @param type The type of the version, e.g. {@code release} or {@code snapshot}.
+ * @param mainClass The main class of the game.
+ * @param minecraftArguments The game arguments of versions before 1.13, or {@code null}.
+ * @param gameArguments The game arguments of versions since 1.13.
+ * @param jvmArguments The JVM arguments of versions since 1.13.
+ * @param assets The ID of the asset index.
+ * @param assetIndex The asset index download, or {@code null}.
+ * @param client The client jar download, or {@code null}.
+ * @param jar The ID of the version whose client jar is used, or {@code null} for this version.
+ * @param javaVersion The major Java version required, or 0 if unknown.
+ * @param releaseTime The release time, as written in the JSON.
+ * @param libraries The libraries of the version.
+ */
+public record VersionMetadata(String id,
+                              String inheritsFrom,
+                              String type,
+                              String mainClass,
+                              String minecraftArguments,
+                              List<Argument> gameArguments,
+                              List<Argument> jvmArguments,
+                              String assets,
+                              AssetIndex assetIndex,
+                              Artifact client,
+                              String jar,
+                              int javaVersion,
+                              String releaseTime,
+                              List<Library> libraries) {
+	
+	public VersionMetadata {
+		gameArguments = List.copyOf(gameArguments);
+		jvmArguments = List.copyOf(jvmArguments);
+		libraries = List.copyOf(libraries);
+	}
+	
+	/**
+	 * A downloadable file.
+	 *
+	 * @param path The path of the file, relative to its repository, or {@code null} if not given.
+	 * @param sha1 The SHA-1 hash of the file, or {@code null} if unknown.
+	 * @param size The size of the file in bytes, or -1 if unknown.
+	 * @param url The URL of the file, or {@code null} if not given.
+	 */
+	public record Artifact(String path, String sha1, long size, String url) {}
+	
+	/**
+	 * The asset index of a version.
+	 *
+	 * @param id The ID of the asset index.
+	 * @param sha1 The SHA-1 hash of the index file.
+	 * @param size The size of the index file in bytes.
+	 * @param totalSize The total size of the assets in bytes.
+	 * @param url The URL of the index file.
+	 */
+	public record AssetIndex(String id, String sha1, long size, long totalSize, String url) {}
+	
+	/**
+	 * A rule deciding whether a library or an argument applies.
+	 *
+	 * @param allow {@code true} if the rule allows, {@code false} if it disallows.
+	 * @param osName The operating system the rule applies to, or {@code null} for any.
+	 * @param osArch The architecture the rule applies to, or {@code null} for any.
+	 * @param osVersion The regular expression matching the OS versions the rule applies to, or {@code null} for any.
+	 * @param features The launcher features the rule requires, empty for none.
+	 */
+	public record Rule(boolean allow, String osName, String osArch, String osVersion, Map<String, Boolean> features) {
+		public Rule {
+			features = Map.copyOf(features);
+		}
+	}
+	
+	/**
+	 * A game or JVM argument of versions since 1.13.
+	 *
+	 * @param values The values of the argument, with {@code ${placeholders}}.
+	 * @param rules The rules deciding whether the argument applies, empty to always apply.
+	 */
+	public record Argument(List<String> values, List<Rule> rules) {
+		public Argument {
+			values = List.copyOf(values);
+			rules = List.copyOf(rules);
+		}
+	}
+	
+	/**
+	 * A library of a version.
+	 *
+	 * @param name The Maven coordinates of the library, {@code group:artifact:version[:classifier]}.
+	 * @param artifact The library jar download, or {@code null} if it has none, e.g. natives only.
+	 * @param classifiers The downloads of the classifiers by classifier, e.g. {@code natives-linux}.
+	 * @param natives The native classifiers by operating system, with {@code ${arch}} placeholders, empty if none.
+	 * @param extractExclude The paths not extracted from native jars.
+	 * @param rules The rules deciding whether the library applies, empty to always apply.
+	 * @param url The base URL of the Maven repository of the library, or {@code null} if not given.
+	 */
+	public record Library(String name,
+	                      Artifact artifact,
+	                      Map<String, Artifact> classifiers,
+	                      Map<String, String> natives,
+	                      List<String> extractExclude,
+	                      List<Rule> rules,
+	                      String url) {
+		
+		public Library {
+			classifiers = Collections.unmodifiableMap(new LinkedHashMap<>(classifiers));
+			natives = Collections.unmodifiableMap(new LinkedHashMap<>(natives));
+			extractExclude = List.copyOf(extractExclude);
+			rules = List.copyOf(rules);
+		}
+	}
+}
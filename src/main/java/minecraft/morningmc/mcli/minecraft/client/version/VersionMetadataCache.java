@@ -0,0 +1,330 @@
+package minecraft.morningmc.mcli.minecraft.client.version;
+
+import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
+import minecraft.morningmc.mcli.minecraft.client.version.VersionMetadata.*;
+import minecraft.morningmc.mcli.utils.AtomicFiles;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Caches parsed version JSONs in a compact binary form under {@link #CACHE_DIRECTORY}.
+ * <p>
+ * A cache file starts with {@code int magic, short format, string json, long lastModified, long length} of the JSON
+ * it was parsed from, and is only used while the JSON still has that modification time and size.
+ * Otherwise the JSON is parsed again by {@link VersionJsonParser} and the cache file is replaced.
+ */
+public final class VersionMetadataCache {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The directory holding the cache files. */
+	public static final File CACHE_DIRECTORY = new File(FileMetadata.CACHE_ROOT, "versions");
+	
+	private static final int MAGIC = 0x4D434C56; // MCLV
+	private static final short FORMAT = 1;
+	private static final int MAX_STRING_LENGTH = 1 << 24;
+	
+	private VersionMetadataCache() {}
+	
+	/**
+	 * Loads the metadata of a version JSON, from the cache if it is up-to-date.
+	 *
+	 * @param json The version JSON file.
+	 * @return The version metadata.
+	 * @throws IOException If the JSON cannot be read or parsed.
+	 */
+	public static VersionMetadata load(File json) throws IOException {
+		File cache = resolve(json);
+		long lastModified = json.lastModified();
+		long length = json.length();
+		
+		if (lastModified == 0) {
+			throw new FileNotFoundException(json.toString());
+		}
+		
+		if (cache.isFile()) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache)))) {
+				if (in.readInt() == MAGIC && in.readShort() == FORMAT
+						    && json.getAbsolutePath().equals(readString(in))
+						    && in.readLong() == lastModified && in.readLong() == length) {
+					
+					return readMetadata(in);
+				}
+			} catch (IOException e) {
+				LOGGER.debug("Discarding version cache " + cache + ": " + e.getMessage());
+			}
+		}
+		
+		VersionMetadata metadata = VersionJsonParser.parse(json);
+		
+		try {
+			save(cache, json, lastModified, length, metadata);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to cache version " + metadata.id() + ": " + e.getMessage());
+		}
+		
+		return metadata;
+	}
+	
+	/**
+	 * Resolves the cache file of a version JSON. The name includes a hash of the path,
+	 * so versions of the same ID in different Minecraft directories do not share a cache file.
+	 *
+	 * @param json The version JSON file.
+	 * @return The cache file.
+	 */
+	public static File resolve(File json) {
+		String path = json.getAbsolutePath();
+		String name = json.getName().endsWith(".json") ? json.getName().substring(0, json.getName().length() - 5) : json.getName();
+		
+		return new File(CACHE_DIRECTORY, name + "-" + Integer.toHexString(path.hashCode()) + ".bin");
+	}
+	
+	private static void save(File cache, File json, long lastModified, long length, VersionMetadata metadata) throws IOException {
+		CACHE_DIRECTORY.mkdirs();
+		File temp = File.createTempFile(cache.getName(), ".tmp", CACHE_DIRECTORY);
+		
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeShort(FORMAT);
+				writeString(out, json.getAbsolutePath());
+				out.writeLong(lastModified);
+				out.writeLong(length);
+				writeMetadata(out, metadata);
+			}
+			
+			AtomicFiles.replace(temp.toPath(), cache.toPath());
+			
+		} finally {
+			temp.delete();
+		}
+	}
+	
+	// Writing
+	private static void writeMetadata(DataOutputStream out, VersionMetadata metadata) throws IOException {
+		writeString(out, metadata.id());
+		writeString(out, metadata.inheritsFrom());
+		writeString(out, metadata.type());
+		writeString(out, metadata.mainClass());
+		writeString(out, metadata.minecraftArguments());
+		writeArguments(out, metadata.gameArguments());
+		writeArguments(out, metadata.jvmArguments());
+		writeString(out, metadata.assets());
+		
+		AssetIndex assetIndex = metadata.assetIndex();
+		out.writeBoolean(assetIndex != null);
+		if (assetIndex != null) {
+			writeString(out, assetIndex.id());
+			writeString(out, assetIndex.sha1());
+			out.writeLong(assetIndex.size());
+			out.writeLong(assetIndex.totalSize());
+			writeString(out, assetIndex.url());
+		}
+		
+		writeArtifact(out, metadata.client());
+		writeString(out, metadata.jar());
+		out.writeInt(metadata.javaVersion());
+		writeString(out, metadata.releaseTime());
+		
+		out.writeInt(metadata.libraries().size());
+		for (Library library : metadata.libraries()) {
+			writeString(out, library.name());
+			writeArtifact(out, library.artifact());
+			
+			out.writeInt(library.classifiers().size());
+			for (Map.Entry<String, Artifact> entry : library.classifiers().entrySet()) {
+				writeString(out, entry.getKey());
+				writeArtifact(out, entry.getValue());
+			}
+			
+			out.writeInt(library.natives().size());
+			for (Map.Entry<String, String> entry : library.natives().entrySet()) {
+				writeString(out, entry.getKey());
+				writeString(out, entry.getValue());
+			}
+			
+			writeStrings(out, library.extractExclude());
+			writeRules(out, library.rules());
+			writeString(out, library.url());
+		}
+	}
+	
+	private static void writeArtifact(DataOutputStream out, Artifact artifact) throws IOException {
+		out.writeBoolean(artifact != null);
+		if (artifact != null) {
+			writeString(out, artifact.path());
+			writeString(out, artifact.sha1());
+			out.writeLong(artifact.size());
+			writeString(out, artifact.url());
+		}
+	}
+	
+	private static void writeArguments(DataOutputStream out, List<Argument> arguments) throws IOException {
+		out.writeInt(arguments.size());
+		for (Argument argument : arguments) {
+			writeStrings(out, argument.values());
+			writeRules(out, argument.rules());
+		}
+	}
+	
+	private static void writeRules(DataOutputStream out, List<Rule> rules) throws IOException {
+		out.writeInt(rules.size());
+		for (Rule rule : rules) {
+			out.writeBoolean(rule.allow());
+			writeString(out, rule.osName());
+			writeString(out, rule.osArch());
+			writeString(out, rule.osVersion());
+			
+			out.writeInt(rule.features().size());
+			for (Map.Entry<String, Boolean> entry : rule.features().entrySet()) {
+				writeString(out, entry.getKey());
+				out.writeBoolean(entry.getValue());
+			}
+		}
+	}
+	
+	private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+		out.writeInt(strings.size());
+		for (String string : strings) {
+			writeString(out, string);
+		}
+	}
+	
+	/**
+	 * Writes a nullable string as {@code int length, UTF-8 bytes}, with a length of -1 for {@code null}.
+	 * Unlike {@link DataOutput#writeUTF(String)}, strings are not limited to 64 KiB.
+	 */
+	static void writeString(DataOutputStream out, String string) throws IOException {
+		if (string == null) {
+			out.writeInt(-1);
+			return;
+		}
+		
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	// Reading
+	private static VersionMetadata readMetadata(DataInputStream in) throws IOException {
+		String id = readString(in);
+		String inheritsFrom = readString(in);
+		String type = readString(in);
+		String mainClass = readString(in);
+		String minecraftArguments = readString(in);
+		List<Argument> gameArguments = readArguments(in);
+		List<Argument> jvmArguments = readArguments(in);
+		String assets = readString(in);
+		
+		AssetIndex assetIndex = in.readBoolean()
+				                        ? new AssetIndex(readString(in), readString(in), in.readLong(), in.readLong(), readString(in))
+				                        : null;
+		
+		Artifact client = readArtifact(in);
+		String jar = readString(in);
+		int javaVersion = in.readInt();
+		String releaseTime = readString(in);
+		
+		int libraryCount = readCount(in);
+		List<Library> libraries = new ArrayList<>(libraryCount);
+		for (int i = 0; i < libraryCount; i++) {
+			String name = readString(in);
+			Artifact artifact = readArtifact(in);
+			
+			int classifierCount = readCount(in);
+			Map<String, Artifact> classifiers = new LinkedHashMap<>();
+			for (int j = 0; j < classifierCount; j++) {
+				classifiers.put(readString(in), readArtifact(in));
+			}
+			
+			int nativeCount = readCount(in);
+			Map<String, String> natives = new LinkedHashMap<>();
+			for (int j = 0; j < nativeCount; j++) {
+				natives.put(readString(in), readString(in));
+			}
+			
+			libraries.add(new Library(name, artifact, classifiers, natives, readStrings(in), readRules(in), readString(in)));
+		}
+		
+		return new VersionMetadata(id, inheritsFrom, type, mainClass, minecraftArguments, gameArguments, jvmArguments,
+				assets, assetIndex, client, jar, javaVersion, releaseTime, libraries);
+	}
+	
+	private static Artifact readArtifact(DataInputStream in) throws IOException {
+		return in.readBoolean() ? new Artifact(readString(in), readString(in), in.readLong(), readString(in)) : null;
+	}
+	
+	private static List<Argument> readArguments(DataInputStream in) throws IOException {
+		int count = readCount(in);
+		List<Argument> arguments = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			arguments.add(new Argument(readStrings(in), readRules(in)));
+		}
+		
+		return arguments;
+	}
+	
+	private static List<Rule> readRules(DataInputStream in) throws IOException {
+		int count = readCount(in);
+		List<Rule> rules = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			boolean allow = in.readBoolean();
+			String osName = readString(in);
+			String osArch = readString(in);
+			String osVersion = readString(in);
+			
+			int featureCount = readCount(in);
+			Map<String, Boolean> features = new LinkedHashMap<>();
+			for (int j = 0; j < featureCount; j++) {
+				features.put(readString(in), in.readBoolean());
+			}
+			
+			rules.add(new Rule(allow, osName, osArch, osVersion, features));
+		}
+		
+		return rules;
+	}
+	
+	private static List<String> readStrings(DataInputStream in) throws IOException {
+		int count = readCount(in);
+		List<String> strings = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			strings.add(readString(in));
+		}
+		
+		return strings;
+	}
+	
+	static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		
+		if (length > MAX_STRING_LENGTH || length > in.available()) {
+			throw new IOException("Illegal string length: " + length);
+		}
+		
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Reads the count of a collection. Every element takes at least one byte, so a count beyond the rest of the file,
+	 * which a file stream reports as available, is corrupt rather than a reason to allocate for it.
+	 */
+	private static int readCount(DataInputStream in) throws IOException {
+		int count = in.readInt();
+		if (count < 0 || count > in.available()) {
+			throw new IOException("Illegal count: " + count);
+		}
+		
+		return count;
+	}
+}
@@ -0,0 +1,156 @@
+package minecraft.morningmc.mcli.minecraft.client.version;
+
+import minecraft.morningmc.mcli.minecraft.client.Version;
+import minecraft.morningmc.mcli.minecraft.client.directory.SourceMinecraftDirectory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves versions through their {@code inheritsFrom} chain, e.g. a Fabric version on top of a vanilla version,
+ * into one merged {@link VersionMetadata}.
+ * <p>
+ * Every level of a chain is memoized on its own, so the versions sharing a parent merge it once.
+ * An entry is kept as long as its JSON has the same modification time and size, and its parent still resolves
+ * to the very same entry; changing any JSON of a chain thus invalidates exactly the versions inheriting from it.
+ * Rules are kept in the merged metadata, they are evaluated per platform when building the classpath.
+ */
+public final class VersionResolver {
+	/** The maximum length of an {@code inheritsFrom} chain. */
+	public static final int MAX_DEPTH = 16;
+	
+	private static final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+	
+	private VersionResolver() {}
+	
+	/**
+	 * Resolves a version.
+	 *
+	 * @param version The version.
+	 * @return The merged metadata of the version and all versions it inherits from.
+	 * @throws IOException If a JSON of the chain cannot be read, or the chain is circular or too long.
+	 */
+	public static VersionMetadata resolve(Version version) throws IOException {
+		return resolve(version.getSource(), version.getId());
+	}
+	
+	/**
+	 * Resolves a version.
+	 *
+	 * @param source The Minecraft directory holding the version.
+	 * @param id The ID of the version.
+	 * @return The merged metadata of the version and all versions it inherits from.
+	 * @throws IOException If a JSON of the chain cannot be read, or the chain is circular or too long.
+	 */
+	public static VersionMetadata resolve(SourceMinecraftDirectory source, String id) throws IOException {
+		return resolve(new Key(source.getRoot().getAbsoluteFile(), id), new ArrayList<>()).resolved();
+	}
+	
+	/**
+	 * Drops all memoized versions.
+	 */
+	public static void clear() {
+		cache.clear();
+	}
+	
+	private static Entry resolve(Key key, List<String> chain) throws IOException {
+		if (chain.contains(key.id())) {
+			throw new IOException("Circular inheritsFrom: " + String.join(" -> ", chain) + " -> " + key.id());
+		}
+		if (chain.size() >= MAX_DEPTH) {
+			throw new IOException("inheritsFrom chain too long: " + String.join(" -> ", chain));
+		}
+		chain.add(key.id());
+		
+		File json = key.json();
+		long lastModified = json.lastModified();
+		long length = json.length();
+		
+		Entry entry = cache.get(key);
+		VersionMetadata metadata = entry != null && entry.lastModified() == lastModified && entry.length() == length
+				                           ? entry.metadata() : VersionMetadataCache.load(json);
+		
+		Entry parent = null;
+		VersionMetadata resolved = metadata;
+		if (metadata.inheritsFrom() != null) {
+			parent = resolve(new Key(key.root(), metadata.inheritsFrom()), chain);
+			
+			// unchanged as long as the parent is not re-merged
+			if (entry != null && entry.metadata() == metadata && entry.parent() == parent) {
+				return entry;
+			}
+			resolved = merge(metadata, parent.resolved());
+			
+		} else if (entry != null && entry.metadata() == metadata) {
+			return entry;
+		}
+		
+		entry = new Entry(lastModified, length, metadata, parent, resolved);
+		cache.put(key, entry);
+		
+		return entry;
+	}
+	
+	/**
+	 * Merges a version with the resolved version it inherits from. Values of the child win, arguments are appended
+	 * to those of the parent, and libraries of the child come first on the classpath.
+	 *
+	 * @param child The version.
+	 * @param parent The resolved parent version.
+	 * @return The merged version, without {@code inheritsFrom}.
+	 */
+	public static VersionMetadata merge(VersionMetadata child, VersionMetadata parent) {
+		List<VersionMetadata.Argument> gameArguments = new ArrayList<>(parent.gameArguments());
+		gameArguments.addAll(child.gameArguments());
+		
+		List<VersionMetadata.Argument> jvmArguments = new ArrayList<>(parent.jvmArguments());
+		jvmArguments.addAll(child.jvmArguments());
+		
+		List<VersionMetadata.Library> libraries = new ArrayList<>(child.libraries());
+		libraries.addAll(parent.libraries());
+		
+		// without a client jar of its own, the version runs on the jar of its parent
+		String jar = child.jar() != null || child.client() != null ? child.jar()
+				             : parent.jar() != null ? parent.jar() : parent.id();
+		
+		return new VersionMetadata(
+				child.id(),
+				null,
+				orElse(child.type(), parent.type()),
+				orElse(child.mainClass(), parent.mainClass()),
+				orElse(child.minecraftArguments(), parent.minecraftArguments()),
+				gameArguments,
+				jvmArguments,
+				orElse(child.assets(), parent.assets()),
+				orElse(child.assetIndex(), parent.assetIndex()),
+				orElse(child.client(), parent.client()),
+				jar,
+				child.javaVersion() != 0 ? child.javaVersion() : parent.javaVersion(),
+				orElse(child.releaseTime(), parent.releaseTime()),
+				libraries
+		);
+	}
+	
+	private static <T> T orElse(T value, T other) {
+		return value != null ? value : other;
+	}
+	
+	private record Key(File root, String id) {
+		File json() {
+			return new File(new File(new File(root, "versions"), id), id + ".json");
+		}
+	}
+	
+	/**
+	 * A memoized level of a chain.
+	 *
+	 * @param lastModified The modification time of the JSON when it was loaded.
+	 * @param length The size of the JSON when it was loaded.
+	 * @param metadata The metadata of the JSON alone.
+	 * @param parent The resolved parent the version was merged with, or {@code null}.
+	 * @param resolved The merged metadata.
+	 */
+	private record Entry(long lastModified, long length, VersionMetadata metadata, Entry parent, VersionMetadata resolved) {}
+}
@@ -0,0 +1,30 @@
+package minecraft.morningmc.mcli.minecraft.download;
+
+import java.io.File;
+import java.net.URI;
+import java.util.*;
+
+/**
+ * A file to download.
+ *
+ * @param uri The URI to download from.
+ * @param target The file to download to.
+ * @param sha1 The SHA-1 hash of the file, lowercase hex, or {@code null} if unknown.
+ * @param size The size of the file in bytes, or -1 if unknown.
+ */
+public record DownloadTask(URI uri, File target, String sha1, long size) {
+	public DownloadTask {
+		Objects.requireNonNull(uri);
+		Objects.requireNonNull(target);
+		sha1 = sha1 != null ? sha1.toLowerCase(Locale.ROOT) : null;
+	}
+	
+	/**
+	 * Gets the partial file the download is written to before it is moved to the target.
+	 *
+	 * @return The partial file.
+	 */
+	public File getPartFile() {
+		return new File(target.getPath() + ".part");
+	}
+}
@@ -0,0 +1,374 @@
+package minecraft.morningmc.mcli.minecraft.download;
+
+import minecraft.morningmc.mcli.launcher.metadata.LauncherMetadata;
+import minecraft.morningmc.mcli.utils.AtomicFiles;
+import minecraft.morningmc.mcli.utils.exceptions.DownloadException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Downloads files over HTTP, verifying them while they are streamed.
+ * <p>
+ * Every download runs on a virtual thread, bounded by a number of concurrent downloads per host; the shared
+ * {@link HttpClient} multiplexes them over HTTP/2 connections where the server supports it. A download is written to a
+ * {@link DownloadTask#getPartFile() partial file}, resumed with a range request if one is left from an earlier attempt,
+ * and hashed as the bytes arrive, so it is never read a second time. Only a complete file with the expected size and
+ * SHA-1 is moved to its target, atomically. Failed attempts are retried with exponential backoff, except for client errors.
+ * <p>
+ * A target is downloaded by one download at a time: a second download of it joins the one in flight,
+ * or, if it expects a different file, starts once that one is done.
+ */
+public class Downloader implements Closeable {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The default number of concurrent downloads per host. */
+	public static final int DEFAULT_PER_HOST = 8;
+	
+	/** The number of attempts of a download. */
+	public static final int MAX_ATTEMPTS = 4;
+	
+	/** The backoff before the second attempt, doubled for every further attempt. */
+	public static final Duration BASE_BACKOFF = Duration.ofMillis(500);
+	
+	/** How long a download may receive nothing before the attempt fails. The request timeout only covers the headers. */
+	public static final Duration STALL_TIMEOUT = Duration.ofSeconds(30);
+	
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "downloadWatchdog");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private final HttpClient client;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final Map<String, Semaphore> hosts = new ConcurrentHashMap<>();
+	private final Map<File, InFlight> inFlight = new ConcurrentHashMap<>();
+	private final int perHost;
+	
+	private final LongAdder downloadedBytes = new LongAdder();
+	
+	/**
+	 * Constructs a downloader with {@link #DEFAULT_PER_HOST} concurrent downloads per host.
+	 */
+	public Downloader() {
+		this(DEFAULT_PER_HOST);
+	}
+	
+	/**
+	 * Constructs a downloader.
+	 *
+	 * @param perHost The number of concurrent downloads per host.
+	 */
+	public Downloader(int perHost) {
+		this.perHost = perHost;
+		this.client = HttpClient.newBuilder()
+				              .version(HttpClient.Version.HTTP_2)
+				              .followRedirects(HttpClient.Redirect.NORMAL)
+				              .connectTimeout(Duration.ofSeconds(10))
+				              .executor(executor)
+				              .build();
+	}
+	
+	/**
+	 * Downloads a file, unless the target already exists with the expected SHA-1.
+	 *
+	 * @param task The download.
+	 * @return A future completing with the target file, or exceptionally with a {@link DownloadException}.
+	 */
+	public CompletableFuture<File> download(DownloadTask task) {
+		File key = task.target().getAbsoluteFile();
+		
+		InFlight download = new InFlight(task, new CompletableFuture<>());
+		InFlight running = inFlight.putIfAbsent(key, download);
+		
+		// callers get copies, so one cancelling its future does not cancel the download of the others
+		if (running != null) {
+			return running.task().equals(task)
+					       ? running.future().copy()
+					       : running.future().handle((file, e) -> null).thenCompose(ignored -> download(task));
+		}
+		
+		try {
+			executor.execute(() -> {
+				File file = null;
+				Throwable failure = null;
+				try {
+					file = run(task);
+				} catch (DownloadException | RuntimeException e) {
+					failure = e;
+				}
+				
+				// gone before the waiting downloads continue on this thread, or they would find it again
+				inFlight.remove(key, download);
+				
+				if (failure != null) {
+					download.future().completeExceptionally(failure);
+				} else {
+					download.future().complete(file);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			inFlight.remove(key, download);
+			throw e;
+		}
+		
+		return download.future().copy();
+	}
+	
+	/**
+	 * Downloads files.
+	 *
+	 * @param tasks The downloads.
+	 * @return A future completing when all files are downloaded, or exceptionally when any download failed.
+	 */
+	public CompletableFuture<Void> downloadAll(Collection<DownloadTask> tasks) {
+		return CompletableFuture.allOf(tasks.stream().map(this::download).toArray(CompletableFuture[]::new));
+	}
+	
+	private File run(DownloadTask task) throws DownloadException {
+		File target = task.target();
+		if (task.sha1() != null && target.isFile() && (task.size() < 0 || target.length() == task.size())) {
+			try {
+				if (task.sha1().equals(hash(target))) {
+					return target;
+				}
+			} catch (IOException e) {
+				LOGGER.debug("Failed to hash " + target + ": " + e.getMessage());
+			}
+		}
+		
+		Semaphore semaphore = hosts.computeIfAbsent(String.valueOf(task.uri().getHost()), host -> new Semaphore(perHost));
+		
+		for (int attempt = 1; ; attempt++) {
+			try {
+				semaphore.acquire();
+				try {
+					attempt(task);
+					return target;
+				} finally {
+					semaphore.release();
+				}
+				
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new DownloadException("Download interrupted: " + task.uri(), e);
+				
+			} catch (IOException e) {
+				if (e instanceof ClientErrorException || attempt >= MAX_ATTEMPTS) {
+					throw new DownloadException("Failed to download " + task.uri() + ": " + e.getMessage(), e);
+				}
+				
+				long backoff = BASE_BACKOFF.toMillis() << (attempt - 1);
+				LOGGER.warn("Download of " + task.uri() + " failed, retrying in " + backoff + " ms: " + e.getMessage());
+				
+				try {
+					Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff / 4 + 1));
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					throw new DownloadException("Download interrupted: " + task.uri(), interrupted);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Makes one attempt of a download, resuming the partial file if there is one.
+	 */
+	private void attempt(DownloadTask task) throws IOException, InterruptedException {
+		File part = task.getPartFile();
+		part.getParentFile().mkdirs();
+		
+		MessageDigest digest = newDigest();
+		long offset = part.isFile() ? part.length() : 0;
+		
+		if (task.size() >= 0 && offset > task.size()) {
+			offset = 0;
+		}
+		if (offset > 0) {
+			// the digest has to include the bytes already downloaded
+			hash(part.toPath(), offset, digest);
+		}
+		
+		HttpRequest.Builder request = HttpRequest.newBuilder(task.uri())
+				                              .header("User-Agent", LauncherMetadata.FULL_NAME)
+				                              .timeout(Duration.ofSeconds(30));
+		if (offset > 0) {
+			request.header("Range", "bytes=" + offset + "-");
+		}
+		
+		HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+		
+		AtomicLong received = new AtomicLong();
+		ScheduledFuture<?> watchdog = WATCHDOG.scheduleAtFixedRate(new Runnable() {
+			private long last = 0;
+			
+			@Override
+			public void run() {
+				// closing the body fails the blocked read, and the partial file is resumed by the next attempt
+				if (received.get() == last) {
+					try {
+						response.body().close();
+					} catch (IOException ignored) {}
+				}
+				last = received.get();
+			}
+		}, STALL_TIMEOUT.toMillis(), STALL_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+		
+		try (InputStream body = response.body()) {
+			int status = response.statusCode();
+			
+			if (status == 416 && offset > 0) {
+				// the partial file is not a prefix of the file anymore
+				Files.deleteIfExists(part.toPath());
+				throw new IOException("Range not satisfiable, restarting");
+			}
+			if (status >= 400 && status < 500 && status != 408 && status != 429) {
+				Files.deleteIfExists(part.toPath());
+				throw new ClientErrorException("HTTP " + status);
+			}
+			if (status != 200 && status != 206) {
+				throw new IOException("HTTP " + status);
+			}
+			
+			if (status == 200 && offset > 0) {
+				// the server ignored the range
+				offset = 0;
+				digest.reset();
+			}
+			if (status == 206 && rangeStart(response) != offset) {
+				Files.deleteIfExists(part.toPath());
+				throw new IOException("Unexpected range " + response.headers().firstValue("Content-Range").orElse(null) + " for offset " + offset + ", restarting");
+			}
+			
+			try (FileChannel channel = FileChannel.open(part.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+				channel.truncate(offset);
+				channel.position(offset);
+				
+				byte[] bytes = new byte[BUFFER_SIZE];
+				ByteBuffer buffer = ByteBuffer.wrap(bytes);
+				
+				int read;
+				while ((read = body.read(bytes)) >= 0) {
+					digest.update(bytes, 0, read);
+					
+					buffer.clear().limit(read);
+					while (buffer.hasRemaining()) {
+						channel.write(buffer);
+					}
+					
+					offset += read;
+					received.addAndGet(read);
+					downloadedBytes.add(read);
+				}
+			}
+		} finally {
+			watchdog.cancel(false);
+		}
+		
+		String sha1 = HexFormat.of().formatHex(digest.digest());
+		if (task.size() >= 0 && offset != task.size() || task.sha1() != null && !task.sha1().equals(sha1)) {
+			Files.deleteIfExists(part.toPath());
+			throw new IOException("Integrity check failed: got " + offset + " bytes with SHA-1 " + sha1);
+		}
+		
+		AtomicFiles.replace(part.toPath(), task.target().toPath());
+	}
+	
+	/**
+	 * Gets the first byte of a partial response, from {@code Content-Range: bytes <first>-<last>/<length>}.
+	 *
+	 * @return The first byte, or -1 if the header is missing or malformed.
+	 */
+	private static long rangeStart(HttpResponse<?> response) {
+		String range = response.headers().firstValue("Content-Range").orElse("");
+		int dash = range.indexOf('-');
+		if (!range.startsWith("bytes ") || dash < 0) {
+			return -1;
+		}
+		
+		try {
+			return Long.parseLong(range.substring(6, dash).trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+	
+	private static String hash(File file) throws IOException {
+		MessageDigest digest = newDigest();
+		hash(file.toPath(), file.length(), digest);
+		return HexFormat.of().formatHex(digest.digest());
+	}
+	
+	private static void hash(Path path, long length, MessageDigest digest) throws IOException {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE)) {
+			byte[] bytes = new byte[BUFFER_SIZE];
+			
+			long remaining = length;
+			int read;
+			while (remaining > 0 && (read = in.read(bytes, 0, (int) Math.min(bytes.length, remaining))) >= 0) {
+				digest.update(bytes, 0, read);
+				remaining -= read;
+			}
+		}
+	}
+	
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	@Override
+	public void close() {
+		executor.shutdownNow();
+		
+		// aborts the requests in flight first, as closing waits for them
+		client.shutdownNow();
+		client.close();
+	}
+	
+	// Getters
+	/**
+	 * Gets the number of bytes downloaded so far, including failed attempts.
+	 *
+	 * @return The number of bytes.
+	 */
+	public long getDownloadedBytes() {
+		return downloadedBytes.sum();
+	}
+	
+	/**
+	 * A download in flight and the task it was started for.
+	 */
+	private record InFlight(DownloadTask task, CompletableFuture<File> future) {}
+	
+	/**
+	 * A client error, which is not retried.
+	 */
+	private static class ClientErrorException extends IOException {
+		ClientErrorException(String message) {
+			super(message);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package minecraft.morningmc.mcli.minecraft.java;
 
+import minecraft.morningmc.mcli.launcher.config.ConfigStore;
 import minecraft.morningmc.mcli.utils.Platform;
 import minecraft.morningmc.mcli.utils.annotations.ObjectCollection;
 import minecraft.morningmc.mcli.utils.exceptions.IllegalJavaException;
@@ -109,7 +110,9 @@ public class JavaRuntimeCollection implements Runnable {
 	 * @param runtime The Java runtime to be added.
 	 */
 	public static void add(JavaRuntime runtime) {
-		instance.runtimes.add(runtime);
+		if (instance.runtimes.add(runtime)) {
+			ConfigStore.markDirty(ConfigStore.Section.RUNTIMES);
+		}
 	}
 	
 	/**
@@ -330,6 +333,8 @@ public class JavaRuntimeCollection implements Runnable {
 			for (JavaRuntime runtime : runtimes) {
 				LOGGER.debug(runtime.toString());
 			}
+			
+			ConfigStore.markDirty(ConfigStore.Section.RUNTIMES);
 		}
 	}
 	
@@ -1,20 +1,120 @@
 package minecraft.morningmc.mcli.minecraft.launch;
 
+import minecraft.morningmc.mcli.minecraft.client.Version;
 import minecraft.morningmc.mcli.minecraft.client.directory.TargetMinecraftDirectory;
 import minecraft.morningmc.mcli.minecraft.client.profile.Profile;
+import minecraft.morningmc.mcli.minecraft.client.version.ClasspathResolver;
+import minecraft.morningmc.mcli.minecraft.java.JavaRuntime;
+import minecraft.morningmc.mcli.minecraft.launch.listener.GcLogMonitor;
+import minecraft.morningmc.mcli.utils.MemoryRange;
+import minecraft.morningmc.mcli.utils.Platform;
+import minecraft.morningmc.mcli.utils.exceptions.LaunchException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 public record LaunchArguments(LaunchOptions options, Profile profile) {
+	private static final Logger LOGGER = LogManager.getLogger();
 	
 	public LaunchArguments(LaunchOptions options, Profile profile) {
 		this.options = Objects.requireNonNull(options);
 		this.profile = Objects.requireNonNull(profile);
 	}
 	
-	public List<String> generateCommandline() {
-		return List.of();
+	public List<String> generateCommandline() throws LaunchException {
+		List<String> commandline = new ArrayList<>();
+		
+		JavaRuntime runtime = getJavaRuntime();
+		commandline.add(runtime != null ? runtime.executable().getAbsolutePath() : JavaRuntime.JAVA);
+		
+		MemoryRange memoryRange = options.getMemoryRange().getIfEnabled();
+		if (memoryRange != null) {
+			if (memoryRange.minimum() > 0) {
+				commandline.add("-Xms" + memoryRange.minimum() + "M");
+			}
+			commandline.add("-Xmx" + memoryRange.maximum() + "M");
+		}
+		
+		commandline.addAll(options.getJavaArguments().getIfEnabled(List.of()));
+		
+		if (isGcLogging()) {
+			commandline.add(GcLogMonitor.argument());
+		}
+		
+		Version version = profile.getVersion();
+		if (version != null) {
+			try {
+				ClasspathResolver.Classpath classpath = resolveClasspath();
+				
+				// versions since 1.19 have no native jars, LWJGL extracts its natives from the classpath
+				if (!classpath.natives().isEmpty()) {
+					File natives = NativeExtractor.extract(classpath.natives(), getNativesDirectory());
+					commandline.add("-Djava.library.path=" + natives.getAbsolutePath());
+				}
+				
+				commandline.add("-cp");
+				commandline.add(classpath.toArgument(getPlatform()));
+				
+				String mainClass = version.resolveMetadata().mainClass();
+				if (mainClass == null) {
+					throw new LaunchException("Version " + version.getId() + " has no main class");
+				}
+				commandline.add(mainClass);
+				
+			} catch (IOException e) {
+				throw new LaunchException("Couldn't resolve version " + version.getId(), e);
+			}
+		}
+		
+		return commandline;
+	}
+	
+	/**
+	 * Resolves the classpath of the version of the profile, for the platform of the Java runtime.
+	 *
+	 * @return The classpath.
+	 * @throws IOException If the version cannot be resolved.
+	 */
+	public ClasspathResolver.Classpath resolveClasspath() throws IOException {
+		return ClasspathResolver.resolve(profile.getVersion(), getPlatform());
+	}
+	
+	/**
+	 * Gets the directory the native jars of the version are extracted below, see {@link NativeExtractor}.
+	 *
+	 * @return The natives directory, {@code versions/<id>/natives}.
+	 */
+	public File getNativesDirectory() {
+		Version version = profile.getVersion();
+		return new File(new File(version.getSource().getVersionsDirectory(), version.getId()), "natives");
+	}
+	
+	public Platform getPlatform() {
+		JavaRuntime runtime = getJavaRuntime();
+		return runtime != null ? runtime.platform() : Platform.CURRENT;
+	}
+	
+	public JavaRuntime getJavaRuntime() {
+		return options.getJavaRuntime().getIfEnabled(JavaRuntime.CURRENT);
+	}
+	
+	public boolean isGcLogging() {
+		if (!options.isGcLogging()) {
+			return false;
+		}
+		
+		// unified logging (-Xlog) is only available since Java 9
+		JavaRuntime runtime = getJavaRuntime();
+		if (runtime != null && runtime.version() >= 0 && runtime.version() < 9) {
+			LOGGER.warn("GC logging requires Java 9 or later, but " + runtime + " is used");
+			return false;
+		}
+		
+		return true;
 	}
 	
 	public File getDirectory() {
@@ -1,7 +1,9 @@
 package minecraft.morningmc.mcli.minecraft.launch;
 
+import minecraft.morningmc.mcli.launcher.config.ConfigStore;
 import minecraft.morningmc.mcli.minecraft.client.profile.Profile;
 import minecraft.morningmc.mcli.minecraft.client.profile.ProfileCollection;
+import minecraft.morningmc.mcli.minecraft.launch.listener.OutputPolicy;
 import minecraft.morningmc.mcli.minecraft.launch.listener.ProcessListener;
 import minecraft.morningmc.mcli.utils.exceptions.IllegalNbtException;
 import minecraft.morningmc.mcli.utils.exceptions.LaunchException;
@@ -97,17 +99,30 @@ public class Launcher {
 	 * @throws LaunchException If there is an issue launching the Minecraft client.
 	 */
 	public ProcessListener launch(Profile profile) throws LaunchException {
-		return launch(generateArguments(profile));
+		return launch(profile, OutputPolicy.DEFAULT);
+	}
+	
+	/**
+	 * Launches the Minecraft client using the specified profile and the stored options.
+	 *
+	 * @param profile The Minecraft profile to be used for launching.
+	 * @param outputPolicy The policy deciding which lines of the game output are kept, applied from the first line.
+	 * @return A ProcessListener for monitoring the launched process.
+	 * @throws LaunchException If there is an issue launching the Minecraft client.
+	 */
+	public ProcessListener launch(Profile profile, OutputPolicy outputPolicy) throws LaunchException {
+		return launch(generateArguments(profile), outputPolicy);
 	}
 	
 	/**
 	 * Launches the Minecraft client using the specified launch arguments.
 	 *
 	 * @param arguments The launch arguments for the Minecraft client.
+	 * @param outputPolicy The policy deciding which lines of the game output are kept.
 	 * @return A ProcessListener for monitoring the launched process.
 	 * @throws LaunchException If there is an issue launching the Minecraft client.
 	 */
-	private ProcessListener launch(LaunchArguments arguments) throws LaunchException {
+	private ProcessListener launch(LaunchArguments arguments, OutputPolicy outputPolicy) throws LaunchException {
 		if (arguments == null) {
 			throw new NullPointerException("LaunchArguments cannot be null");
 		}
@@ -123,7 +138,7 @@ public class Launcher {
 			throw new LaunchException("Couldn't start process", e);
 		}
 		
-		return new ProcessListener(process);
+		return new ProcessListener(process, arguments, outputPolicy);
 	}
 	
 	/**
@@ -171,6 +186,7 @@ public class Launcher {
 	 */
 	public void setOptions(LaunchOptions options) {
 		this.options = options;
+		ConfigStore.markDirty(ConfigStore.Section.LAUNCHER);
 	}
 	
 	/**
@@ -180,5 +196,6 @@ public class Launcher {
 	 */
 	public void setProfile(Profile profile) {
 		this.profile = profile;
+		ConfigStore.markDirty(ConfigStore.Section.LAUNCHER);
 	}
 }
@@ -0,0 +1,118 @@
+package minecraft.morningmc.mcli.minecraft.launch;
+
+import minecraft.morningmc.mcli.minecraft.client.version.ClasspathResolver.Native;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts the native jars of versions before 1.19, whose libraries are loaded from {@code java.library.path}.
+ * <p>
+ * Every set of jars is extracted into its own directory, named after a hash of the paths, sizes and modification times
+ * of the jars, and stamped with them, so a launch with the same jars, the common case, only reads the stamp. A running
+ * instance keeps the libraries of its directory open, or still loads them, so other jars never overwrite them, and the
+ * directories of jars no longer used are left in place.
+ */
+public final class NativeExtractor {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The name of the stamp file in the natives directory. */
+	public static final String STAMP = ".natives";
+	
+	private NativeExtractor() {}
+	
+	/**
+	 * Extracts native jars into a directory below the natives directory, unless it already holds them.
+	 *
+	 * @param natives The native jars.
+	 * @param parent The natives directory.
+	 * @return The directory holding the extracted files, for {@code java.library.path}.
+	 * @throws IOException If a jar cannot be read or the directory cannot be written.
+	 */
+	public static File extract(List<Native> natives, File parent) throws IOException {
+		String stamp = stamp(natives);
+		File directory = new File(parent, Integer.toHexString(stamp.hashCode()));
+		Path stampFile = directory.toPath().resolve(STAMP);
+		
+		try {
+			if (stamp.equals(Files.readString(stampFile, StandardCharsets.UTF_8))) {
+				return directory;
+			}
+		} catch (NoSuchFileException ignored) {}
+		
+		long startTime = System.nanoTime();
+		Path root = directory.toPath().toAbsolutePath().normalize();
+		
+		// the old stamp goes first, so a failed extraction is retried by the next launch
+		Files.createDirectories(root);
+		Files.deleteIfExists(stampFile);
+		
+		int files = 0;
+		for (Native jar : natives) {
+			files += extract(jar, root);
+		}
+		
+		Files.writeString(stampFile, stamp, StandardCharsets.UTF_8);
+		LOGGER.info("Extracted " + files + " native files of " + natives.size() + " jars to " + directory + " in "
+				            + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+		
+		return directory;
+	}
+	
+	private static int extract(Native jar, Path root) throws IOException {
+		int files = 0;
+		
+		try (ZipFile zip = new ZipFile(jar.jar())) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				if (entry.isDirectory() || isExcluded(entry.getName(), jar.extractExclude())) {
+					continue;
+				}
+				
+				Path target = root.resolve(entry.getName()).normalize();
+				if (!target.startsWith(root)) {
+					LOGGER.warn("Skipped native entry " + entry.getName() + " of " + jar.jar() + ": outside of the natives directory");
+					continue;
+				}
+				
+				Files.createDirectories(target.getParent());
+				try (InputStream in = zip.getInputStream(entry)) {
+					Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+				files++;
+			}
+		}
+		
+		return files;
+	}
+	
+	private static boolean isExcluded(String name, List<String> extractExclude) {
+		for (String exclude : extractExclude) {
+			if (name.startsWith(exclude)) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	private static String stamp(List<Native> natives) {
+		StringBuilder stamp = new StringBuilder();
+		for (Native jar : natives) {
+			stamp.append(jar.jar().getAbsolutePath()).append('\t').append(jar.jar().length()).append('\t').append(jar.jar().lastModified())
+					.append('\t').append(String.join(",", jar.extractExclude())).append('\n');
+		}
+		
+		return stamp.toString();
+	}
+}
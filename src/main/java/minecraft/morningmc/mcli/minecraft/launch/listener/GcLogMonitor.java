@@ -0,0 +1,295 @@
+package minecraft.morningmc.mcli.minecraft.launch.listener;
+
+import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tails the unified GC log of a Minecraft instance and aggregates its pause events.
+ * <p>
+ * Instances launched with GC logging write to {@code cache/gc/gc-<pid>.log}. Pause times are kept in
+ * a log-linear histogram with four sub-buckets per power of two, so percentiles are accurate to 25%
+ * while the whole histogram stays a fixed array of counters.
+ *
+ * @see ResourceSampler
+ */
+public class GcLogMonitor {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The directory holding the GC logs of launched instances. */
+	public static final File GC_LOG_ROOT = new File(FileMetadata.CACHE_ROOT, "gc");
+	
+	/** Matches a pause with a heap transition, e.g. {@code [1.234s][info][gc] GC(3) Pause Young (Normal) (G1 Evacuation Pause) 120M->30M(512M) 5.123ms}. */
+	private static final Pattern PAUSE = Pattern.compile(
+			"^\\[(?<uptime>[0-9.,]+)s].*GC\\(\\d+\\) Pause .*? (?<before>\\d+)(?<beforeUnit>[BKMG])->(?<after>\\d+)(?<afterUnit>[BKMG])\\(\\d+[BKMG]\\) (?<pause>[0-9.,]+)ms$");
+	
+	private static final int BUCKETS = 256;
+	
+	private final long pid;
+	private final LogTailer tailer;
+	private boolean closed;
+	
+	private final long[] histogram = new long[BUCKETS];
+	private long pauseCount = 0;
+	private long totalPause = 0;
+	private long maxPause = 0;
+	
+	private double firstUptime = -1;
+	private double lastUptime = -1;
+	private long allocatedBytes = 0;
+	private long heapAfterGc = -1;
+	
+	/**
+	 * Constructs a {@code GcLogMonitor} for the instance with the given process ID.
+	 *
+	 * @param pid The process ID of the Minecraft instance.
+	 */
+	public GcLogMonitor(long pid) {
+		this.pid = pid;
+		this.tailer = new LogTailer(resolve(pid), this::accept);
+	}
+	
+	/**
+	 * Generates the JVM argument that makes an instance write its GC log for this monitor.
+	 * {@code %p} is expanded to the process ID by the JVM itself. Rotation is disabled, so the log stays one file
+	 * for the whole session; it is deleted when the instance exits.
+	 *
+	 * @return The {@code -Xlog} argument.
+	 */
+	public static String argument() {
+		GC_LOG_ROOT.mkdirs();
+		return "-Xlog:gc*:file=" + new File(GC_LOG_ROOT, "gc-%p.log").getAbsolutePath() + ":uptime,level,tags:filecount=0";
+	}
+	
+	/**
+	 * Resolves the GC log file of the instance with the given process ID.
+	 *
+	 * @param pid The process ID of the Minecraft instance.
+	 * @return The GC log file.
+	 */
+	public static File resolve(long pid) {
+		return new File(GC_LOG_ROOT, "gc-" + pid + ".log");
+	}
+	
+	/**
+	 * Reads the lines appended to the GC log since the last poll. Only called from the sampler thread.
+	 */
+	synchronized void poll() {
+		if (closed) {
+			return;
+		}
+		
+		try {
+			tailer.poll();
+		} catch (IOException e) {
+			LOGGER.debug("Failed to read GC log of instance " + pid + ": " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Closes the GC log.
+	 */
+	synchronized void close() {
+		closed = true;
+		
+		try {
+			tailer.close();
+		} catch (IOException ignored) {}
+	}
+	
+	/**
+	 * Closes and deletes the GC log, once the instance has exited.
+	 */
+	synchronized void delete() {
+		close();
+		
+		if (tailer.getFile().exists() && !tailer.getFile().delete()) {
+			LOGGER.debug("Failed to delete GC log of instance " + pid);
+		}
+	}
+	
+	/**
+	 * Parses one line of the GC log.
+	 *
+	 * @param line The line to be parsed.
+	 */
+	private void accept(String line) {
+		if (!line.contains(" Pause ")) {
+			return;
+		}
+		
+		Matcher matcher = PAUSE.matcher(line);
+		if (!matcher.find()) {
+			return;
+		}
+		
+		double uptime = Double.parseDouble(matcher.group("uptime").replace(',', '.'));
+		long before = toBytes(matcher.group("before"), matcher.group("beforeUnit"));
+		long after = toBytes(matcher.group("after"), matcher.group("afterUnit"));
+		long pause = Math.round(Double.parseDouble(matcher.group("pause").replace(',', '.')) * 1000);
+		
+		synchronized (this) {
+			histogram[bucketOf(pause)]++;
+			pauseCount++;
+			totalPause += pause;
+			maxPause = Math.max(maxPause, pause);
+			
+			if (firstUptime < 0) {
+				firstUptime = uptime;
+			}
+			if (heapAfterGc >= 0 && before > heapAfterGc) {
+				allocatedBytes += before - heapAfterGc;
+			}
+			
+			lastUptime = uptime;
+			heapAfterGc = after;
+		}
+	}
+	
+	private static long toBytes(String value, String unit) {
+		long bytes = Long.parseLong(value);
+		
+		return switch (unit) {
+			case "K" -> bytes << 10;
+			case "M" -> bytes << 20;
+			case "G" -> bytes << 30;
+			default -> bytes;
+		};
+	}
+	
+	// Histogram
+	private static int bucketOf(long micros) {
+		if (micros < 4) {
+			return (int) Math.max(micros, 0);
+		}
+		
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		return Math.min(exponent * 4 + (int) ((micros >> (exponent - 2)) & 3), BUCKETS - 1);
+	}
+	
+	private static long lowerBoundOf(int bucket) {
+		if (bucket < 4) {
+			return bucket;
+		}
+		
+		return (4L + bucket % 4) << (bucket / 4 - 2);
+	}
+	
+	/**
+	 * Gets a percentile of the pause times.
+	 *
+	 * @param percentile The percentile, between 0 and 100.
+	 * @return The pause time in milliseconds, or 0 if there were no pauses yet.
+	 */
+	public synchronized double getPausePercentile(double percentile) {
+		if (pauseCount == 0) {
+			return 0;
+		}
+		
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * pauseCount));
+		long seen = 0;
+		
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += histogram[bucket];
+			
+			if (seen >= rank) {
+				// report the middle of the bucket, never above the largest pause seen
+				long lower = lowerBoundOf(bucket);
+				long upper = bucket + 1 < BUCKETS ? lowerBoundOf(bucket + 1) : lower;
+				return Math.min((lower + upper) / 2, maxPause) / 1000.0;
+			}
+		}
+		
+		return maxPause / 1000.0;
+	}
+	
+	// Getters
+	/**
+	 * Gets the median pause time.
+	 *
+	 * @return The p50 pause time in milliseconds.
+	 */
+	public double getMedianPause() {
+		return getPausePercentile(50);
+	}
+	
+	/**
+	 * Gets the 99th percentile pause time.
+	 *
+	 * @return The p99 pause time in milliseconds.
+	 */
+	public double getP99Pause() {
+		return getPausePercentile(99);
+	}
+	
+	/**
+	 * Gets the longest pause time.
+	 *
+	 * @return The maximum pause time in milliseconds.
+	 */
+	public synchronized double getMaxPause() {
+		return maxPause / 1000.0;
+	}
+	
+	/**
+	 * Gets the number of pauses parsed so far.
+	 *
+	 * @return The pause count.
+	 */
+	public synchronized long getPauseCount() {
+		return pauseCount;
+	}
+	
+	/**
+	 * Gets the total time spent in pauses.
+	 *
+	 * @return The total pause time in milliseconds.
+	 */
+	public synchronized double getTotalPause() {
+		return totalPause / 1000.0;
+	}
+	
+	/**
+	 * Gets the average allocation rate between the first and the last pause.
+	 *
+	 * @return The allocation rate in bytes per second, or 0 if not enough pauses were seen.
+	 */
+	public synchronized double getAllocationRate() {
+		if (lastUptime <= firstUptime) {
+			return 0;
+		}
+		
+		return allocatedBytes / (lastUptime - firstUptime);
+	}
+	
+	/**
+	 * Gets the heap occupancy after the last pause.
+	 *
+	 * @return The heap after GC in bytes, or -1 if there were no pauses yet.
+	 */
+	public synchronized long getHeapAfterGc() {
+		return heapAfterGc;
+	}
+	
+	/**
+	 * Gets the GC log file being tailed.
+	 *
+	 * @return The GC log file.
+	 */
+	public File getFile() {
+		return tailer.getFile();
+	}
+	
+	// Overrides
+	@Override
+	public synchronized String toString() {
+		return "%d pauses, p50 %.2f ms, p99 %.2f ms, max %.2f ms, %.1f MB/s allocated, %d MB after GC".formatted(
+				pauseCount, getMedianPause(), getP99Pause(), getMaxPause(), getAllocationRate() / 1024 / 1024, heapAfterGc / 1024 / 1024);
+	}
+}
@@ -0,0 +1,17 @@
+package minecraft.morningmc.mcli.minecraft.launch.listener;
+
+/**
+ * An event published on the {@link InstanceEventBus} when a Minecraft instance changes its lifecycle state.
+ *
+ * @param listener The listener of the instance.
+ * @param previous The state before the change, or {@code null} if the instance has just been registered.
+ * @param state The state after the change.
+ * @param time The time of the change in milliseconds since the epoch.
+ */
+public record InstanceEvent(ProcessListener listener, InstanceState previous, InstanceState state, long time) {
+	
+	@Override
+	public String toString() {
+		return listener + ": " + previous + " -> " + state;
+	}
+}
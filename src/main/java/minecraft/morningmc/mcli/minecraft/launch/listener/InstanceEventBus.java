@@ -0,0 +1,127 @@
+package minecraft.morningmc.mcli.minecraft.launch.listener;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A lock-free bus delivering {@link InstanceEvent}s to subscribers such as the UI, metrics and schedulers.
+ * <p>
+ * Every subscription owns a queue and an executor. Publishing only enqueues the event and, if no delivery is pending,
+ * hands one drain task to the executor, so any number of events published in a burst reach the subscriber as one batch.
+ * A UI subscriber passes {@code Platform::runLater} as its executor and is called once per burst on the JavaFX thread.
+ */
+public class InstanceEventBus {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The maximum number of events handed to a subscriber in one batch. */
+	public static final int MAX_BATCH_SIZE = 1024;
+	
+	public static final InstanceEventBus instance = new InstanceEventBus();
+	
+	private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+	
+	/**
+	 * Subscribes to instance events, delivered in batches through the given executor.
+	 *
+	 * @param executor The executor on which batches are delivered.
+	 * @param subscriber The subscriber receiving batches of events, in publishing order.
+	 * @return The subscription, which can be cancelled.
+	 */
+	public static Subscription subscribe(Executor executor, Consumer<List<InstanceEvent>> subscriber) {
+		Subscription subscription = new Subscription(Objects.requireNonNull(executor), Objects.requireNonNull(subscriber));
+		instance.subscriptions.add(subscription);
+		
+		return subscription;
+	}
+	
+	/**
+	 * Publishes an event to all subscribers. Never blocks.
+	 *
+	 * @param event The event to be published.
+	 */
+	public static void publish(InstanceEvent event) {
+		for (Subscription subscription : instance.subscriptions) {
+			subscription.offer(event);
+		}
+	}
+	
+	/**
+	 * A subscription to the {@code InstanceEventBus}.
+	 */
+	public static final class Subscription {
+		private final Executor executor;
+		private final Consumer<List<InstanceEvent>> subscriber;
+		
+		private final Queue<InstanceEvent> queue = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
+		private volatile boolean cancelled = false;
+		
+		private Subscription(Executor executor, Consumer<List<InstanceEvent>> subscriber) {
+			this.executor = executor;
+			this.subscriber = subscriber;
+		}
+		
+		/**
+		 * Cancels the subscription. Events already queued are dropped.
+		 */
+		public void cancel() {
+			cancelled = true;
+			instance.subscriptions.remove(this);
+			queue.clear();
+		}
+		
+		/**
+		 * Checks if the subscription has been cancelled.
+		 *
+		 * @return {@code true} if cancelled, {@code false} otherwise.
+		 */
+		public boolean isCancelled() {
+			return cancelled;
+		}
+		
+		private void offer(InstanceEvent event) {
+			queue.offer(event);
+			schedule();
+		}
+		
+		private void schedule() {
+			if (!cancelled && !queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+				try {
+					executor.execute(this::drain);
+				} catch (Exception e) {
+					scheduled.set(false);
+					LOGGER.warn("Failed to schedule event delivery: " + e.getMessage());
+				}
+			}
+		}
+		
+		private void drain() {
+			try {
+				List<InstanceEvent> batch = new ArrayList<>();
+				
+				for (InstanceEvent event; batch.size() < MAX_BATCH_SIZE && (event = queue.poll()) != null; ) {
+					batch.add(event);
+				}
+				
+				if (!batch.isEmpty() && !cancelled) {
+					subscriber.accept(batch);
+				}
+				
+			} catch (Exception e) {
+				LOGGER.error("Instance event subscriber failed: ", e);
+				
+			} finally {
+				scheduled.set(false);
+				// events published while delivering, or left over from a full batch
+				schedule();
+			}
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package minecraft.morningmc.mcli.minecraft.launch.listener;
+
+/**
+ * The lifecycle states of a Minecraft instance, in the order they are passed through.
+ */
+public enum InstanceState {
+	/** The process has been spawned and the game is loading. */
+	STARTING,
+	
+	/** The game has created its window. */
+	READY,
+	
+	/** The game has finished loading and is playable. */
+	RUNNING,
+	
+	/** The process has exited normally. */
+	EXITED,
+	
+	/** The process has crashed or exited with a non-zero exit code. */
+	CRASHED;
+	
+	/**
+	 * Checks if the state is terminal, i.e. the process is no longer running.
+	 *
+	 * @return {@code true} if the state is {@code EXITED} or {@code CRASHED}, {@code false} otherwise.
+	 */
+	public boolean isTerminal() {
+		return this == EXITED || this == CRASHED;
+	}
+}
@@ -0,0 +1,175 @@
+package minecraft.morningmc.mcli.minecraft.launch.listener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.function.Consumer;
+
+/**
+ * Incrementally reads the lines appended to a file since the last poll.
+ * <p>
+ * The file does not have to exist yet. A trailing partial line is kept until its line break is written.
+ * The tailer starts over if the file is truncated, and reopens it once it is replaced by another file, e.g. by
+ * log rotation, after reading the rest of the old one.
+ */
+public class LogTailer implements Closeable {
+	private final File file;
+	private final Consumer<String> consumer;
+	
+	private final ByteBuffer buffer = ByteBuffer.allocate(16384);
+	private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+	
+	private FileChannel channel = null;
+	private Object fileKey = null;
+	private long position;
+	private boolean closed;
+	
+	/**
+	 * Constructs a {@code LogTailer} reading from the start of the file.
+	 *
+	 * @param file The file to tail.
+	 * @param consumer The consumer receiving every complete line.
+	 */
+	public LogTailer(File file, Consumer<String> consumer) {
+		this(file, consumer, 0);
+	}
+	
+	/**
+	 * Constructs a {@code LogTailer} reading from the given position of the file.
+	 *
+	 * @param file The file to tail.
+	 * @param consumer The consumer receiving every complete line.
+	 * @param position The position to start reading from.
+	 */
+	public LogTailer(File file, Consumer<String> consumer, long position) {
+		this.file = file;
+		this.consumer = consumer;
+		this.position = position;
+	}
+	
+	/**
+	 * Reads all lines appended since the last poll. Does nothing once the tailer is closed.
+	 *
+	 * @return The number of lines read.
+	 * @throws IOException If an I/O error occurs while reading the file.
+	 */
+	public synchronized int poll() throws IOException {
+		if (closed) {
+			return 0;
+		}
+		
+		int lines = 0;
+		
+		while (true) {
+			if (channel == null) {
+				if (!file.isFile()) {
+					return lines;
+				}
+				
+				channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+				fileKey = Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+			}
+			
+			if (channel.size() < position) {
+				position = 0;
+				partialLine.reset();
+			}
+			
+			lines += read();
+			
+			if (!isReplaced()) {
+				return lines;
+			}
+			
+			channel.close();
+			channel = null;
+			position = 0;
+			partialLine.reset();
+		}
+	}
+	
+	private int read() throws IOException {
+		int lines = 0;
+		
+		for (int read; (read = channel.read(buffer.clear(), position)) > 0; ) {
+			position += read;
+			buffer.flip();
+			
+			byte[] array = buffer.array();
+			int start = 0;
+			
+			for (int i = 0; i < buffer.limit(); i++) {
+				if (array[i] == '\n') {
+					int end = i > start && array[i - 1] == '\r' ? i - 1 : i;
+					
+					if (partialLine.size() > 0) {
+						partialLine.write(array, start, end - start);
+						consumer.accept(partialLine.toString(StandardCharsets.UTF_8));
+						partialLine.reset();
+					} else {
+						consumer.accept(new String(array, start, end - start, StandardCharsets.UTF_8));
+					}
+					
+					start = i + 1;
+					lines++;
+				}
+			}
+			
+			partialLine.write(array, start, buffer.limit() - start);
+		}
+		
+		return lines;
+	}
+	
+	/**
+	 * Checks if the file was replaced since it was opened. A file that is gone is not replaced yet, the old one is kept
+	 * until a new one appears.
+	 */
+	private boolean isReplaced() throws IOException {
+		if (fileKey == null) {
+			return false;
+		}
+		
+		try {
+			return !fileKey.equals(Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey());
+		} catch (NoSuchFileException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Gets the file being tailed.
+	 *
+	 * @return The tailed file.
+	 */
+	public File getFile() {
+		return file;
+	}
+	
+	/**
+	 * Gets the position up to which the file has been read.
+	 *
+	 * @return The read position in bytes.
+	 */
+	public long getPosition() {
+		return position;
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		closed = true;
+		
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+}
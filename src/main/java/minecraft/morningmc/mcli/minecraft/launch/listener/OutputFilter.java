@@ -0,0 +1,268 @@
+package minecraft.morningmc.mcli.minecraft.launch.listener;
+
+import org.apache.logging.log4j.Level;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Applies an {@link OutputPolicy} to the output of one Minecraft instance and counts what it drops.
+ * <p>
+ * Lines are checked in this order: level, deduplication, rate limit. Summaries of suppressed repeats
+ * and of rate-limited lines are emitted in place of the lines themselves, so the log stays readable.
+ */
+public class OutputFilter {
+	private volatile OutputPolicy policy;
+
+	private Level lastLevel = Level.INFO;
+
+	private String lastLine = null;
+	private Level lastLineLevel = Level.INFO;
+	private long repeats = 0;
+
+	private double tokens;
+	private long lastRefill = System.nanoTime();
+	private long overLimit = 0;
+	private long droppedSinceSummary = 0;
+
+	private long acceptedLines = 0;
+	private long levelDroppedLines = 0;
+	private long deduplicatedLines = 0;
+	private long rateDroppedLines = 0;
+	private long sampledLines = 0;
+
+	/**
+	 * Constructs an {@code OutputFilter} with the given policy.
+	 *
+	 * @param policy The output policy.
+	 */
+	public OutputFilter(OutputPolicy policy) {
+		this.policy = policy;
+		this.tokens = policy.rateLimit();
+	}
+
+	/**
+	 * Filters one line of output. The emitter is called after the filter is unlocked, so logging never holds up
+	 * the reader of the other pipe.
+	 *
+	 * @param line The line of output.
+	 * @param emitter Receives the lines to be logged with their level, including summaries of suppressed lines.
+	 */
+	public void accept(String line, BiConsumer<Level, String> emitter) {
+		List<Line> lines = new ArrayList<>(2);
+		synchronized (this) {
+			filter(line, lines);
+		}
+
+		for (Line emitted : lines) {
+			emitter.accept(emitted.level(), emitted.text());
+		}
+	}
+
+	private void filter(String line, List<Line> out) {
+		OutputPolicy policy = this.policy;
+
+		Level level = parseLevel(line);
+		if (level != null) {
+			lastLevel = level;
+		} else {
+			// continuation lines such as stack traces belong to the previous line
+			level = lastLevel;
+		}
+
+		if (!level.isMoreSpecificThan(policy.minimumLevel())) {
+			levelDroppedLines++;
+			return;
+		}
+
+		if (policy.deduplicate()) {
+			if (line.equals(lastLine)) {
+				repeats++;
+				deduplicatedLines++;
+				return;
+			}
+
+			flushRepeats(out);
+			lastLine = line;
+			lastLineLevel = level;
+		}
+
+		if (policy.rateLimit() > 0 && !takeToken(policy)) {
+			if (policy.sampleRate() == 0 || overLimit++ % policy.sampleRate() != 0) {
+				rateDroppedLines++;
+				droppedSinceSummary++;
+				return;
+			}
+
+			sampledLines++;
+		}
+
+		if (droppedSinceSummary > 0) {
+			out.add(new Line(Level.WARN, "[" + droppedSinceSummary + " lines dropped by rate limit]"));
+			droppedSinceSummary = 0;
+		}
+
+		acceptedLines++;
+		out.add(new Line(level, line));
+	}
+
+	/**
+	 * Emits the summaries of lines still held back, e.g. when the instance exits.
+	 *
+	 * @param emitter Receives the summary lines with their level.
+	 */
+	public void flush(BiConsumer<Level, String> emitter) {
+		List<Line> lines = new ArrayList<>(2);
+		synchronized (this) {
+			flushRepeats(lines);
+			lastLine = null;
+
+			if (droppedSinceSummary > 0) {
+				lines.add(new Line(Level.WARN, "[" + droppedSinceSummary + " lines dropped by rate limit]"));
+				droppedSinceSummary = 0;
+			}
+		}
+
+		for (Line emitted : lines) {
+			emitter.accept(emitted.level(), emitted.text());
+		}
+	}
+
+	private void flushRepeats(List<Line> out) {
+		if (repeats > 0) {
+			out.add(new Line(lastLineLevel, "[previous line repeated " + repeats + " more times]"));
+			repeats = 0;
+		}
+	}
+
+	private boolean takeToken(OutputPolicy policy) {
+		long now = System.nanoTime();
+		tokens = Math.min(policy.rateLimit(), tokens + (now - lastRefill) / 1_000_000_000.0 * policy.rateLimit());
+		lastRefill = now;
+
+		if (tokens >= 1) {
+			tokens--;
+			overLimit = 0;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Parses the level of a game log line such as {@code [12:34:56] [Render thread/WARN]: message}.
+	 *
+	 * @param line The line of output.
+	 * @return The level, or {@code null} if the line carries none.
+	 */
+	static Level parseLevel(String line) {
+		if (line.isEmpty() || line.charAt(0) != '[') {
+			return null;
+		}
+
+		// the level closes the second bracket, after the last slash of the thread name
+		int end = line.indexOf("]", line.indexOf("] [") + 3);
+		if (end < 0 || end > 128) {
+			return null;
+		}
+
+		int start = line.lastIndexOf('/', end) + 1;
+		if (start <= 0) {
+			return null;
+		}
+
+		return switch (line.substring(start, end)) {
+			case "TRACE" -> Level.TRACE;
+			case "DEBUG" -> Level.DEBUG;
+			case "INFO" -> Level.INFO;
+			case "WARN" -> Level.WARN;
+			case "ERROR" -> Level.ERROR;
+			case "FATAL" -> Level.FATAL;
+			default -> null;
+		};
+	}
+
+	// Getters
+	/**
+	 * Gets the output policy.
+	 *
+	 * @return The output policy.
+	 */
+	public OutputPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Gets the number of lines that were logged.
+	 *
+	 * @return The number of accepted lines.
+	 */
+	public synchronized long getAcceptedLines() {
+		return acceptedLines;
+	}
+
+	/**
+	 * Gets the number of lines dropped for being below the minimum level.
+	 *
+	 * @return The number of lines dropped by level.
+	 */
+	public synchronized long getLevelDroppedLines() {
+		return levelDroppedLines;
+	}
+
+	/**
+	 * Gets the number of repeated lines that were collapsed.
+	 *
+	 * @return The number of suppressed repeats.
+	 */
+	public synchronized long getDeduplicatedLines() {
+		return deduplicatedLines;
+	}
+
+	/**
+	 * Gets the number of lines dropped by the rate limit.
+	 *
+	 * @return The number of lines dropped by rate.
+	 */
+	public synchronized long getRateDroppedLines() {
+		return rateDroppedLines;
+	}
+
+	/**
+	 * Gets the number of lines logged by sampling while over the rate limit.
+	 *
+	 * @return The number of sampled lines.
+	 */
+	public synchronized long getSampledLines() {
+		return sampledLines;
+	}
+
+	/**
+	 * Gets the total number of lines that were not logged.
+	 *
+	 * @return The number of dropped and suppressed lines.
+	 */
+	public synchronized long getDroppedLines() {
+		return levelDroppedLines + deduplicatedLines + rateDroppedLines;
+	}
+
+	// Setters
+	/**
+	 * Sets the output policy. Takes effect from the next line.
+	 *
+	 * @param policy The new output policy.
+	 */
+	public void setPolicy(OutputPolicy policy) {
+		this.policy = policy;
+	}
+
+	// Overrides
+	@Override
+	public synchronized String toString() {
+		return "%d lines logged (%d sampled), %d dropped by level, %d deduplicated, %d dropped by rate"
+				       .formatted(acceptedLines, sampledLines, levelDroppedLines, deduplicatedLines, rateDroppedLines);
+	}
+
+	private record Line(Level level, String text) {}
+}
@@ -0,0 +1,35 @@
+package minecraft.morningmc.mcli.minecraft.launch.listener;
+
+import org.apache.logging.log4j.Level;
+
+import java.util.Objects;
+
+/**
+ * A record that describes how the output of a Minecraft instance is thinned out before it is logged.
+ * The output pipes are always drained regardless of the policy, so the game never blocks on a full buffer.
+ *
+ * @param rateLimit The maximum number of lines logged per second, or 0 for no limit.
+ * @param sampleRate While over the rate limit, one of every {@code sampleRate} lines is still logged, or 0 to drop them all.
+ * @param deduplicate Whether repeated consecutive lines are collapsed into one line with a count.
+ * @param minimumLevel The minimum level of lines to be logged. Lines without a level inherit the previous line's level.
+ *
+ * @see OutputFilter
+ */
+public record OutputPolicy(int rateLimit, int sampleRate, boolean deduplicate, Level minimumLevel) {
+	/** The policy that logs every line. */
+	public static final OutputPolicy UNLIMITED = new OutputPolicy(0, 0, false, Level.ALL);
+	
+	/** The default policy, which keeps a noisy instance from burning the launcher's CPU and disk. */
+	public static final OutputPolicy DEFAULT = new OutputPolicy(500, 100, true, Level.ALL);
+	
+	public OutputPolicy(int rateLimit, int sampleRate, boolean deduplicate, Level minimumLevel) {
+		if (rateLimit < 0 || sampleRate < 0) {
+			throw new IllegalArgumentException("Rate limit and sample rate cannot be negative");
+		}
+		
+		this.rateLimit = rateLimit;
+		this.sampleRate = sampleRate;
+		this.deduplicate = deduplicate;
+		this.minimumLevel = Objects.requireNonNull(minimumLevel);
+	}
+}
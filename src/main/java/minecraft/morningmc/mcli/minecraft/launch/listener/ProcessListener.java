@@ -1,31 +1,124 @@
 package minecraft.morningmc.mcli.minecraft.launch.listener;
 
+import minecraft.morningmc.mcli.minecraft.launch.LaunchArguments;
 import minecraft.morningmc.mcli.utils.annotations.LauncherProcess;
+import minecraft.morningmc.mcli.utils.exceptions.IllegalNbtException;
+import minecraft.morningmc.mcli.utils.interfaces.NbtLoader;
 
+import dev.dewy.nbt.tags.collection.CompoundTag;
+
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * A utility class for listening to the output streams (stdout, stderr) of a Minecraft process.
  * It provides separate threads for listening to stdout, stderr, and checking for process exit.
+ * <p>
+ * An instance that was started by a previous run of the launcher can be reattached by its process handle.
+ * Its pipes are lost, so its exit is tracked and its {@code logs/latest.log} is tailed by the {@link ResourceSampler} instead.
+ * <p>
+ * The lifecycle state of the instance is inferred from its output and exit code, and every change is published
+ * on the {@link InstanceEventBus}.
+ * <p>
+ * Output is always drained from the pipes, then thinned out by the instance's {@link OutputFilter} before it is logged
+ * through the {@code Minecraft} logger, and only the most recent lines are kept in memory.
  */
 @LauncherProcess("launch")
 public class ProcessListener {
 	private static final Logger LOGGER = LogManager.getLogger();
+	private static final Logger GAME_LOGGER = LogManager.getLogger("Minecraft");
+	
+	/** The maximum number of recent output lines kept in memory per instance. */
+	public static final int MAX_KEPT_LINES = 5000;
+	
+	/** Output markers of the game reaching a lifecycle state. */
+	private static final String[] READY_MARKERS = { "Backend library: LWJGL", "LWJGL Version:" };
+	private static final String[] RUNNING_MARKERS = { "Sound engine started" };
+	private static final String[] CRASH_MARKERS = { "#@!@# Game crashed!", "---- Minecraft Crash Report ----" };
+	
+	/** NbtLoader for loading and saving {@code ProcessListener} objects from/to NBT data. */
+	public static final NbtLoader<ProcessListener, CompoundTag> LOADER = new NbtLoader<>() {
+		
+		/**
+		 * Reattaches to a live instance from an NBT compound tag.
+		 *
+		 * @param tag The NBT compound tag representing the instance.
+		 * @return The reattached {@code ProcessListener}, or null if the instance is no longer running.
+		 * @throws IllegalNbtException If the NBT data is invalid or missing required information.
+		 */
+		@Override
+		public ProcessListener loadFromNbt(CompoundTag tag) throws IllegalNbtException {
+			try {
+				Optional<ProcessHandle> handle = ProcessHandle.of(tag.getLong("pid").getValue());
+				if (handle.isEmpty() || !handle.get().isAlive()) {
+					return null;
+				}
+				
+				return reattach(handle.get(), tag);
+				
+			} catch (Exception e) {
+				throw new IllegalNbtException("Invalid instance: " + e.getMessage(), e);
+			}
+		}
+		
+		/**
+		 * Saves the identity of an instance to an NBT compound tag.
+		 *
+		 * @param object The {@code ProcessListener} to be saved.
+		 * @return The NBT compound tag representing the instance.
+		 */
+		@Override
+		public CompoundTag saveToNbt(ProcessListener object) {
+			CompoundTag tag = new CompoundTag();
+			
+			tag.putLong("pid", object.pid);
+			tag.putLong("startTime", object.startTime != null ? object.startTime.toEpochMilli() : -1);
+			tag.putByte("gcLogging", (byte) (object.gcLogMonitor != null ? 1 : 0));
+			
+			if (object.profileName != null) {
+				tag.putString("profile", object.profileName);
+			}
+			if (object.directory != null) {
+				tag.putString("directory", object.directory.getAbsolutePath());
+			}
+			
+			return tag;
+		}
+	};
 	
 	private final Process minecraftInstance;
+	private final ProcessHandle handle;
 	private final long pid;
+	private final Instant startTime;
+	
+	private final String profileName;
+	private final File directory;
 	
 	private volatile boolean running = true;
+	private final AtomicReference<InstanceState> state;
+	private volatile boolean crashReported = false;
 	
 	private final Thread stdOutListener;
 	private final Thread stdErrListener;
 	private final Thread exitChecker;
+	private final LogTailer latestLogTailer;
 	
-	private final List<String> minecraftLogs;
+	private final Deque<String> minecraftLogs = new ArrayDeque<>();
+	private final List<Consumer<String>> outputListeners = new CopyOnWriteArrayList<>();
+	private final OutputFilter outputFilter;
+	
+	private final ResourceUsage resourceUsage;
+	private final GcLogMonitor gcLogMonitor;
 	
 	/**
 	 * Constructs a ProcessListener for the given Minecraft process.
@@ -33,20 +126,113 @@ public class ProcessListener {
 	 * @param minecraftInstance The Minecraft process to monitor.
 	 */
 	public ProcessListener(Process minecraftInstance) {
+		this(minecraftInstance, null);
+	}
+	
+	/**
+	 * Constructs a ProcessListener for the given Minecraft process launched with the given arguments.
+	 *
+	 * @param minecraftInstance The Minecraft process to monitor.
+	 * @param arguments The arguments the process was launched with, or {@code null} if unknown.
+	 */
+	public ProcessListener(Process minecraftInstance, LaunchArguments arguments) {
+		this(minecraftInstance, arguments, OutputPolicy.DEFAULT);
+	}
+	
+	/**
+	 * Constructs a ProcessListener for the given Minecraft process launched with the given arguments.
+	 * The output policy is in place before the output is read, so no line is filtered with another policy.
+	 *
+	 * @param minecraftInstance The Minecraft process to monitor.
+	 * @param arguments The arguments the process was launched with, or {@code null} if unknown.
+	 * @param outputPolicy The policy deciding which output lines are kept.
+	 */
+	public ProcessListener(Process minecraftInstance, LaunchArguments arguments, OutputPolicy outputPolicy) {
 		this.minecraftInstance = minecraftInstance;
+		handle = minecraftInstance.toHandle();
 		pid = minecraftInstance.pid();
+		startTime = handle.info().startInstant().orElse(null);
+		
+		profileName = arguments != null ? arguments.profile().getName() : null;
+		directory = arguments != null ? arguments.getDirectory() : null;
+		outputFilter = new OutputFilter(outputPolicy);
 		
 		stdOutListener = new Thread(() -> readerListener(minecraftInstance.inputReader()), "stdOutListener#" + pid);
 		stdErrListener = new Thread(() -> readerListener(minecraftInstance.errorReader()), "stdErrListener#" + pid);
 		exitChecker = new Thread(this::exitChecker, "exitChecker#" + pid);
-		minecraftLogs = List.of();
+		state = new AtomicReference<>(InstanceState.STARTING);
+		latestLogTailer = null;
+		resourceUsage = new ResourceUsage(pid);
+		gcLogMonitor = arguments != null && arguments.isGcLogging() ? new GcLogMonitor(pid) : null;
+		
+		// registered and published before any thread can see the instance exit
+		LOGGER.info("Started listening for Minecraft instance " + pid);
+		ProcessListenerCollection.add(this);
+		InstanceEventBus.publish(new InstanceEvent(this, null, InstanceState.STARTING, System.currentTimeMillis()));
 		
 		stdOutListener.start();
 		stdErrListener.start();
 		exitChecker.start();
+		ResourceSampler.start();
+	}
+	
+	/**
+	 * Constructs a ProcessListener for a running instance that was not started by this launcher process.
+	 *
+	 * @param handle The handle of the running Minecraft process.
+	 * @param startTime The start time of the process.
+	 * @param profileName The name of the profile the process was launched from, or {@code null} if unknown.
+	 * @param directory The game directory of the process, or {@code null} if unknown.
+	 * @param gcLogging Whether the process was launched with GC logging.
+	 */
+	private ProcessListener(ProcessHandle handle, Instant startTime, String profileName, File directory, boolean gcLogging) {
+		this.minecraftInstance = null;
+		this.handle = handle;
+		pid = handle.pid();
+		this.startTime = startTime;
 		
-		LOGGER.info("Started listening for Minecraft instance " + pid);
+		this.profileName = profileName;
+		this.directory = directory;
+		outputFilter = new OutputFilter(OutputPolicy.DEFAULT);
+		
+		stdOutListener = null;
+		stdErrListener = null;
+		exitChecker = null;
+		state = new AtomicReference<>(InstanceState.RUNNING);
+		resourceUsage = new ResourceUsage(pid);
+		gcLogMonitor = gcLogging ? new GcLogMonitor(pid) : null;
+		
+		// skip what was logged while the launcher was away
+		File latestLog = directory != null ? new File(directory, "logs/latest.log") : null;
+		latestLogTailer = latestLog != null ? new LogTailer(latestLog, this::handleLine, latestLog.length()) : null;
+		
+		LOGGER.info("Reattached to Minecraft instance " + pid);
 		ProcessListenerCollection.add(this);
+		InstanceEventBus.publish(new InstanceEvent(this, null, InstanceState.RUNNING, System.currentTimeMillis()));
+		ResourceSampler.start();
+	}
+	
+	/**
+	 * Reattaches to a running instance, checking that the process is the one described by the NBT data.
+	 *
+	 * @param handle The handle of the running process with the saved process ID.
+	 * @param tag The NBT compound tag saved by {@link #LOADER}.
+	 * @return The reattached {@code ProcessListener}, or null if the process ID has been reused by another process.
+	 */
+	static ProcessListener reattach(ProcessHandle handle, CompoundTag tag) {
+		long savedStartTime = tag.getLong("startTime").getValue();
+		Instant startTime = handle.info().startInstant().orElse(null);
+		
+		if (startTime == null || startTime.toEpochMilli() != savedStartTime) {
+			LOGGER.debug("Process " + handle.pid() + " is not the saved Minecraft instance anymore");
+			return null;
+		}
+		
+		String profileName = tag.contains("profile") ? tag.getString("profile").getValue() : null;
+		File directory = tag.contains("directory") ? new File(tag.getString("directory").getValue()) : null;
+		boolean gcLogging = tag.contains("gcLogging") && tag.getByte("gcLogging").getValue() != 0;
+		
+		return new ProcessListener(handle, startTime, profileName, directory, gcLogging);
 	}
 	
 	/**
@@ -54,12 +240,137 @@ public class ProcessListener {
 	 */
 	public void stop() {
 		running = false;
-		exitChecker.interrupt();
-		stdOutListener.interrupt();
-		stdErrListener.interrupt();
+		if (minecraftInstance != null) {
+			exitChecker.interrupt();
+			stdOutListener.interrupt();
+			stdErrListener.interrupt();
+		}
+		release();
+		
+		handle.destroy();
+		LOGGER.info("Stopped Minecraft instance " + pid);
+		transition(InstanceState.EXITED);
+		ProcessListenerCollection.remove(this);
+	}
+	
+	/**
+	 * Polls the instance once from the sampler thread: samples its resources, tails its logs
+	 * and, for a reattached instance, checks whether it has exited.
+	 *
+	 * @param buffer The shared buffer used to read the {@code /proc} files.
+	 * @param now The current time in nanoseconds.
+	 */
+	void poll(ByteBuffer buffer, long now) {
+		if (ResourceSampler.isSupported()) {
+			resourceUsage.sample(buffer, now);
+		}
+		
+		if (gcLogMonitor != null) {
+			gcLogMonitor.poll();
+		}
+		
+		if (latestLogTailer != null) {
+			try {
+				latestLogTailer.poll();
+			} catch (IOException e) {
+				LOGGER.debug("Failed to read latest.log of instance " + pid + ": " + e.getMessage());
+			}
+		}
+		
+		if (minecraftInstance == null && !handle.isAlive()) {
+			// the exit code of a process that is not our child cannot be known
+			LOGGER.info("Reattached Minecraft process " + pid + " exited");
+			exited(crashReported);
+		}
+	}
+	
+	/**
+	 * Releases the resources held for monitoring the instance.
+	 */
+	private void release() {
+		resourceUsage.close();
+		
+		if (gcLogMonitor != null) {
+			gcLogMonitor.close();
+		}
+		
+		if (latestLogTailer != null) {
+			try {
+				latestLogTailer.close();
+			} catch (IOException ignored) {}
+		}
+	}
+	
+	/**
+	 * Marks the instance as exited and removes it from the collection.
+	 *
+	 * @param crashed Whether the instance has crashed.
+	 */
+	private void exited(boolean crashed) {
+		running = false;
+		
+		if (gcLogMonitor != null) {
+			gcLogMonitor.poll();
+			LOGGER.info("GC statistics of instance " + pid + ": " + gcLogMonitor);
+		}
+		release();
+		if (gcLogMonitor != null) {
+			gcLogMonitor.delete();
+		}
+		outputFilter.flush(this::emit);
+		LOGGER.info("Output of instance " + pid + ": " + outputFilter);
 		
-		minecraftInstance.destroy();
-		LOGGER.info("Stopped Minecraft instance " + minecraftInstance.pid());
+		transition(crashed ? InstanceState.CRASHED : InstanceState.EXITED);
+		ProcessListenerCollection.remove(this);
+	}
+	
+	/**
+	 * Moves the instance forward to the given state and publishes the change.
+	 * Moving backwards, or away from a terminal state, is ignored.
+	 *
+	 * @param next The new state.
+	 */
+	private void transition(InstanceState next) {
+		InstanceState current;
+		
+		do {
+			current = state.get();
+			if (current.isTerminal() || next.ordinal() <= current.ordinal()) {
+				return;
+			}
+		} while (!state.compareAndSet(current, next));
+		
+		LOGGER.debug("Minecraft instance " + pid + " is " + next);
+		InstanceEventBus.publish(new InstanceEvent(this, current, next, System.currentTimeMillis()));
+	}
+	
+	/**
+	 * Infers the lifecycle state of the instance from a line of output.
+	 *
+	 * @param line The line of output.
+	 */
+	private void detectState(String line) {
+		InstanceState current = state.get();
+		
+		if (current.ordinal() < InstanceState.READY.ordinal() && containsAny(line, READY_MARKERS)) {
+			transition(InstanceState.READY);
+		} else if (current.ordinal() < InstanceState.RUNNING.ordinal() && containsAny(line, RUNNING_MARKERS)) {
+			transition(InstanceState.RUNNING);
+		}
+		
+		if (!crashReported && containsAny(line, CRASH_MARKERS)) {
+			crashReported = true;
+		}
+	}
+	
+	private static boolean containsAny(String line, String[] markers) {
+		for (String marker : markers) {
+			if (line.contains(marker)) {
+				return true;
+			}
+		}
+		
+		return false;
 	}
 	
 	// Thread Operations
@@ -73,8 +384,7 @@ public class ProcessListener {
 			String line;
 			
 			while (running && (line = reader.readLine()) != null) {
-				LOGGER.info("[Minecraft Log #" + pid + "] " + line);
-				minecraftLogs.add(line);
+				handleLine(line);
 			}
 			
 		} catch (IOException e) {
@@ -82,6 +392,68 @@ public class ProcessListener {
 		}
 	}
 	
+	/**
+	 * Handles a line of output, either read from a pipe or tailed from {@code logs/latest.log}.
+	 *
+	 * @param line The line of output.
+	 */
+	private void handleLine(String line) {
+		detectState(line);
+		outputFilter.accept(line, this::emit);
+	}
+	
+	/**
+	 * Logs a line of output that passed the output filter and keeps it in memory.
+	 *
+	 * @param level The level of the line.
+	 * @param line The line of output.
+	 */
+	private void emit(Level level, String line) {
+		GAME_LOGGER.log(level, "[#{}] {}", pid, line);
+		
+		synchronized (minecraftLogs) {
+			if (minecraftLogs.size() >= MAX_KEPT_LINES) {
+				minecraftLogs.removeFirst();
+			}
+			minecraftLogs.addLast(line);
+			
+			for (Consumer<String> listener : outputListeners) {
+				listener.accept(line);
+			}
+		}
+	}
+	
+	/**
+	 * Adds a listener receiving every line of output that passes the output filter.
+	 * The lines kept in memory are replayed first, so no line is missed or repeated.
+	 *
+	 * @param listener The listener, called on the thread reading the output.
+	 */
+	public void addOutputListener(Consumer<String> listener) {
+		synchronized (minecraftLogs) {
+			minecraftLogs.forEach(listener);
+			outputListeners.add(listener);
+		}
+	}
+	
+	/**
+	 * Waits for the launched process to exit and its output to be drained.
+	 *
+	 * @return The exit code of the process.
+	 * @throws InterruptedException If interrupted while waiting.
+	 * @throws IllegalStateException If the instance was reattached, as the exit code of a process that is not our child cannot be known.
+	 */
+	public int waitFor() throws InterruptedException {
+		if (minecraftInstance == null) {
+			throw new IllegalStateException("Cannot wait for reattached instance " + pid);
+		}
+		
+		int exitCode = minecraftInstance.waitFor();
+		exitChecker.join();
+		
+		return exitCode;
+	}
+	
 	/**
 	 * Checks for the exit status of the Minecraft process and logs the exit code.
 	 */
@@ -90,8 +462,11 @@ public class ProcessListener {
 			int exitCode = minecraftInstance.waitFor();
 			LOGGER.info("Minecraft process exited with code: " + exitCode);
 			
-			running = false;
-			ProcessListenerCollection.remove(this);
+			// let the listeners drain what is left in the pipes, e.g. a crash report
+			stdOutListener.join(TimeUnit.SECONDS.toMillis(1));
+			stdErrListener.join(TimeUnit.SECONDS.toMillis(1));
+			
+			exited(exitCode != 0 || crashReported);
 			
 		} catch (InterruptedException e) {
 			LOGGER.error("exitChecker interrupted: ", e);
@@ -102,12 +477,30 @@ public class ProcessListener {
 	/**
 	 * Gets the Minecraft process being monitored.
 	 *
-	 * @return The Minecraft process.
+	 * @return The Minecraft process, or {@code null} if the instance was reattached.
 	 */
 	public Process getMinecraftInstance() {
 		return minecraftInstance;
 	}
 	
+	/**
+	 * Gets the handle of the Minecraft process being monitored.
+	 *
+	 * @return The process handle.
+	 */
+	public ProcessHandle getHandle() {
+		return handle;
+	}
+	
+	/**
+	 * Checks if the instance was reattached after a launcher restart, in which case its pipes are not available.
+	 *
+	 * @return {@code true} if reattached, {@code false} if started by this launcher process.
+	 */
+	public boolean isReattached() {
+		return minecraftInstance == null;
+	}
+	
 	/**
 	 * Gets the process ID of the Minecraft process.
 	 *
@@ -117,6 +510,33 @@ public class ProcessListener {
 		return pid;
 	}
 	
+	/**
+	 * Gets the start time of the Minecraft process.
+	 *
+	 * @return The start time, or {@code null} if not available on this platform.
+	 */
+	public Instant getStartTime() {
+		return startTime;
+	}
+	
+	/**
+	 * Gets the name of the profile the Minecraft process was launched from.
+	 *
+	 * @return The profile name, or {@code null} if unknown.
+	 */
+	public String getProfileName() {
+		return profileName;
+	}
+	
+	/**
+	 * Gets the game directory of the Minecraft process.
+	 *
+	 * @return The game directory, or {@code null} if unknown.
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+	
 	/**
 	 * Checks if the ProcessListener is still running.
 	 *
@@ -126,10 +546,19 @@ public class ProcessListener {
 		return running;
 	}
 	
+	/**
+	 * Gets the lifecycle state of the Minecraft process.
+	 *
+	 * @return The current state.
+	 */
+	public InstanceState getState() {
+		return state.get();
+	}
+	
 	/**
 	 * Gets the thread responsible for listening to stdout.
 	 *
-	 * @return The stdout listener thread.
+	 * @return The stdout listener thread, or {@code null} if the instance was reattached.
 	 */
 	public Thread getStdOutListener() {
 		return stdOutListener;
@@ -138,7 +567,7 @@ public class ProcessListener {
 	/**
 	 * Gets the thread responsible for listening to stderr.
 	 *
-	 * @return The stderr listener thread.
+	 * @return The stderr listener thread, or {@code null} if the instance was reattached.
 	 */
 	public Thread getStdErrListener() {
 		return stdErrListener;
@@ -147,25 +576,63 @@ public class ProcessListener {
 	/**
 	 * Gets the thread responsible for checking the process exit.
 	 *
-	 * @return The exit checker thread.
+	 * @return The exit checker thread, or {@code null} if the instance was reattached.
 	 */
 	public Thread getExitChecker() {
 		return exitChecker;
 	}
 	
 	/**
-	 * Gets the Minecraft logs collected during the process.
+	 * Gets the most recent Minecraft logs collected during the process, up to {@link #MAX_KEPT_LINES} lines.
 	 *
-	 * @return The list of Minecraft logs.
+	 * @return A snapshot of the Minecraft logs.
 	 */
 	public List<String> getMinecraftLogs() {
-		return minecraftLogs;
+		synchronized (minecraftLogs) {
+			return List.copyOf(minecraftLogs);
+		}
+	}
+	
+	/**
+	 * Gets the output filter of the process, which also exports the drop and suppression counters.
+	 *
+	 * @return The output filter.
+	 */
+	public OutputFilter getOutputFilter() {
+		return outputFilter;
+	}
+	
+	/**
+	 * Sets the output policy of the process.
+	 *
+	 * @param policy The new output policy.
+	 */
+	public void setOutputPolicy(OutputPolicy policy) {
+		outputFilter.setPolicy(policy);
+	}
+	
+	/**
+	 * Gets the latest resource usage sampled by the {@link ResourceSampler}.
+	 *
+	 * @return The resource usage of the Minecraft process.
+	 */
+	public ResourceUsage getResourceUsage() {
+		return resourceUsage;
+	}
+	
+	/**
+	 * Gets the GC pause statistics of the Minecraft process.
+	 *
+	 * @return The GC log monitor, or {@code null} if the process was not launched with GC logging.
+	 */
+	public GcLogMonitor getGcLogMonitor() {
+		return gcLogMonitor;
 	}
 	
 	// Overrides
 	@Override
 	public String toString() {
-		return "Minecraft Instance " + minecraftInstance.pid();
+		return "Minecraft Instance " + pid;
 	}
 	
 	@Override
@@ -179,11 +646,11 @@ public class ProcessListener {
 		}
 		
 		ProcessListener that = (ProcessListener) o;
-		return Objects.equals(minecraftInstance, that.minecraftInstance);
+		return pid == that.pid && Objects.equals(startTime, that.startTime);
 	}
 	
 	@Override
 	public int hashCode() {
-		return Objects.hash(minecraftInstance);
+		return Objects.hash(pid, startTime);
 	}
 }
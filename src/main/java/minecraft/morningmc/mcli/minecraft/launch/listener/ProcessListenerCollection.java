@@ -1,22 +1,110 @@
 package minecraft.morningmc.mcli.minecraft.launch.listener;
 
+import minecraft.morningmc.mcli.launcher.config.ConfigStore;
+import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
 import minecraft.morningmc.mcli.utils.annotations.ObjectCollection;
+import minecraft.morningmc.mcli.utils.exceptions.IllegalNbtException;
+import minecraft.morningmc.mcli.utils.interfaces.NbtLoader;
+
+import dev.dewy.nbt.Nbt;
+import dev.dewy.nbt.tags.collection.CompoundTag;
+import dev.dewy.nbt.tags.collection.ListTag;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.*;
 
 /**
  * A collection of process listeners.
+ * <p>
+ * The identity of every live instance is persisted to {@link FileMetadata#INSTANCES} whenever the collection changes,
+ * so that a restarted launcher can reattach to the instances it started before.
+ * <p>
+ * The collection is safe to read from any thread. To follow the lifecycle of the instances without polling,
+ * subscribe to the {@link InstanceEventBus}.
  */
 @ObjectCollection
 public class ProcessListenerCollection {
 	private static final Logger LOGGER = LogManager.getLogger();
 	
+	/** NbtLoader for loading and saving {@code ProcessListenerCollection} objects from/to NBT data. */
+	public static final NbtLoader<ProcessListenerCollection, ListTag<CompoundTag>> LOADER = new NbtLoader<>() {
+		
+		/**
+		 * Reattaches to the instances saved in a list of NBT compound tags that are still running.
+		 * The process table is scanned once, so only the saved instances that are alive get inspected further.
+		 *
+		 * @param tag The list of NBT compound tags representing instances.
+		 * @return The loaded ProcessListenerCollection object.
+		 * @throws IllegalNbtException If the NBT data is invalid or missing required information.
+		 */
+		@Override
+		public ProcessListenerCollection loadFromNbt(ListTag<CompoundTag> tag) throws IllegalNbtException {
+			Map<Long, CompoundTag> saved = new HashMap<>();
+			for (CompoundTag subTag : tag) {
+				try {
+					saved.put(subTag.getLong("pid").getValue(), subTag);
+				} catch (Exception e) {
+					LOGGER.warn("Failed to load instance from NBT: " + e.getMessage());
+				}
+			}
+			
+			if (saved.isEmpty()) {
+				return instance;
+			}
+			
+			long startTime = System.currentTimeMillis();
+			
+			List<ProcessHandle> alive;
+			try (Stream<ProcessHandle> processes = ProcessHandle.allProcesses()) {
+				alive = processes.filter(handle -> saved.containsKey(handle.pid())).toList();
+			}
+			
+			// save once at the end instead of once per reattached instance
+			int reattached = 0;
+			instance.loading = true;
+			try {
+				for (ProcessHandle handle : alive) {
+					if (ProcessListener.reattach(handle, saved.get(handle.pid())) != null) {
+						reattached++;
+					}
+				}
+			} finally {
+				instance.loading = false;
+				save();
+			}
+			
+			LOGGER.info("Reattached to " + reattached + " of " + saved.size() + " saved Minecraft instances in " + (System.currentTimeMillis() - startTime) + " ms");
+			return instance;
+		}
+		
+		/**
+		 * Saves a {@code ProcessListenerCollection} object to a list of NBT compound tags.
+		 *
+		 * @param object The ProcessListenerCollection object to be saved.
+		 * @return The list of NBT compound tags representing instances.
+		 */
+		@Override
+		public ListTag<CompoundTag> saveToNbt(ProcessListenerCollection object) {
+			ListTag<CompoundTag> tag = new ListTag<>();
+			
+			object.listeners.values().stream()
+					.map(ProcessListener.LOADER::saveToNbt)
+					.forEach(tag::add);
+			
+			return tag;
+		}
+	};
+	
 	public static ProcessListenerCollection instance = new ProcessListenerCollection();
 	
-	public Map<Long, ProcessListener> listeners;
+	public final Map<Long, ProcessListener> listeners = new ConcurrentHashMap<>();
+	
+	private volatile boolean loading = false;
 	
 	/**
 	 * Gets the set of process listeners in the collection.
@@ -27,6 +115,18 @@ public class ProcessListenerCollection {
 		return instance.listeners.values();
 	}
 	
+	/**
+	 * Gets the process listeners whose instances are in the given lifecycle state.
+	 *
+	 * @param state The lifecycle state.
+	 * @return The list of process listeners in that state.
+	 */
+	public static List<ProcessListener> get(InstanceState state) {
+		return instance.listeners.values().stream()
+				       .filter(listener -> listener.getState() == state)
+				       .toList();
+	}
+	
 	/**
 	 * Add a process listener to the collection.
 	 *
@@ -34,6 +134,10 @@ public class ProcessListenerCollection {
 	 */
 	public static void add(ProcessListener listener) {
 		instance.listeners.put(listener.getPid(), listener);
+		
+		if (!instance.loading) {
+			save();
+		}
 	}
 	
 	/**
@@ -42,7 +146,9 @@ public class ProcessListenerCollection {
 	 * @param listener The process listener to be removed.
 	 */
 	public static void remove(ProcessListener listener) {
-		instance.listeners.remove(listener.getPid());
+		if (instance.listeners.remove(listener.getPid(), listener)) {
+			save();
+		}
 	}
 	
 	/**
@@ -54,4 +160,33 @@ public class ProcessListenerCollection {
 	public static ProcessListener resolve(long pid) {
 		return instance.listeners.get(pid);
 	}
+	
+	/**
+	 * Reattaches to the instances saved in {@link FileMetadata#INSTANCES} that are still running.
+	 */
+	public static void load() {
+		if (!FileMetadata.INSTANCES.isFile()) {
+			return;
+		}
+		
+		try {
+			LOADER.loadFromNbt(new Nbt().fromFile(FileMetadata.INSTANCES).getList("instances"));
+		} catch (Exception e) {
+			LOGGER.warn("Failed to load instances: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Saves the live instances to {@link FileMetadata#INSTANCES}, replacing the file atomically.
+	 */
+	private static synchronized void save() {
+		CompoundTag tag = new CompoundTag();
+		tag.put("instances", LOADER.saveToNbt(instance));
+		
+		try {
+			ConfigStore.writeAtomically(new Nbt(), tag, FileMetadata.INSTANCES);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to save instances: " + e.getMessage());
+		}
+	}
 }
@@ -0,0 +1,121 @@
+package minecraft.morningmc.mcli.minecraft.launch.listener;
+
+import minecraft.morningmc.mcli.utils.Platform;
+import minecraft.morningmc.mcli.utils.annotations.LauncherProcess;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.*;
+
+/**
+ * Periodically samples the resource usage of every live instance in {@link ProcessListenerCollection}.
+ * <p>
+ * A single scheduled thread covers all instances and reads {@code /proc} through one reused buffer,
+ * so sampling does not create garbage per instance. Sampling is only available on Linux.
+ * The same thread also tails the GC logs of instances launched with GC logging, and tails
+ * {@code logs/latest.log} and tracks the exit of reattached instances.
+ *
+ * @see ResourceUsage
+ * @see GcLogMonitor
+ */
+@LauncherProcess("launch")
+public class ResourceSampler implements Runnable {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The default interval between two samples in milliseconds. */
+	public static final long DEFAULT_INTERVAL = 1000;
+	
+	public static final ResourceSampler instance = new ResourceSampler();
+	
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(8192);
+	
+	private ScheduledExecutorService executor = null;
+	private long interval = DEFAULT_INTERVAL;
+	
+	/**
+	 * Checks if resource sampling is supported on the current platform.
+	 *
+	 * @return {@code true} if {@code /proc} can be sampled, {@code false} otherwise.
+	 */
+	public static boolean isSupported() {
+		return Platform.SYSTEM.operatingSystem() == Platform.OperatingSystem.LINUX;
+	}
+	
+	/**
+	 * Starts the sampler thread if it is not already running.
+	 */
+	public static synchronized void start() {
+		if (!isSupported()) {
+			LOGGER.debug("Resource sampling is not supported on " + Platform.SYSTEM);
+		}
+		
+		if (instance.executor == null) {
+			instance.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "resourceSampler");
+				thread.setDaemon(true);
+				return thread;
+			});
+			instance.executor.scheduleWithFixedDelay(instance, 0, instance.interval, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	/**
+	 * Stops the sampler thread.
+	 */
+	public static synchronized void stop() {
+		if (instance.executor != null) {
+			instance.executor.shutdownNow();
+			instance.executor = null;
+		}
+	}
+	
+	/**
+	 * Sets the interval between two samples, restarting the sampler if it is running.
+	 *
+	 * @param interval The interval in milliseconds.
+	 * @throws IllegalArgumentException If {@code interval} is not positive.
+	 */
+	public static synchronized void setInterval(long interval) {
+		if (interval <= 0) {
+			throw new IllegalArgumentException("Sample interval must be positive");
+		}
+		
+		instance.interval = interval;
+		
+		if (instance.executor != null) {
+			stop();
+			start();
+		}
+	}
+	
+	/**
+	 * Gets the interval between two samples.
+	 *
+	 * @return The interval in milliseconds.
+	 */
+	public static synchronized long getInterval() {
+		return instance.interval;
+	}
+	
+	/**
+	 * Samples every live instance once.
+	 */
+	@Override
+	public void run() {
+		try {
+			long now = System.nanoTime();
+			
+			for (ProcessListener listener : ProcessListenerCollection.get()) {
+				if (listener.isRunning()) {
+					listener.poll(buffer, now);
+				}
+			}
+			
+		} catch (Exception e) {
+			// an escaping exception would cancel the schedule
+			LOGGER.warn("Failed to sample instances: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,325 @@
+package minecraft.morningmc.mcli.minecraft.launch.listener;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the latest resource usage of a Minecraft instance, as read from {@code /proc/<pid>}.
+ * <p>
+ * The {@code stat}, {@code status} and {@code io} files are kept open and re-read from offset zero
+ * on every sample, and parsed straight from the sampler's buffer without creating strings.
+ *
+ * @see ResourceSampler
+ */
+public class ResourceUsage {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/**
+	 * Clock ticks per second used by {@code /proc/<pid>/stat} ({@code USER_HZ}), as reported by {@code getconf CLK_TCK}.
+	 * Falls back to 100, the value of every mainstream kernel, if it cannot be read.
+	 */
+	private static final int CLOCK_TICKS = readClockTicks();
+	
+	private static final byte[] VM_RSS = "VmRSS:".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] READ_BYTES = "read_bytes:".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] WRITE_BYTES = "write_bytes:".getBytes(StandardCharsets.US_ASCII);
+	
+	private final long pid;
+	
+	private FileChannel stat;
+	private FileChannel status;
+	private FileChannel io;
+	private boolean closed = false;
+	
+	private long lastTicks = -1;
+	private long lastSampleTime = -1;
+	
+	private volatile double cpuUsage = 0;
+	private volatile long residentMemory = 0;
+	private volatile int threadCount = 0;
+	private volatile long readBytes = 0;
+	private volatile long writtenBytes = 0;
+	private volatile long sampleTime = 0;
+	
+	/**
+	 * Constructs a {@code ResourceUsage} for the given process.
+	 *
+	 * @param pid The process ID of the Minecraft instance.
+	 */
+	public ResourceUsage(long pid) {
+		this.pid = pid;
+	}
+	
+	/**
+	 * Samples the process once. Only called from the sampler thread.
+	 *
+	 * @param buffer The shared buffer used to read the {@code /proc} files.
+	 * @param now The current time in nanoseconds.
+	 * @return {@code true} if the process could be sampled, {@code false} if it has gone away.
+	 */
+	synchronized boolean sample(ByteBuffer buffer, long now) {
+		if (closed) {
+			return false;
+		}
+		
+		try {
+			if (stat == null) {
+				Path root = Path.of("/proc", Long.toString(pid));
+				stat = FileChannel.open(root.resolve("stat"), StandardOpenOption.READ);
+				status = FileChannel.open(root.resolve("status"), StandardOpenOption.READ);
+				
+				try {
+					io = FileChannel.open(root.resolve("io"), StandardOpenOption.READ);
+				} catch (IOException e) {
+					LOGGER.debug("/proc/" + pid + "/io is not readable, disk I/O will not be sampled");
+				}
+			}
+			
+			// stat: fields after the command name, which is enclosed in parentheses and may contain spaces
+			if (read(stat, buffer) <= 0) {
+				close();
+				return false;
+			}
+			
+			int position = lastIndexOf(buffer, (byte) ')') + 2;
+			long ticks = 0;
+			int threads = 0;
+			
+			for (int field = 3; position < buffer.limit() && field <= 20; field++) {
+				int end = indexOf(buffer, (byte) ' ', position);
+				
+				switch (field) {
+					case 14, 15 -> ticks += parseLong(buffer, position, end);
+					case 20 -> threads = (int) parseLong(buffer, position, end);
+				}
+				
+				position = end + 1;
+			}
+			
+			if (lastTicks >= 0 && now > lastSampleTime) {
+				double elapsedSeconds = (now - lastSampleTime) / 1_000_000_000.0;
+				cpuUsage = (ticks - lastTicks) * 100.0 / CLOCK_TICKS / elapsedSeconds;
+			}
+			lastTicks = ticks;
+			lastSampleTime = now;
+			threadCount = threads;
+			
+			// status: VmRSS in kB
+			read(status, buffer);
+			residentMemory = findLong(buffer, VM_RSS) * 1024;
+			
+			// io: storage-level bytes read and written
+			if (io != null) {
+				read(io, buffer);
+				readBytes = findLong(buffer, READ_BYTES);
+				writtenBytes = findLong(buffer, WRITE_BYTES);
+			}
+			
+			sampleTime = System.currentTimeMillis();
+			return true;
+			
+		} catch (IOException e) {
+			close();
+			return false;
+		}
+	}
+	
+	/**
+	 * Closes the {@code /proc} files held by this {@code ResourceUsage}.
+	 */
+	synchronized void close() {
+		closed = true;
+		
+		for (FileChannel channel : new FileChannel[] { stat, status, io }) {
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException ignored) {}
+			}
+		}
+		
+		stat = status = io = null;
+	}
+	
+	// Parsing
+	/**
+	 * Reads a whole {@code /proc} file from offset zero into the buffer, then flips it for reading.
+	 *
+	 * @param channel The channel to read from.
+	 * @param buffer The buffer to read into.
+	 * @return The number of bytes read.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private static int read(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.clear();
+		
+		int total = 0;
+		for (int read; buffer.hasRemaining() && (read = channel.read(buffer, total)) > 0; ) {
+			total += read;
+		}
+		
+		buffer.flip();
+		return total;
+	}
+	
+	private static int indexOf(ByteBuffer buffer, byte target, int from) {
+		for (int i = from; i < buffer.limit(); i++) {
+			if (buffer.get(i) == target) {
+				return i;
+			}
+		}
+		
+		return buffer.limit();
+	}
+	
+	private static int lastIndexOf(ByteBuffer buffer, byte target) {
+		for (int i = buffer.limit() - 1; i >= 0; i--) {
+			if (buffer.get(i) == target) {
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	private static long parseLong(ByteBuffer buffer, int from, int to) {
+		long value = 0;
+		
+		for (int i = from; i < to; i++) {
+			byte b = buffer.get(i);
+			if (b >= '0' && b <= '9') {
+				value = value * 10 + (b - '0');
+			} else if (value != 0) {
+				break;
+			}
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Finds the number that follows a {@code key:} at the start of a line.
+	 *
+	 * @param buffer The buffer holding the file.
+	 * @param key The key, including the colon.
+	 * @return The value, or 0 if the key is not found.
+	 */
+	private static long findLong(ByteBuffer buffer, byte[] key) {
+		outer:
+		for (int i = 0; i <= buffer.limit() - key.length; i = indexOf(buffer, (byte) '\n', i) + 1) {
+			for (int j = 0; j < key.length; j++) {
+				if (buffer.get(i + j) != key[j]) {
+					continue outer;
+				}
+			}
+			
+			return parseLong(buffer, i + key.length, indexOf(buffer, (byte) '\n', i));
+		}
+		
+		return 0;
+	}
+	
+	// Getters
+	/**
+	 * Gets the process ID of the sampled instance.
+	 *
+	 * @return The process ID.
+	 */
+	public long getPid() {
+		return pid;
+	}
+	
+	/**
+	 * Gets the CPU usage between the last two samples, where 100 means one fully used core.
+	 *
+	 * @return The CPU usage in percent.
+	 */
+	public double getCpuUsage() {
+		return cpuUsage;
+	}
+	
+	/**
+	 * Gets the resident set size of the process.
+	 *
+	 * @return The resident memory in bytes.
+	 */
+	public long getResidentMemory() {
+		return residentMemory;
+	}
+	
+	/**
+	 * Gets the number of threads of the process.
+	 *
+	 * @return The thread count.
+	 */
+	public int getThreadCount() {
+		return threadCount;
+	}
+	
+	/**
+	 * Gets the number of bytes the process has read from storage.
+	 *
+	 * @return The bytes read.
+	 */
+	public long getReadBytes() {
+		return readBytes;
+	}
+	
+	/**
+	 * Gets the number of bytes the process has written to storage.
+	 *
+	 * @return The bytes written.
+	 */
+	public long getWrittenBytes() {
+		return writtenBytes;
+	}
+	
+	/**
+	 * Gets the time of the last successful sample.
+	 *
+	 * @return The time in milliseconds since the epoch, or 0 if never sampled.
+	 */
+	public long getSampleTime() {
+		return sampleTime;
+	}
+	
+	private static int readClockTicks() {
+		try {
+			Process process = new ProcessBuilder("getconf", "CLK_TCK").redirectErrorStream(true).start();
+			try (BufferedReader reader = process.inputReader(StandardCharsets.US_ASCII)) {
+				String line = reader.readLine();
+				if (process.waitFor(1, TimeUnit.SECONDS) && process.exitValue() == 0 && line != null) {
+					int ticks = Integer.parseInt(line.strip());
+					if (ticks > 0) {
+						return ticks;
+					}
+				}
+			} finally {
+				process.destroy();
+			}
+		} catch (IOException | NumberFormatException e) {
+			LOGGER.debug("Failed to read CLK_TCK, assuming 100: " + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		return 100;
+	}
+	
+	// Overrides
+	@Override
+	public String toString() {
+		return "CPU %.1f%%, RSS %d MB, %d threads, read %d bytes, written %d bytes"
+				       .formatted(cpuUsage, residentMemory / 1024 / 1024, threadCount, readBytes, writtenBytes);
+	}
+	
+}
@@ -0,0 +1,201 @@
+package minecraft.morningmc.mcli.ui;
+
+import minecraft.morningmc.mcli.launcher.metadata.FileMetadata;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A cache of the icon images shown in the UI.
+ * <p>
+ * Icons are decoded once on a background executor, already downscaled to the size they are displayed at,
+ * and kept in an LRU cache bounded by {@link #MAX_BYTES}. Until an icon is decoded, a transparent placeholder
+ * of the same size is shown, so scrolling a list of profiles never decodes images on the FX thread.
+ */
+public class IconCache {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The maximum size of the cached images, counted as 4 bytes per pixel. */
+	public static final long MAX_BYTES = 32L << 20;
+	
+	private static final ExecutorService DECODER = Executors.newFixedThreadPool(2, runnable -> {
+		Thread thread = new Thread(runnable, "iconDecoder");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private static final Map<Key, Image> images = new LinkedHashMap<>(64, 0.75f, true);
+	private static final Map<Key, CompletableFuture<Image>> pending = new HashMap<>();
+	private static final Map<Integer, Image> placeholders = new ConcurrentHashMap<>();
+	
+	private static long bytes = 0;
+	
+	private IconCache() {}
+	
+	/**
+	 * Gets an icon image, to be bound to an image view. The image is the placeholder until the icon is decoded,
+	 * and stays the placeholder if the icon cannot be decoded.
+	 *
+	 * @param icon The resource path of the icon.
+	 * @param size The size the icon is displayed at, in pixels.
+	 * @return The property holding the icon image.
+	 */
+	public static ReadOnlyObjectProperty<Image> image(String icon, int size) {
+		Image cached = getIfPresent(icon, size);
+		if (cached != null) {
+			return new ReadOnlyObjectWrapper<>(cached).getReadOnlyProperty();
+		}
+		
+		ReadOnlyObjectWrapper<Image> image = new ReadOnlyObjectWrapper<>(placeholder(size));
+		load(icon, size).thenAccept(decoded -> {
+			if (decoded != null) {
+				Platform.runLater(() -> image.set(decoded));
+			}
+		});
+		
+		return image.getReadOnlyProperty();
+	}
+	
+	/**
+	 * Gets an icon image if it is already decoded.
+	 *
+	 * @param icon The resource path of the icon.
+	 * @param size The size the icon is displayed at, in pixels.
+	 * @return The icon image, or {@code null} if not decoded yet.
+	 */
+	public static Image getIfPresent(String icon, int size) {
+		if (icon == null) {
+			return null;
+		}
+		
+		synchronized (images) {
+			return images.get(new Key(icon, size));
+		}
+	}
+	
+	/**
+	 * Decodes an icon image in the background, unless it is cached or already being decoded.
+	 *
+	 * @param icon The resource path of the icon.
+	 * @param size The size the icon is displayed at, in pixels.
+	 * @return The future of the icon image, completed with {@code null} if the icon cannot be decoded.
+	 */
+	public static CompletableFuture<Image> load(String icon, int size) {
+		if (icon == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		
+		Key key = new Key(icon, size);
+		CompletableFuture<Image> future = new CompletableFuture<>();
+		
+		synchronized (images) {
+			Image cached = images.get(key);
+			if (cached != null) {
+				return CompletableFuture.completedFuture(cached);
+			}
+			
+			CompletableFuture<Image> present = pending.putIfAbsent(key, future);
+			if (present != null) {
+				return present;
+			}
+		}
+		
+		// the decoding is started outside of the lock, a decoding done already completes on this thread and caches the image
+		CompletableFuture.supplyAsync(() -> decode(key), DECODER).whenComplete((image, e) -> {
+			put(key, image);
+			
+			if (e != null) {
+				future.completeExceptionally(e);
+			} else {
+				future.complete(image);
+			}
+		});
+		
+		return future;
+	}
+	
+	/**
+	 * Gets the transparent placeholder shown until an icon is decoded.
+	 *
+	 * @param size The size the icon is displayed at, in pixels.
+	 * @return The placeholder image.
+	 */
+	public static Image placeholder(int size) {
+		return placeholders.computeIfAbsent(size, s -> new WritableImage(Math.max(s, 1), Math.max(s, 1)));
+	}
+	
+	/**
+	 * Removes every cached icon image, e.g. after the icons have changed on disk.
+	 */
+	public static void clear() {
+		synchronized (images) {
+			images.clear();
+			bytes = 0;
+		}
+	}
+	
+	private static Image decode(Key key) {
+		try (InputStream stream = FileMetadata.getResource(key.icon())) {
+			if (stream == null) {
+				LOGGER.warn("Icon not found: " + key.icon());
+				return null;
+			}
+			
+			Image image = new Image(stream, key.size(), key.size(), true, true);
+			if (image.isError()) {
+				LOGGER.warn("Failed to decode icon " + key.icon() + ": " + image.getException());
+				return null;
+			}
+			
+			return image;
+			
+		} catch (Exception e) {
+			LOGGER.warn("Failed to decode icon " + key.icon() + ": " + e.getMessage());
+			return null;
+		}
+	}
+	
+	private static void put(Key key, Image image) {
+		synchronized (images) {
+			pending.remove(key);
+			if (image == null) {
+				return;
+			}
+			
+			Image previous = images.put(key, image);
+			bytes += sizeOf(image) - (previous != null ? sizeOf(previous) : 0);
+			
+			// evict the least recently used icons
+			Iterator<Image> iterator = images.values().iterator();
+			while (bytes > MAX_BYTES && iterator.hasNext()) {
+				Image evicted = iterator.next();
+				if (evicted != image) {
+					bytes -= sizeOf(evicted);
+					iterator.remove();
+				}
+			}
+		}
+	}
+	
+	private static long sizeOf(Image image) {
+		return (long) image.getWidth() * (long) image.getHeight() * 4;
+	}
+	
+	/**
+	 * The key of a cached icon image.
+	 *
+	 * @param icon The resource path of the icon.
+	 * @param size The size the icon is displayed at, in pixels.
+	 */
+	private record Key(String icon, int size) {}
+}
@@ -0,0 +1,32 @@
+package minecraft.morningmc.mcli.utils;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Replaces files through temporary files, so readers never see a half-written file.
+ */
+public final class AtomicFiles {
+	private AtomicFiles() {}
+	
+	/**
+	 * Replaces a file with a completely written temporary file.
+	 * <p>
+	 * The move is atomic where the file system supports it. Some do not, e.g. network shares and some FUSE mounts,
+	 * then the file is replaced by a plain move: it may briefly be missing, but never holds partial content.
+	 *
+	 * @param temp The temporary file, on the same file system as the target.
+	 * @param target The file to replace.
+	 * @throws IOException If the file cannot be replaced.
+	 */
+	public static void replace(Path temp, Path target) throws IOException {
+		try {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
@@ -0,0 +1,264 @@
+package minecraft.morningmc.mcli.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A persisted record of the files whose SHA-1 hash was verified, as an open-addressing hash table in a memory-mapped file.
+ * <p>
+ * The file is {@code int magic, int format, int capacity, int count} followed by {@code capacity} slots of
+ * {@value #SLOT_SIZE} bytes: {@code byte[20] sha1, int used, long size, long lastModified}, with linear probing.
+ * An object is known to be intact while its file still has the size and modification time recorded in its slot.
+ * SHA-1 hashes are uniform, so their first bytes are used as the hash code directly. The table doubles when it is half full.
+ * <p>
+ * Lookups may run on many threads at once, but not concurrently with {@link #put(byte[], long, long)}.
+ * <p>
+ * One process at a time writes the file, holding a lock on it. Others work on a private copy, which is not saved.
+ * A mapped file is never truncated, as Windows refuses to: an invalid file is truncated before it is mapped, and the
+ * table only grows afterwards.
+ */
+public class HashIndex implements Closeable {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The size of a slot, in bytes. */
+	public static final int SLOT_SIZE = 40;
+	
+	/** The initial number of slots, enough for the asset objects of one version without growing. */
+	public static final int INITIAL_CAPACITY = 1 << 17;
+	
+	private static final int MAGIC = 0x4D434148; // MCAH
+	private static final int FORMAT = 1;
+	private static final int HEADER_SIZE = 16;
+	
+	private static final int USED = 20;
+	private static final int SIZE = 24;
+	private static final int LAST_MODIFIED = 32;
+	
+	private final File file;
+	private final FileChannel channel;
+	private final boolean writable;
+	private ByteBuffer buffer;
+	private int capacity;
+	private int count;
+	
+	/**
+	 * Opens an index, creating it if it does not exist or is not a valid index.
+	 *
+	 * @param file The index file.
+	 * @throws IOException If the file cannot be opened.
+	 */
+	public HashIndex(File file) throws IOException {
+		this.file = file;
+		
+		file.getParentFile().mkdirs();
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.writable = lock();
+		
+		long length = channel.size();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {}
+		
+		capacity = header.getInt(8);
+		count = header.getInt(12);
+		if (!header.hasRemaining() && header.getInt(0) == MAGIC && header.getInt(4) == FORMAT && Integer.bitCount(capacity) == 1
+				    && length == HEADER_SIZE + (long) capacity * SLOT_SIZE && count >= 0 && count <= capacity / 2) {
+			buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.PRIVATE, 0, length);
+			return;
+		}
+		
+		if (writable) {
+			channel.truncate(0);
+		}
+		map(INITIAL_CAPACITY);
+	}
+	
+	/**
+	 * Locks the file for writing. It is released when the channel is closed.
+	 *
+	 * @return {@code true} if locked, {@code false} if another process holds the lock.
+	 */
+	private boolean lock() throws IOException {
+		try {
+			if (channel.tryLock() != null) {
+				return true;
+			}
+		} catch (OverlappingFileLockException e) {
+			// opened twice by this process
+		}
+		
+		LOGGER.warn(file + " is in use by another launcher, verified objects are not recorded");
+		return false;
+	}
+	
+	/**
+	 * Maps the file with a new capacity, clearing all slots. The file only grows, or is empty when first mapped.
+	 * Without the lock, the table is kept in memory instead.
+	 */
+	private void map(int capacity) throws IOException {
+		long length = HEADER_SIZE + (long) capacity * SLOT_SIZE;
+		
+		buffer = writable ? channel.map(FileChannel.MapMode.READ_WRITE, 0, length) : ByteBuffer.allocate((int) length);
+		
+		byte[] zeros = new byte[1 << 16];
+		for (int position = 0; position < length; position += zeros.length) {
+			buffer.put(position, zeros, 0, (int) Math.min(zeros.length, length - position));
+		}
+		
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, FORMAT);
+		buffer.putInt(8, capacity);
+		buffer.putInt(12, 0);
+		
+		this.capacity = capacity;
+		this.count = 0;
+	}
+	
+	/**
+	 * Checks if an object was verified with the given size and modification time.
+	 *
+	 * @param sha1 The SHA-1 hash of the object.
+	 * @param size The current size of the object file.
+	 * @param lastModified The current modification time of the object file.
+	 * @return {@code true} if the object is known to be intact, {@code false} if it has to be hashed.
+	 */
+	public boolean isVerified(byte[] sha1, long size, long lastModified) {
+		int slot = find(sha1);
+		if (slot < 0) {
+			return false;
+		}
+		
+		int offset = offset(slot);
+		return buffer.getLong(offset + SIZE) == size && buffer.getLong(offset + LAST_MODIFIED) == lastModified;
+	}
+	
+	/**
+	 * Records that an object was verified.
+	 *
+	 * @param sha1 The SHA-1 hash of the object.
+	 * @param size The size of the object file.
+	 * @param lastModified The modification time of the object file.
+	 * @throws IOException If the table has to grow and the file cannot be remapped.
+	 */
+	public synchronized void put(byte[] sha1, long size, long lastModified) throws IOException {
+		int slot = find(sha1);
+		if (slot < 0) {
+			if (count + 1 > capacity / 2) {
+				grow();
+				slot = find(sha1);
+			}
+			
+			slot = -slot - 1;
+			buffer.put(offset(slot), sha1, 0, 20);
+			buffer.putInt(offset(slot) + USED, 1);
+			buffer.putInt(12, ++count);
+		}
+		
+		int offset = offset(slot);
+		buffer.putLong(offset + SIZE, size);
+		buffer.putLong(offset + LAST_MODIFIED, lastModified);
+	}
+	
+	/**
+	 * Finds the slot of an object.
+	 *
+	 * @return The slot, or {@code -(free slot) - 1} if the object is not in the table.
+	 */
+	private int find(byte[] sha1) {
+		int mask = capacity - 1;
+		int slot = ((sha1[0] & 0xFF) << 24 | (sha1[1] & 0xFF) << 16 | (sha1[2] & 0xFF) << 8 | sha1[3] & 0xFF) & mask;
+		
+		// bounded, as a private copy may see the table of the writing process grow under it
+		for (int probes = 0; probes < capacity; probes++) {
+			int offset = offset(slot);
+			if (buffer.getInt(offset + USED) == 0) {
+				return -slot - 1;
+			}
+			if (matches(offset, sha1)) {
+				return slot;
+			}
+			
+			slot = (slot + 1) & mask;
+		}
+		
+		return -slot - 1;
+	}
+	
+	private boolean matches(int offset, byte[] sha1) {
+		for (int i = 0; i < 20; i++) {
+			if (buffer.get(offset + i) != sha1[i]) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private static int offset(int slot) {
+		return HEADER_SIZE + slot * SLOT_SIZE;
+	}
+	
+	private void grow() throws IOException {
+		List<byte[]> slots = new ArrayList<>(count);
+		for (int slot = 0; slot < capacity; slot++) {
+			int offset = offset(slot);
+			if (buffer.getInt(offset + USED) != 0) {
+				byte[] bytes = new byte[SLOT_SIZE];
+				buffer.get(offset, bytes);
+				slots.add(bytes);
+			}
+		}
+		
+		map(capacity * 2);
+		
+		for (byte[] bytes : slots) {
+			int slot = -find(bytes) - 1;
+			buffer.put(offset(slot), bytes);
+		}
+		count = slots.size();
+		buffer.putInt(12, count);
+	}
+	
+	/**
+	 * Writes the table to the disk.
+	 */
+	public synchronized void force() {
+		if (writable) {
+			((MappedByteBuffer) buffer).force();
+		}
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		force();
+		channel.close();
+	}
+	
+	// Getters
+	/**
+	 * Gets the index file.
+	 *
+	 * @return The index file.
+	 */
+	public File getFile() {
+		return file;
+	}
+	
+	/**
+	 * Gets the number of verified objects.
+	 *
+	 * @return The number of objects.
+	 */
+	public synchronized int size() {
+		return count;
+	}
+}
@@ -1,6 +1,6 @@
 package minecraft.morningmc.mcli.utils;
 
-import minecraft.morningmc.mcli.utils.exceptions.IllegalNbtException;
+import minecraft.morningmc.mcli.utils.annotations.NbtModel;
 import minecraft.morningmc.mcli.utils.interfaces.NbtLoader;
 
 import dev.dewy.nbt.tags.collection.CompoundTag;
@@ -11,40 +11,10 @@ import dev.dewy.nbt.tags.collection.CompoundTag;
  * @param minimum The minimum memory in MB.
  * @param maximum The maximum memory in MB.
  */
+@NbtModel(factory = "of")
 public record MemoryRange(int minimum, int maximum) {
 	/** NbtLoader for loading and saving {@code MemoryRange} objects from/to NBT data. */
-	public static final NbtLoader<MemoryRange, CompoundTag> LOADER = new NbtLoader<>() {
-		
-		/**
-		 * Loads a {@code MemoryRange} object from an NBT compound tag.
-		 *
-		 * @param tag The NBT compound tag representing the {@code MemoryRange} object.
-		 * @return The loaded {@code MemoryRange} object, or null if an error occurs.
-		 */
-		@Override
-		public MemoryRange loadFromNbt(CompoundTag tag) throws IllegalNbtException {
-			int minimum = tag.getInt("minimum").getValue();
-			int maximum = tag.getInt("maximum").getValue();
-			
-			return of(minimum, maximum);
-		}
-		
-		/**
-		 * Saves a {@code MemoryRange} object to an NBT compound tag.
-		 *
-		 * @param object The {@code MemoryRange} object to be saved.
-		 * @return The NBT compound tag representing the {@code MemoryRange} object.
-		 */
-		@Override
-		public CompoundTag saveToNbt(MemoryRange object) {
-			CompoundTag tag = new CompoundTag();
-			
-			tag.putInt("minimum", object.minimum);
-			tag.putInt("maximum", object.maximum);
-			
-			return tag;
-		}
-	};
+	public static final NbtLoader<MemoryRange, CompoundTag> LOADER = MemoryRangeCodec.INSTANCE;
 	
 	/**
 	 * Constructs a new {@code MemoryRange} object with a maximum of {@code maximum} MB.
@@ -1,6 +1,6 @@
 package minecraft.morningmc.mcli.utils;
 
-import minecraft.morningmc.mcli.utils.exceptions.IllegalNbtException;
+import minecraft.morningmc.mcli.utils.annotations.NbtModel;
 import minecraft.morningmc.mcli.utils.interfaces.NbtLoader;
 
 import dev.dewy.nbt.tags.collection.CompoundTag;
@@ -8,48 +8,10 @@ import dev.dewy.nbt.tags.collection.CompoundTag;
 /**
  * Represents information about a Minecraft server, including its host and port.
  */
+@NbtModel(factory = "of")
 public record ServerInfo(String host, int port) {
 	/** NbtLoader for loading and saving {@code ServerInfo} objects from/to NBT data. */
-	public static final NbtLoader<ServerInfo, CompoundTag> LOADER = new NbtLoader<>() {
-		
-		/**
-		 * Loads a {@code ServerInfo} object from an NBT compound tag.
-		 *
-		 * @param tag The NBT compound tag representing the {@code ServerInfo} object.
-		 * @return The loaded {@code ServerInfo} object, or null if an error occurs.
-		 */
-		@Override
-		public ServerInfo loadFromNbt(CompoundTag tag) throws IllegalNbtException {
-			try {
-				String host = tag.getString("host").getValue();
-				int port = tag.getInt("port").getValue();
-				
-				return of(host, port);
-			} catch (Exception e) {
-				return null;
-			}
-		}
-		
-		/**
-		 * Saves a {@code ServerInfo} object to an NBT compound tag.
-		 *
-		 * @param object The {@code ServerInfo} object to be saved.
-		 * @return The NBT compound tag representing the {@code ServerInfo} object.
-		 */
-		@Override
-		public CompoundTag saveToNbt(ServerInfo object) {
-			CompoundTag tag = new CompoundTag();
-			
-			if (object == null) {
-				return tag;
-			}
-			
-			tag.putString("host", object.host);
-			tag.putInt("port", object.port);
-			
-			return tag;
-		}
-	};
+	public static final NbtLoader<ServerInfo, CompoundTag> LOADER = ServerInfoCodec.INSTANCE;
 	
 	/**
 	 * Constructs a {@code ServerInfo} object with the specified host and default port (25565).
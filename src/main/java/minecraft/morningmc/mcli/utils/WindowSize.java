@@ -1,6 +1,6 @@
 package minecraft.morningmc.mcli.utils;
 
-import minecraft.morningmc.mcli.utils.exceptions.IllegalNbtException;
+import minecraft.morningmc.mcli.utils.annotations.NbtModel;
 import minecraft.morningmc.mcli.utils.interfaces.NbtLoader;
 
 import dev.dewy.nbt.tags.collection.CompoundTag;
@@ -8,54 +8,13 @@ import dev.dewy.nbt.tags.collection.CompoundTag;
 /**
  * Represents the size and state (full-screen or windowed) of a window.
  */
+@NbtModel
 public record WindowSize(boolean fullScreen,
                          int width,
                          int height) {
 	
 	/** NbtLoader for loading and saving {@code WindowSize} objects from/to NBT data. */
-	public static final NbtLoader<WindowSize, CompoundTag> LOADER = new NbtLoader<>() {
-		
-		/**
-		 * Loads a WindowSize object from an NBT CompoundTag.
-		 *
-		 * @param tag The CompoundTag to load from.
-		 * @return The loaded WindowSize object.
-		 * @throws IllegalNbtException If there is an issue with the NBT data.
-		 */
-		@Override
-		public WindowSize loadFromNbt(CompoundTag tag) throws IllegalNbtException {
-			try {
-				boolean fullScreen = tag.getByte("fullScreen").getValue() != 0;
-				int width = tag.getInt("width").getValue();
-				int height = tag.getInt("height").getValue();
-				
-				return new WindowSize(fullScreen, width, height);
-			} catch (Exception e) {
-				return null;
-			}
-		}
-		
-		/**
-		 * Saves a WindowSize object to an NBT CompoundTag.
-		 *
-		 * @param object The WindowSize object to save.
-		 * @return The resulting CompoundTag.
-		 */
-		@Override
-		public CompoundTag saveToNbt(WindowSize object) {
-			CompoundTag tag = new CompoundTag();
-			
-			if (object == null) {
-				return tag;
-			}
-			
-			tag.putByte("fullScreen", (byte) (object.fullScreen ? 1 : 0));
-			tag.putInt("width", object.width);
-			tag.putInt("height", object.height);
-			
-			return tag;
-		}
-	};
+	public static final NbtLoader<WindowSize, CompoundTag> LOADER = WindowSizeCodec.INSTANCE;
 	
 	/**
 	 * Creates a WindowSize object representing a full-screen window.
@@ -0,0 +1,42 @@
+package minecraft.morningmc.mcli.utils.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * An annotation to tune how a constructor parameter of an {@link NbtModel} is saved to NBT data.
+ *
+ * @see NbtModel
+ */
+@Target({ ElementType.PARAMETER, ElementType.RECORD_COMPONENT })
+@Retention(RetentionPolicy.CLASS)
+public @interface NbtField {
+	
+	/**
+	 * The key of the field. Defaults to the name of the parameter.
+	 *
+	 * @return The key of the field.
+	 */
+	String key() default "";
+	
+	/**
+	 * Former keys of the field, read if the key is missing.
+	 *
+	 * @return The former keys of the field.
+	 */
+	String[] aliases() default {};
+	
+	/**
+	 * The data version the field was added in. Older data is expected to miss the field,
+	 * so it falls back to its default without a warning.
+	 *
+	 * @return The data version the field was added in.
+	 */
+	int since() default 0;
+	
+	/**
+	 * Whether the field may be missing from models without defaults, in which case it is {@code null}, zero or {@code false}.
+	 *
+	 * @return {@code true} if the field is optional, {@code false} otherwise.
+	 */
+	boolean optional() default false;
+}
@@ -0,0 +1,42 @@
+package minecraft.morningmc.mcli.utils.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * An annotation to mark a class as a model saved to NBT data.
+ * <p>
+ * A codec named after the class with a {@code Codec} suffix is generated at compile time in the same package.
+ * It loads the model through its constructor, or through {@link #factory()} if set, reads every parameter
+ * from the key of the same name and saves it through the matching {@code getX()}, {@code isX()} or {@code x()} accessor.
+ * Parameters can be tuned with {@link NbtField}.
+ *
+ * @see NbtField
+ */
+@Target({ ElementType.TYPE })
+@Retention(RetentionPolicy.CLASS)
+public @interface NbtModel {
+	
+	/**
+	 * The data version of the model. Saved as {@code dataVersion} if greater than zero,
+	 * and compared with {@link NbtField#since()} when loading.
+	 *
+	 * @return The data version of the model.
+	 */
+	int version() default 0;
+	
+	/**
+	 * The name of a static field of the model holding the default values for missing or invalid fields.
+	 * If empty, fields are required unless marked {@link NbtField#optional()}.
+	 *
+	 * @return The name of the static field holding the defaults.
+	 */
+	String defaults() default "";
+	
+	/**
+	 * The name of a static factory method used instead of the constructor, e.g. one validating its arguments.
+	 * The overload with the most parameters is used.
+	 *
+	 * @return The name of the static factory method.
+	 */
+	String factory() default "";
+}
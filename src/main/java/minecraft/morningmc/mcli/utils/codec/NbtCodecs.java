@@ -0,0 +1,150 @@
+package minecraft.morningmc.mcli.utils.codec;
+
+import minecraft.morningmc.mcli.utils.annotations.NbtModel;
+import minecraft.morningmc.mcli.utils.interfaces.NbtLoader;
+
+import dev.dewy.nbt.api.Tag;
+import dev.dewy.nbt.tags.collection.CompoundTag;
+import dev.dewy.nbt.tags.primitive.NumericalTag;
+import dev.dewy.nbt.tags.primitive.StringTag;
+
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Helpers used by the codecs generated for {@link NbtModel} classes.
+ * <p>
+ * Numbers are read from any numerical tag, so a field can be widened or narrowed without a migration.
+ */
+public final class NbtCodecs {
+	/** The key the data version of a model is saved under. */
+	public static final String DATA_VERSION = "dataVersion";
+	
+	private NbtCodecs() {}
+	
+	/**
+	 * Gets the data version of a model, or zero for data saved before the model was versioned.
+	 *
+	 * @param tag The NBT compound tag representing the model.
+	 * @return The data version.
+	 */
+	public static int dataVersion(CompoundTag tag) {
+		return tag.get(DATA_VERSION) instanceof NumericalTag<?> version ? version.intValue() : 0;
+	}
+	
+	/**
+	 * Gets the tag of a field.
+	 *
+	 * @param tag The NBT compound tag representing the model.
+	 * @param key The key of the field.
+	 * @return The tag of the field, or {@code null} if missing.
+	 */
+	public static Tag get(CompoundTag tag, String key) {
+		return tag.get(key);
+	}
+	
+	/**
+	 * Gets the tag of a field, falling back to its former keys.
+	 *
+	 * @param tag The NBT compound tag representing the model.
+	 * @param key The key of the field.
+	 * @param aliases The former keys of the field.
+	 * @return The tag of the field, or {@code null} if missing.
+	 */
+	public static Tag get(CompoundTag tag, String key, String[] aliases) {
+		Tag value = tag.get(key);
+		
+		for (int i = 0; value == null && i < aliases.length; i++) {
+			value = tag.get(aliases[i]);
+		}
+		
+		return value;
+	}
+	
+	// Readers
+	public static boolean readBoolean(Tag tag) {
+		return ((NumericalTag<?>) tag).byteValue() != 0;
+	}
+	
+	public static byte readByte(Tag tag) {
+		return ((NumericalTag<?>) tag).byteValue();
+	}
+	
+	public static short readShort(Tag tag) {
+		return ((NumericalTag<?>) tag).shortValue();
+	}
+	
+	public static int readInt(Tag tag) {
+		return ((NumericalTag<?>) tag).intValue();
+	}
+	
+	public static long readLong(Tag tag) {
+		return ((NumericalTag<?>) tag).longValue();
+	}
+	
+	public static float readFloat(Tag tag) {
+		return ((NumericalTag<?>) tag).floatValue();
+	}
+	
+	public static double readDouble(Tag tag) {
+		return ((NumericalTag<?>) tag).doubleValue();
+	}
+	
+	public static String readString(Tag tag) {
+		return ((StringTag) tag).getValue();
+	}
+	
+	// Writers
+	/**
+	 * Puts a string field, unless it is {@code null}.
+	 *
+	 * @param tag The NBT compound tag representing the model.
+	 * @param key The key of the field.
+	 * @param value The value of the field.
+	 */
+	public static void putString(CompoundTag tag, String key, String value) {
+		if (value != null) {
+			tag.putString(key, value);
+		}
+	}
+	
+	/**
+	 * Puts an enum field by its name, unless it is {@code null}.
+	 *
+	 * @param tag The NBT compound tag representing the model.
+	 * @param key The key of the field.
+	 * @param value The value of the field.
+	 */
+	public static void putEnum(CompoundTag tag, String key, Enum<?> value) {
+		if (value != null) {
+			tag.putString(key, value.name());
+		}
+	}
+	
+	/**
+	 * Puts a field saved by a loader, unless it is {@code null}. A field that fails to save is left out with a warning,
+	 * so one broken field does not lose the whole model.
+	 *
+	 * @param logger The logger of the model.
+	 * @param tag The NBT compound tag representing the model.
+	 * @param key The key of the field.
+	 * @param value The value of the field.
+	 * @param loader The loader saving the value.
+	 *
+	 * @param <C> The type of the value.
+	 * @param <T> The type of the NBT tag.
+	 */
+	public static <C, T extends Tag> void put(Logger logger, CompoundTag tag, String key, C value, NbtLoader<C, T> loader) {
+		if (value == null) {
+			return;
+		}
+		
+		try {
+			T saved = loader.saveToNbt(value);
+			if (saved != null) {
+				tag.put(key, saved);
+			}
+		} catch (Exception e) {
+			logger.warn(key + " save failed: " + e);
+		}
+	}
+}
@@ -0,0 +1,445 @@
+package minecraft.morningmc.mcli.utils.codec.processor;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+
+/**
+ * Generates a codec for every class annotated with {@code @NbtModel}.
+ * <p>
+ * The codecs are plain code: no reflection, no loaders allocated per call and no try/catch per field
+ * beyond what defaulting needs. This processor is compiled on its own before the rest of the sources,
+ * so it must not depend on any other class of the launcher.
+ */
+@SupportedAnnotationTypes(NbtCodecProcessor.NBT_MODEL)
+public class NbtCodecProcessor extends AbstractProcessor {
+	static final String NBT_MODEL = "minecraft.morningmc.mcli.utils.annotations.NbtModel";
+	static final String NBT_FIELD = "minecraft.morningmc.mcli.utils.annotations.NbtField";
+	
+	private static final String SWITCHABLE = "minecraft.morningmc.mcli.utils.Switchable";
+	private static final String NBT_LOADER = "minecraft.morningmc.mcli.utils.interfaces.NbtLoader";
+	
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+	
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+		for (TypeElement annotation : annotations) {
+			for (TypeElement type : ElementFilter.typesIn(round.getElementsAnnotatedWith(annotation))) {
+				try {
+					generate(Model.of(processingEnv, type));
+					
+				} catch (CodecException e) {
+					processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), e.element);
+				} catch (IOException e) {
+					processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write codec: " + e.getMessage(), type);
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Writes the codec of a model.
+	 *
+	 * @param model The model.
+	 * @throws IOException If the source file cannot be written.
+	 */
+	private void generate(Model model) throws IOException {
+		String modelType = model.type.getQualifiedName().toString();
+		
+		try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(model.packageName + "." + model.codecName, model.type).openWriter())) {
+			out.println("package " + model.packageName + ";");
+			out.println();
+			out.println("import minecraft.morningmc.mcli.utils.codec.NbtCodecs;");
+			out.println("import minecraft.morningmc.mcli.utils.exceptions.IllegalNbtException;");
+			out.println("import minecraft.morningmc.mcli.utils.interfaces.NbtLoader;");
+			out.println();
+			out.println("import dev.dewy.nbt.api.Tag;");
+			out.println("import dev.dewy.nbt.tags.collection.CompoundTag;");
+			out.println();
+			out.println("import org.apache.logging.log4j.LogManager;");
+			out.println("import org.apache.logging.log4j.Logger;");
+			out.println();
+			out.println("/**");
+			out.println(" * Generated codec for loading and saving {@code " + model.type.getSimpleName() + "} objects from/to NBT data.");
+			out.println(" */");
+			out.println("@javax.annotation.processing.Generated(\"" + NbtCodecProcessor.class.getName() + "\")");
+			out.println("public final class " + model.codecName + " implements NbtLoader<" + modelType + ", CompoundTag> {");
+			out.println("\tprivate static final Logger LOGGER = LogManager.getLogger(" + modelType + ".class);");
+			out.println();
+			out.println("\t/** The data version of the model. */");
+			out.println("\tpublic static final int VERSION = " + model.version + ";");
+			out.println();
+			out.println("\tpublic static final " + model.codecName + " INSTANCE = new " + model.codecName + "();");
+			
+			for (Field field : model.fields) {
+				if (field.value.loader != null) {
+					out.println("\tprivate static final NbtLoader<" + field.value.type + ", " + field.value.tagType + "> " + field.constant() + " = " + field.value.loader + ";");
+				}
+				if (field.aliases.length > 0) {
+					out.println("\tprivate static final String[] " + field.aliasesConstant() + " = { " + quoteAll(field.aliases) + " };");
+				}
+			}
+			
+			out.println();
+			out.println("\tprivate " + model.codecName + "() {}");
+			out.println();
+			
+			// load
+			out.println("\t@Override");
+			out.println("\tpublic " + modelType + " loadFromNbt(CompoundTag nbt$) throws IllegalNbtException {");
+			String constructor = model.factory != null ? modelType + "." + model.factory : "new " + modelType;
+			
+			out.println("\t\tif (nbt$ == null || nbt$.isEmpty()) {");
+			if (model.defaults != null) {
+				// a copy of the defaults, the model may be mutable
+				StringJoiner defaults = new StringJoiner(", ");
+				model.fields.forEach(field -> defaults.add(modelType + "." + model.defaults + "." + field.accessor + "()"));
+				out.println("\t\t\treturn " + constructor + "(" + defaults + ");");
+			} else {
+				out.println("\t\t\treturn null;");
+			}
+			out.println("\t\t}");
+			out.println();
+			out.println("\t\tint dataVersion$ = NbtCodecs.dataVersion(nbt$);");
+			out.println("\t\tTag tag$;");
+			
+			for (Field field : model.fields) {
+				out.println();
+				out.println("\t\t" + field.value.type + " " + field.name + " = " + (model.defaults != null ? modelType + "." + model.defaults + "." + field.accessor + "()" : field.value.zero) + ";");
+				out.println("\t\ttag$ = NbtCodecs.get(nbt$, " + quote(field.key) + (field.aliases.length > 0 ? ", " + field.aliasesConstant() : "") + ");");
+				out.println("\t\tif (tag$ != null) {");
+				out.println("\t\t\ttry {");
+				if (field.value.isUncheckedCast()) {
+					// only a generic tag type needs an unchecked cast, so only its local is suppressed
+					out.println("\t\t\t\t@SuppressWarnings(\"unchecked\")");
+					out.println("\t\t\t\t" + field.value.tagType + " " + field.name + "Tag$ = (" + field.value.tagType + ") tag$;");
+					out.println("\t\t\t\t" + field.name + " = " + field.constant() + ".loadFromNbt(" + field.name + "Tag$);");
+				} else {
+					out.println("\t\t\t\t" + field.name + " = " + field.value.read(field.constant()) + ";");
+				}
+				out.println("\t\t\t} catch (Exception e$) {");
+				if (model.defaults != null) {
+					out.println("\t\t\t\tLOGGER.warn(\"" + field.key + " load failed: \" + e$);");
+				} else {
+					out.println("\t\t\t\tthrow new IllegalNbtException(\"Invalid " + field.key + "\", e$);");
+				}
+				out.println("\t\t\t}");
+				
+				if (model.defaults != null || !field.optional) {
+					out.println("\t\t}" + (field.since > 0 ? " else if (dataVersion$ >= " + field.since + ") {" : " else {"));
+					if (model.defaults != null) {
+						out.println("\t\t\tLOGGER.warn(\"" + field.key + " load failed: missing\");");
+					} else {
+						out.println("\t\t\tthrow new IllegalNbtException(\"Missing " + field.key + "\");");
+					}
+				}
+				out.println("\t\t}");
+			}
+			
+			StringJoiner arguments = new StringJoiner(", ");
+			model.fields.forEach(field -> arguments.add(field.name));
+			
+			out.println();
+			out.println("\t\ttry {");
+			out.println("\t\t\treturn " + constructor + "(" + arguments + ");");
+			out.println("\t\t} catch (RuntimeException e$) {");
+			out.println("\t\t\tthrow new IllegalNbtException(\"Invalid " + model.type.getSimpleName() + ": \" + e$.getMessage(), e$);");
+			out.println("\t\t}");
+			out.println("\t}");
+			out.println();
+			
+			// save
+			out.println("\t@Override");
+			out.println("\tpublic CompoundTag saveToNbt(" + modelType + " object$) {");
+			out.println("\t\tCompoundTag nbt$ = new CompoundTag();");
+			out.println();
+			out.println("\t\tif (object$ == null) {");
+			out.println("\t\t\treturn nbt$;");
+			out.println("\t\t}");
+			out.println();
+			if (model.version > 0) {
+				out.println("\t\tnbt$.putInt(NbtCodecs.DATA_VERSION, VERSION);");
+			}
+			for (Field field : model.fields) {
+				out.println("\t\t" + field.value.write(quote(field.key), "object$." + field.accessor + "()", field.constant()) + ";");
+			}
+			out.println();
+			out.println("\t\treturn nbt$;");
+			out.println("\t}");
+			out.println("}");
+		}
+	}
+	
+	private static String quote(String s) {
+		return '"' + s.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+	}
+	
+	private static String quoteAll(String[] strings) {
+		StringJoiner joiner = new StringJoiner(", ");
+		for (String s : strings) {
+			joiner.add(quote(s));
+		}
+		
+		return joiner.toString();
+	}
+	
+	/**
+	 * A model annotated with {@code @NbtModel}.
+	 */
+	private record Model(TypeElement type, String packageName, String codecName, int version, String defaults, String factory, List<Field> fields) {
+		
+		static Model of(ProcessingEnvironment env, TypeElement type) throws CodecException {
+			if (type.getNestingKind() != NestingKind.TOP_LEVEL || !type.getTypeParameters().isEmpty()) {
+				throw new CodecException("@NbtModel is only supported on top-level, non-generic classes", type);
+			}
+			
+			Map<String, Object> annotation = values(env, type, NBT_MODEL);
+			int version = (Integer) annotation.get("version");
+			String defaults = emptyToNull((String) annotation.get("defaults"));
+			String factory = emptyToNull((String) annotation.get("factory"));
+			
+			if (defaults != null && ElementFilter.fieldsIn(type.getEnclosedElements()).stream()
+					                        .noneMatch(field -> field.getSimpleName().contentEquals(defaults) && field.getModifiers().contains(Modifier.STATIC))) {
+				throw new CodecException("No static field " + defaults + " holding the defaults", type);
+			}
+			
+			// the constructor or factory with the most parameters
+			ExecutableElement creator = null;
+			for (ExecutableElement executable : factory != null ? ElementFilter.methodsIn(type.getEnclosedElements()) : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+				if (executable.getModifiers().contains(Modifier.PRIVATE)) {
+					continue;
+				}
+				if (factory != null && (!executable.getSimpleName().contentEquals(factory) || !executable.getModifiers().contains(Modifier.STATIC))) {
+					continue;
+				}
+				if (creator == null || executable.getParameters().size() > creator.getParameters().size()) {
+					creator = executable;
+				}
+			}
+			
+			if (creator == null) {
+				throw new CodecException(factory != null ? "No static factory method " + factory : "No accessible constructor", type);
+			}
+			
+			List<Field> fields = new ArrayList<>();
+			for (VariableElement parameter : creator.getParameters()) {
+				fields.add(Field.of(env, type, parameter));
+			}
+			
+			PackageElement packageElement = env.getElementUtils().getPackageOf(type);
+			return new Model(type, packageElement.getQualifiedName().toString(), type.getSimpleName() + "Codec", version, defaults, factory, fields);
+		}
+	}
+	
+	/**
+	 * A field of a model, given by a parameter of its constructor or factory.
+	 */
+	private record Field(String name, String key, String[] aliases, int since, boolean optional, String accessor, Value value) {
+		
+		static Field of(ProcessingEnvironment env, TypeElement type, VariableElement parameter) throws CodecException {
+			String name = parameter.getSimpleName().toString();
+			
+			Map<String, Object> annotation = values(env, parameter, NBT_FIELD);
+			if (annotation == null) {
+				// annotations on record components only reach the implicit canonical constructor
+				for (RecordComponentElement component : type.getRecordComponents()) {
+					if (component.getSimpleName().contentEquals(name)) {
+						annotation = values(env, component, NBT_FIELD);
+					}
+				}
+			}
+			
+			String key = name;
+			String[] aliases = {};
+			int since = 0;
+			boolean optional = false;
+			
+			if (annotation != null) {
+				key = Objects.requireNonNullElse(emptyToNull((String) annotation.get("key")), name);
+				aliases = ((List<?>) annotation.get("aliases")).stream().map(value -> (String) ((AnnotationValue) value).getValue()).toArray(String[]::new);
+				since = (Integer) annotation.get("since");
+				optional = (Boolean) annotation.get("optional");
+			}
+			
+			return new Field(name, key, aliases, since, optional, accessor(env, type, parameter), Value.of(env, parameter.asType(), parameter));
+		}
+		
+		String constant() {
+			return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT) + "_LOADER";
+		}
+		
+		String aliasesConstant() {
+			return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT) + "_ALIASES";
+		}
+		
+		private static String accessor(ProcessingEnvironment env, TypeElement type, VariableElement parameter) throws CodecException {
+			String name = parameter.getSimpleName().toString();
+			String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+			
+			List<ExecutableElement> methods = ElementFilter.methodsIn(env.getElementUtils().getAllMembers(type));
+			for (String candidate : List.of("get" + capitalized, "is" + capitalized, name)) {
+				for (ExecutableElement method : methods) {
+					if (method.getSimpleName().contentEquals(candidate)
+							    && method.getParameters().isEmpty()
+							    && !method.getModifiers().contains(Modifier.PRIVATE)
+							    && !method.getModifiers().contains(Modifier.STATIC)
+							    && env.getTypeUtils().isSameType(method.getReturnType(), parameter.asType())) {
+						return candidate;
+					}
+				}
+			}
+			
+			throw new CodecException("No accessor for " + name + ", expected get" + capitalized + "(), is" + capitalized + "() or " + name + "()", parameter);
+		}
+	}
+	
+	/**
+	 * How a value of some type is read from and written to a tag.
+	 *
+	 * @param type The Java type of the value.
+	 * @param kind The primitive kind, or {@code null} for strings, enums and loaders.
+	 * @param isEnum Whether the value is an enum.
+	 * @param loader The expression creating the loader of the value, or {@code null} if it needs none.
+	 * @param tagType The tag type of the loader.
+	 * @param zero The value of a missing field without defaults.
+	 */
+	private record Value(String type, TypeKind kind, boolean isEnum, String loader, String tagType, String zero) {
+		
+		static Value of(ProcessingEnvironment env, TypeMirror type, Element element) throws CodecException {
+			if (type.getKind().isPrimitive()) {
+				return switch (type.getKind()) {
+					case BOOLEAN -> new Value(type.toString(), type.getKind(), false, null, null, "false");
+					case BYTE, SHORT, INT, LONG, FLOAT, DOUBLE -> new Value(type.toString(), type.getKind(), false, null, null, "(" + type + ") 0");
+					default -> throw new CodecException("Unsupported type " + type, element);
+				};
+			}
+			
+			if (!(type instanceof DeclaredType declared)) {
+				throw new CodecException("Unsupported type " + type, element);
+			}
+			
+			TypeElement typeElement = (TypeElement) declared.asElement();
+			String name = typeElement.getQualifiedName().toString();
+			
+			if (name.equals("java.lang.String")) {
+				return new Value(name, null, false, null, null, "null");
+			}
+			if (typeElement.getKind() == ElementKind.ENUM) {
+				return new Value(type.toString(), null, true, null, null, "null");
+			}
+			if (name.equals("java.util.List") && declared.getTypeArguments().size() == 1
+					    && declared.getTypeArguments().get(0).toString().equals("java.lang.String")) {
+				return new Value(type.toString(), null, false, NBT_LOADER + ".STRING_LIST_LOADER", "dev.dewy.nbt.tags.collection.ListTag<dev.dewy.nbt.tags.primitive.StringTag>", "null");
+			}
+			if (name.equals(SWITCHABLE) && declared.getTypeArguments().size() == 1) {
+				Value value = of(env, declared.getTypeArguments().get(0), element);
+				if (value.loader == null) {
+					throw new CodecException("Unsupported type " + type + ", the switchable value needs a loader", element);
+				}
+				
+				return new Value(type.toString(), null, false, NBT_LOADER + ".switchableLoader(" + value.loader + ")", "CompoundTag", "null");
+			}
+			if (values(env, typeElement, NBT_MODEL) != null) {
+				return new Value(type.toString(), null, false, name + "Codec.INSTANCE", "CompoundTag", "null");
+			}
+			
+			// classes with a hand-written loader
+			for (VariableElement field : ElementFilter.fieldsIn(typeElement.getEnclosedElements())) {
+				if (field.getSimpleName().contentEquals("LOADER")
+						    && field.getModifiers().contains(Modifier.STATIC)
+						    && field.asType() instanceof DeclaredType loaderType
+						    && ((TypeElement) loaderType.asElement()).getQualifiedName().contentEquals(NBT_LOADER)
+						    && loaderType.getTypeArguments().size() == 2) {
+					return new Value(type.toString(), null, false, name + ".LOADER", loaderType.getTypeArguments().get(1).toString(), "null");
+				}
+			}
+			
+			throw new CodecException("Unsupported type " + type + ", annotate it with @NbtModel or give it a static LOADER", element);
+		}
+		
+		boolean isUncheckedCast() {
+			return loader != null && tagType.contains("<");
+		}
+		
+		String read(String constant) {
+			if (kind != null) {
+				return "NbtCodecs.read" + capitalize(kind.name().toLowerCase(Locale.ROOT)) + "(tag$)";
+			}
+			if (loader != null) {
+				return constant + ".loadFromNbt((" + tagType + ") tag$)";
+			}
+			if (isEnum) {
+				return type + ".valueOf(NbtCodecs.readString(tag$))";
+			}
+			
+			return "NbtCodecs.readString(tag$)";
+		}
+		
+		String write(String key, String value, String constant) {
+			if (kind == TypeKind.BOOLEAN) {
+				return "nbt$.putByte(" + key + ", (byte) (" + value + " ? 1 : 0))";
+			}
+			if (kind != null) {
+				return "nbt$.put" + capitalize(kind.name().toLowerCase(Locale.ROOT)) + "(" + key + ", " + value + ")";
+			}
+			if (loader != null) {
+				return "NbtCodecs.put(LOGGER, nbt$, " + key + ", " + value + ", " + constant + ")";
+			}
+			if (isEnum) {
+				return "NbtCodecs.putEnum(nbt$, " + key + ", " + value + ")";
+			}
+			
+			return "NbtCodecs.putString(nbt$, " + key + ", " + value + ")";
+		}
+		
+		private static String capitalize(String s) {
+			return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+		}
+	}
+	
+	/**
+	 * Gets the values of an annotation on an element, including defaults.
+	 *
+	 * @return The values by name, or {@code null} if the element is not annotated.
+	 */
+	private static Map<String, Object> values(ProcessingEnvironment env, Element element, String annotation) {
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) {
+				Map<String, Object> values = new HashMap<>();
+				env.getElementUtils().getElementValuesWithDefaults(mirror)
+						.forEach((method, value) -> values.put(method.getSimpleName().toString(), value.getValue()));
+				
+				return values;
+			}
+		}
+		
+		return null;
+	}
+	
+	private static String emptyToNull(String s) {
+		return s == null || s.isEmpty() ? null : s;
+	}
+	
+	/**
+	 * Thrown when a model cannot be given a codec, reported as a compile error on the element.
+	 */
+	private static class CodecException extends Exception {
+		private final transient Element element;
+		
+		CodecException(String message, Element element) {
+			super(message);
+			this.element = element;
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package minecraft.morningmc.mcli.utils.exceptions;
+
+/**
+ * {@code DownloadException} is an exception class indicating that a file could not be downloaded.
+ */
+public class DownloadException extends LauncherException {
+	
+	/**
+	 * Constructs a new {@code DownloadException} with no detail message.
+	 */
+	public DownloadException() {
+		super();
+	}
+	
+	/**
+	 * Constructs a new {@code DownloadException} with the specified detail message.
+	 *
+	 * @param message The detail message.
+	 */
+	public DownloadException(String message) {
+		super(message);
+	}
+	
+	/**
+	 * Constructs a new {@code DownloadException} with the specified cause.
+	 *
+	 * @param cause The cause of the exception.
+	 */
+	public DownloadException(Throwable cause) {
+		super(cause);
+	}
+	
+	/**
+	 * Constructs a new {@code DownloadException} with the specified detail message and cause.
+	 *
+	 * @param message The detail message.
+	 * @param cause The cause of the exception.
+	 */
+	public DownloadException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
\ No newline at end of file
@@ -64,7 +64,7 @@ public interface NbtLoader<C, T extends Tag> {
 		return new NbtLoader<>() {
 			
 			/**
-			 * Load a {@code Switchable} object from an NBT tag.
+			 * Load a {@code Switchable} object from an NBT tag. A missing value is loaded as {@code null}.
 			 *
 			 * @param tag The NBT tag containing data to be loaded.
 			 * @return The loaded {@code Switchable} object.
@@ -73,13 +73,14 @@ public interface NbtLoader<C, T extends Tag> {
 			@Override
 			public Switchable<C> loadFromNbt(CompoundTag tag) throws IllegalNbtException {
 				boolean enabled = tag.getByte("enabled").getValue() != 0;
-				C value = loader.loadFromNbt(tag.get("value"));
+				T valueTag = tag.get("value");
+				C value = valueTag != null ? loader.loadFromNbt(valueTag) : null;
 				
 				return Switchable.of(value, enabled);
 			}
 			
 			/**
-			 * Save a {@code Switchable} object to an NBT tag.
+			 * Save a {@code Switchable} object to an NBT tag. A {@code null} value is left out.
 			 *
 			 * @param object The object to be saved.
 			 * @return The NBT tag containing the saved data.
@@ -89,7 +90,9 @@ public interface NbtLoader<C, T extends Tag> {
 				CompoundTag tag = new CompoundTag();
 				
 				tag.putByte("enabled", (byte) (object.isEnabled() ? 1 : 0));
-				tag.put("value", loader.saveToNbt(object.get()));
+				if (object.get() != null) {
+					tag.put("value", loader.saveToNbt(object.get()));
+				}
 				
 				return tag;
 			}
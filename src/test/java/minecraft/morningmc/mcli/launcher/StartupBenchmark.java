@@ -0,0 +1,137 @@
+package minecraft.morningmc.mcli.launcher;
+
+import minecraft.morningmc.mcli.launcher.config.ConfigStore;
+import minecraft.morningmc.mcli.launcher.main.HeadlessLauncher;
+import minecraft.morningmc.mcli.launcher.main.Main;
+import minecraft.morningmc.mcli.minecraft.client.Version;
+import minecraft.morningmc.mcli.minecraft.client.directory.TargetMinecraftDirectory;
+import minecraft.morningmc.mcli.minecraft.client.profile.Profile;
+import minecraft.morningmc.mcli.minecraft.launch.LaunchOptions;
+import minecraft.morningmc.mcli.minecraft.launch.Launcher;
+import minecraft.morningmc.mcli.utils.*;
+
+import dev.dewy.nbt.Nbt;
+import dev.dewy.nbt.tags.collection.CompoundTag;
+import dev.dewy.nbt.tags.collection.ListTag;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall-clock startup of the launcher, from spawning its JVM until it exits, with the JavaFX UI and headless.
+ * <p>
+ * The UI start quits after its first frame, see {@link Main#FIRST_FRAME_PROPERTY}.
+ * The headless start launches a profile whose game is {@code java -version} and waits for it, so it includes the
+ * start of a second, bare JVM. Both read the same config from their own AppData. Without a display, the UI renders
+ * through the Monocle headless platform in software.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+	/** The profile launched by the headless start. */
+	private static final String PROFILE = "Startup";
+	
+	@Param({"headless", "gui"})
+	private String mode;
+	
+	private Path directory;
+	private List<String> command;
+	
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("mcli-startup");
+		writeConfig(new File(directory.toFile(), ".mcli/config.nbt"));
+		
+		String classpath = System.getProperty("java.class.path");
+		
+		// LaunchScene.fxml needs a banner the tree does not ship, without it the UI fails to load
+		if (StartupBenchmark.class.getResource("/assets/banner.png") == null) {
+			File assets = new File(directory.toFile(), "resources/assets");
+			assets.mkdirs();
+			ImageIO.write(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB), "png", new File(assets, "banner.png"));
+			classpath += File.pathSeparator + assets.getParent();
+		}
+		
+		command = new ArrayList<>();
+		command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+		command.add("-cp");
+		command.add(classpath);
+		
+		if (mode.equals("gui")) {
+			command.add("-D" + Main.FIRST_FRAME_PROPERTY + "=true");
+			if (GraphicsEnvironment.isHeadless()) {
+				command.addAll(List.of("-Dglass.platform=Monocle", "-Dmonocle.platform=Headless", "-Dprism.order=sw"));
+			}
+		}
+		
+		command.add(Startup.class.getName());
+		if (mode.equals("headless")) {
+			command.addAll(List.of(HeadlessLauncher.ARGUMENT, PROFILE));
+		}
+	}
+	
+	@TearDown
+	public void tearDown() throws IOException {
+		try (var files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+	
+	@Benchmark
+	public int start() throws IOException, InterruptedException {
+		ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD);
+		builder.environment().put("AppData", directory.toString());
+		// the game of the profile is the java of the PATH
+		builder.environment().merge("PATH", new File(System.getProperty("java.home"), "bin").getPath(), (path, bin) -> bin + File.pathSeparator + path);
+		
+		Process process = builder.start();
+		int exitCode = process.waitFor();
+		if (exitCode != 0) {
+			throw new IllegalStateException("Launcher exited with " + exitCode + ": " + command);
+		}
+		
+		return exitCode;
+	}
+	
+	/**
+	 * Writes a config holding one profile, selected in the launcher, whose game is {@code java -version}.
+	 */
+	private static void writeConfig(File file) throws IOException {
+		file.getParentFile().mkdirs();
+		
+		LaunchOptions options = new LaunchOptions(
+				Switchable.ofDisabled(null),
+				Switchable.ofDisabled(null),
+				Switchable.ofEnabled(List.of("-version")),
+				false,
+				TargetMinecraftDirectory.Policy.STANDARD,
+				TargetMinecraftDirectory.STANDARD,
+				WindowSize.window(854, 480),
+				Switchable.ofDisabled(null),
+				false
+		);
+		Profile profile = new Profile(PROFILE, "grass_block", Version.Policy.RELEASE, null, Switchable.ofEnabled(options));
+		
+		ListTag<CompoundTag> profiles = new ListTag<>();
+		profiles.add(Profile.LOADER.saveToNbt(profile));
+		
+		CompoundTag config = new CompoundTag();
+		config.put("profileCollection", profiles);
+		config.put("launcher", Launcher.LOADER.saveToNbt(new Launcher(LaunchOptions.DEFAULT, profile)));
+		
+		ConfigStore.writeAtomically(new Nbt(), config, file);
+	}
+}
@@ -0,0 +1,142 @@
+package minecraft.morningmc.mcli.launcher.config;
+
+import minecraft.morningmc.mcli.minecraft.client.profile.Profile;
+import minecraft.morningmc.mcli.minecraft.client.profile.ProfileFixtures;
+import minecraft.morningmc.mcli.utils.exceptions.IllegalNbtException;
+
+import dev.dewy.nbt.Nbt;
+import dev.dewy.nbt.tags.collection.CompoundTag;
+import dev.dewy.nbt.tags.collection.ListTag;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load and save latency of the config as a single NBT file, {@code config.nbt}, and as a {@link RecordStore},
+ * {@code config.mcr}.
+ * <p>
+ * Loading reads the file and decodes every profile, or for the record store only indexes the profiles, as the
+ * launcher decodes a profile when it is first used. Saving follows a change to one profile: the NBT file is
+ * encoded and replaced as a whole, the record store appends the profile and forces it to the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigStorageBenchmark {
+	@Param({"10", "1000", "10000"})
+	private int profiles;
+	
+	private final Nbt nbt = new Nbt();
+	
+	private Path directory;
+	private List<Profile> objects;
+	private File nbtFile;
+	private File recordFile;
+	private RecordStore saveStore;
+	private int changes;
+	
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("mcli-config");
+		objects = ProfileFixtures.create(profiles);
+		
+		nbtFile = new File(directory.toFile(), "config.nbt");
+		ConfigStore.writeAtomically(nbt, encode(), nbtFile);
+		
+		recordFile = new File(directory.toFile(), "config.mcr");
+		try (RecordStore records = new RecordStore(recordFile)) {
+			ConfigStore.migrate(encode(), records);
+		}
+		
+		saveStore = new RecordStore(new File(directory.toFile(), "save.mcr"));
+		ConfigStore.migrate(encode(), saveStore);
+		saveStore.force();
+	}
+	
+	@TearDown
+	public void tearDown() throws IOException {
+		saveStore.close();
+		
+		try (var files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+	
+	@Benchmark
+	public List<Profile> loadNbt() throws IOException, IllegalNbtException {
+		ListTag<CompoundTag> list = nbt.fromFile(nbtFile).getList("profileCollection");
+		
+		List<Profile> loaded = new ArrayList<>(list.size());
+		for (CompoundTag tag : list) {
+			loaded.add(Profile.LOADER.loadFromNbt(tag));
+		}
+		
+		return loaded;
+	}
+	
+	@Benchmark
+	public Map<String, String> loadRecords() throws IOException {
+		try (RecordStore records = new RecordStore(recordFile)) {
+			Map<String, String> icons = new LinkedHashMap<>();
+			for (String name : records.keys(ConfigStore.Section.PROFILES)) {
+				icons.put(name, records.summary(ConfigStore.Section.PROFILES, name));
+			}
+			
+			return icons;
+		}
+	}
+	
+	@Benchmark
+	public List<Profile> loadRecordsFully() throws IOException, IllegalNbtException {
+		try (RecordStore records = new RecordStore(recordFile)) {
+			List<Profile> loaded = new ArrayList<>();
+			for (String name : records.keys(ConfigStore.Section.PROFILES)) {
+				loaded.add(Profile.LOADER.loadFromNbt(records.get(ConfigStore.Section.PROFILES, name)));
+			}
+			
+			return loaded;
+		}
+	}
+	
+	@Benchmark
+	public void saveNbt() throws IOException {
+		change();
+		ConfigStore.writeAtomically(nbt, encode(), nbtFile);
+	}
+	
+	@Benchmark
+	public void saveRecords() throws IOException {
+		Profile profile = change();
+		saveStore.put(ConfigStore.Section.PROFILES, profile.getName(), profile.getIcon(), Profile.LOADER.saveToNbt(profile));
+		saveStore.force();
+	}
+	
+	/**
+	 * Changes the launch options of a profile, so that every save writes something.
+	 */
+	private Profile change() {
+		Profile profile = objects.get(changes % objects.size());
+		profile.getOptions().get().setGcLogging(changes++ % 2 == 0);
+		return profile;
+	}
+	
+	private CompoundTag encode() {
+		ListTag<CompoundTag> list = new ListTag<>();
+		for (Profile profile : objects) {
+			list.add(Profile.LOADER.saveToNbt(profile));
+		}
+		
+		CompoundTag config = new CompoundTag();
+		config.put("profileCollection", list);
+		return config;
+	}
+}
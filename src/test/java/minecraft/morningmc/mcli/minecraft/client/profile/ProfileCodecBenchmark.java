@@ -0,0 +1,91 @@
+package minecraft.morningmc.mcli.minecraft.client.profile;
+
+import minecraft.morningmc.mcli.utils.exceptions.IllegalNbtException;
+
+import dev.dewy.nbt.Nbt;
+import dev.dewy.nbt.tags.collection.CompoundTag;
+import dev.dewy.nbt.tags.collection.ListTag;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of the profiles of a config through the generated {@link ProfileCodec}: the profiles are saved to
+ * a {@code profileCollection} list, written to uncompressed NBT, read back and loaded again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProfileCodecBenchmark {
+	@Param("1000")
+	private int profiles;
+	
+	private final Nbt nbt = new Nbt();
+	
+	private List<Profile> objects;
+	private CompoundTag config;
+	private byte[] bytes;
+	
+	@Setup
+	public void setup() throws IOException {
+		objects = ProfileFixtures.create(profiles);
+		
+		config = save();
+		bytes = write(config);
+	}
+	
+	@Benchmark
+	public CompoundTag save() {
+		ListTag<CompoundTag> list = new ListTag<>();
+		for (Profile profile : objects) {
+			list.add(Profile.LOADER.saveToNbt(profile));
+		}
+		
+		CompoundTag tag = new CompoundTag();
+		tag.put("profileCollection", list);
+		return tag;
+	}
+	
+	@Benchmark
+	public List<Profile> load() throws IllegalNbtException {
+		return load(config);
+	}
+	
+	@Benchmark
+	public List<Profile> roundTrip() throws IOException, IllegalNbtException {
+		return load(read(write(save())));
+	}
+	
+	@Benchmark
+	public List<Profile> read() throws IOException, IllegalNbtException {
+		return load(read(bytes));
+	}
+	
+	// Nbt.toByteArray returns an empty array in nbt 1.5.1, so the streams are used as in RecordStore
+	private byte[] write(CompoundTag tag) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+		nbt.toStream(tag, new DataOutputStream(out));
+		return out.toByteArray();
+	}
+	
+	private CompoundTag read(byte[] bytes) throws IOException {
+		return nbt.fromStream(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+	
+	private static List<Profile> load(CompoundTag config) throws IllegalNbtException {
+		ListTag<CompoundTag> list = config.getList("profileCollection");
+		
+		List<Profile> loaded = new ArrayList<>(list.size());
+		for (CompoundTag tag : list) {
+			loaded.add(Profile.LOADER.loadFromNbt(tag));
+		}
+		
+		return loaded;
+	}
+}
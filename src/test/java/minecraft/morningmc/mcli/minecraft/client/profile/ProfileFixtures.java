@@ -0,0 +1,55 @@
+package minecraft.morningmc.mcli.minecraft.client.profile;
+
+import minecraft.morningmc.mcli.minecraft.client.Version;
+import minecraft.morningmc.mcli.minecraft.client.directory.SourceMinecraftDirectory;
+import minecraft.morningmc.mcli.minecraft.client.directory.TargetMinecraftDirectory;
+import minecraft.morningmc.mcli.minecraft.launch.LaunchOptions;
+import minecraft.morningmc.mcli.utils.*;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Profiles for the benchmarks, shaped like those of a real config.
+ */
+public class ProfileFixtures {
+	private ProfileFixtures() {}
+	
+	/**
+	 * Creates profiles named {@code Profile <i>}. Every other profile has its own launch options enabled.
+	 *
+	 * @param count The number of profiles.
+	 * @return The profiles.
+	 */
+	public static List<Profile> create(int count) {
+		SourceMinecraftDirectory source = new SourceMinecraftDirectory(new File("minecraft"));
+		
+		List<Profile> profiles = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			profiles.add(new Profile("Profile " + i, "grass_block", Version.Policy.RELEASE, new Version(source, "1.20." + i % 5),
+					Switchable.of(createOptions(i), i % 2 == 0)));
+		}
+		
+		return profiles;
+	}
+	
+	/**
+	 * Creates launch options differing by a seed.
+	 *
+	 * @param seed The seed, e.g. the index of the profile.
+	 * @return The launch options.
+	 */
+	public static LaunchOptions createOptions(int seed) {
+		return new LaunchOptions(
+				Switchable.ofDisabled(null),
+				Switchable.ofEnabled(MemoryRange.of(1024, 2048 + seed)),
+				LaunchOptions.DEFAULT.getJavaArguments(),
+				false,
+				TargetMinecraftDirectory.Policy.ISOLATED,
+				TargetMinecraftDirectory.STANDARD,
+				WindowSize.window(854, 480),
+				seed % 4 == 0 ? Switchable.ofEnabled(ServerInfo.of("play.example.net", 25565)) : Switchable.ofDisabled(null),
+				seed % 3 == 0
+		);
+	}
+}
@@ -0,0 +1,91 @@
+package minecraft.morningmc.mcli.minecraft.client.version;
+
+import minecraft.morningmc.mcli.minecraft.client.directory.SourceMinecraftDirectory;
+import minecraft.morningmc.mcli.minecraft.client.version.ClasspathResolver.Classpath;
+import minecraft.morningmc.mcli.minecraft.client.version.VersionMetadata.*;
+import minecraft.morningmc.mcli.utils.Platform;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classpath resolution of a vanilla version and of a modpack adding 400 libraries on top of it.
+ * <p>
+ * The vanilla libraries are shaped like those of 1.12: LWJGL 2 with old-style natives per operating system and rules
+ * excluding macOS builds. A tenth of the modpack libraries upgrade a vanilla library, the others are new, some of them
+ * only for Windows. Resolution is measured without the per-version cache, as on the first launch of a version.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClasspathResolverBenchmark {
+	private static final int VANILLA_LIBRARIES = 40;
+	
+	@Param({"0", "400"})
+	private int modLibraries;
+	
+	private final SourceMinecraftDirectory source = new SourceMinecraftDirectory(new File("minecraft"));
+	private final RuleTable rules = RuleTable.of(Platform.CURRENT);
+	
+	private VersionMetadata metadata;
+	
+	@Setup
+	public void setup() {
+		List<Library> libraries = new ArrayList<>(VANILLA_LIBRARIES + modLibraries);
+		
+		List<Rule> notMac = List.of(new Rule(true, null, null, null, Map.of()), new Rule(false, "osx", null, null, Map.of()));
+		for (int i = 0; i < VANILLA_LIBRARIES; i++) {
+			String name = "org.vanilla:library" + i + ":2." + i % 5 + "." + i % 3;
+			
+			if (i % 8 == 0) {
+				// LWJGL 2 style: the natives are a classifier per operating system
+				Map<String, Artifact> classifiers = new LinkedHashMap<>();
+				for (String classifier : List.of("natives-linux", "natives-windows-32", "natives-windows-64", "natives-osx")) {
+					classifiers.put(classifier, artifact(name, classifier));
+				}
+				
+				libraries.add(new Library(name, i % 16 == 0 ? null : artifact(name, null), classifiers,
+						Map.of("linux", "natives-linux", "windows", "natives-windows-${arch}", "osx", "natives-osx"),
+						List.of("META-INF/"), notMac, null));
+			} else {
+				libraries.add(new Library(name, artifact(name, null), Map.of(), Map.of(), List.of(), i % 4 == 1 ? notMac : List.of(), null));
+			}
+		}
+		
+		List<Rule> windowsOnly = List.of(new Rule(true, "windows", null, null, Map.of()));
+		for (int i = 0; i < modLibraries; i++) {
+			String name = i % 10 == 0
+					              ? "org.vanilla:library" + i / 10 % VANILLA_LIBRARIES + ":2." + i % 5 + ".10"
+					              : "com.modpack.mod" + i / 20 + ":library" + i + ":1." + i % 7 + "." + i % 13;
+			
+			libraries.add(new Library(name, artifact(name, null), Map.of(), Map.of(), List.of(), i % 25 == 0 ? windowsOnly : List.of(), null));
+		}
+		
+		metadata = new VersionMetadata("1.12.2-modpack", null, "release", "net.minecraft.launchwrapper.Launch", null, List.of(), List.of(),
+				"1.12", null, null, "1.12.2", 8, "2017-09-18T08:39:46+00:00", libraries);
+	}
+	
+	@Benchmark
+	public Classpath resolve() {
+		return ClasspathResolver.resolve(source, metadata, rules);
+	}
+	
+	@Benchmark
+	public String resolveArgument() {
+		return ClasspathResolver.resolve(source, metadata, rules).toArgument(Platform.CURRENT);
+	}
+	
+	private static Artifact artifact(String name, String classifier) {
+		String[] parts = name.split(":");
+		String path = parts[0].replace('.', '/') + "/" + parts[1] + "/" + parts[2] + "/" + parts[1] + "-" + parts[2]
+				              + (classifier != null ? "-" + classifier : "") + ".jar";
+		
+		return new Artifact(path, null, -1, null);
+	}
+}
@@ -0,0 +1,174 @@
+package minecraft.morningmc.mcli.minecraft.download;
+
+import minecraft.morningmc.mcli.minecraft.client.asset.AssetVerifier;
+import minecraft.morningmc.mcli.minecraft.client.directory.SourceMinecraftDirectory;
+import minecraft.morningmc.mcli.utils.exceptions.DownloadException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Downloads against a local mirror served by {@link HttpServer}, which honours range requests unless told otherwise.
+ */
+class DownloaderTest {
+	private final Map<String, byte[]> files = new HashMap<>();
+	private final List<String> requests = new CopyOnWriteArrayList<>();
+	
+	/** The start of the {@code Content-Range} of the next partial response, -1 to answer ranges truthfully. */
+	private volatile long forgedRangeStart = -1;
+	
+	private HttpServer server;
+	private Downloader downloader;
+	
+	@TempDir
+	Path directory;
+	
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", this::serve);
+		server.start();
+		
+		downloader = new Downloader();
+	}
+	
+	@AfterEach
+	void tearDown() {
+		downloader.close();
+		server.stop(0);
+	}
+	
+	private void serve(HttpExchange exchange) throws IOException {
+		String range = exchange.getRequestHeaders().getFirst("Range");
+		requests.add(exchange.getRequestURI().getPath() + (range != null ? " " + range : ""));
+		
+		byte[] content = files.get(exchange.getRequestURI().getPath());
+		if (content == null) {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+			return;
+		}
+		
+		int start = 0;
+		if (range != null) {
+			start = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+			
+			long forged = forgedRangeStart;
+			forgedRangeStart = -1;
+			exchange.getResponseHeaders().add("Content-Range", "bytes " + (forged >= 0 ? forged : start) + "-" + (content.length - 1) + "/" + content.length);
+		}
+		
+		exchange.sendResponseHeaders(range != null ? 206 : 200, content.length - start);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(content, start, content.length - start);
+		}
+	}
+	
+	private URI uri(String path) {
+		return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path);
+	}
+	
+	private static byte[] content(int length, long seed) {
+		byte[] content = new byte[length];
+		new Random(seed).nextBytes(content);
+		return content;
+	}
+	
+	private static String sha1(byte[] content) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(content));
+	}
+	
+	@Test
+	void downloadsAndVerifies() throws Exception {
+		byte[] content = content(300_000, 1);
+		files.put("/file.bin", content);
+		File target = directory.resolve("file.bin").toFile();
+		
+		DownloadTask task = new DownloadTask(uri("/file.bin"), target, sha1(content), content.length);
+		assertEquals(target, downloader.download(task).get());
+		
+		assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+		assertFalse(task.getPartFile().exists());
+		
+		// an intact target is not downloaded again
+		downloader.download(task).get();
+		assertEquals(List.of("/file.bin"), requests);
+	}
+	
+	@Test
+	void resumesPartialFile() throws Exception {
+		byte[] content = content(300_000, 2);
+		files.put("/file.bin", content);
+		
+		DownloadTask task = new DownloadTask(uri("/file.bin"), directory.resolve("file.bin").toFile(), sha1(content), content.length);
+		Files.write(task.getPartFile().toPath(), Arrays.copyOf(content, 100_000));
+		
+		downloader.download(task).get();
+		
+		assertArrayEquals(content, Files.readAllBytes(task.target().toPath()));
+		assertEquals(List.of("/file.bin bytes=100000-"), requests);
+	}
+	
+	@Test
+	void restartsOnUnexpectedRange() throws Exception {
+		byte[] content = content(300_000, 3);
+		files.put("/file.bin", content);
+		forgedRangeStart = 0;
+		
+		DownloadTask task = new DownloadTask(uri("/file.bin"), directory.resolve("file.bin").toFile(), sha1(content), content.length);
+		Files.write(task.getPartFile().toPath(), Arrays.copyOf(content, 100_000));
+		
+		downloader.download(task).get();
+		
+		assertArrayEquals(content, Files.readAllBytes(task.target().toPath()));
+		assertEquals(List.of("/file.bin bytes=100000-", "/file.bin"), requests);
+	}
+	
+	@Test
+	void doesNotRetryClientErrors() {
+		DownloadTask task = new DownloadTask(uri("/missing.bin"), directory.resolve("missing.bin").toFile(), null, -1);
+		
+		ExecutionException e = assertThrows(ExecutionException.class, () -> downloader.download(task).get());
+		assertInstanceOf(DownloadException.class, e.getCause());
+		assertEquals(List.of("/missing.bin"), requests);
+	}
+	
+	@Test
+	void repairsAssetsFromMirror() throws Exception {
+		byte[] content = content(5_000, 4);
+		String hash = sha1(content);
+		files.put("/mirror/assets/" + hash.substring(0, 2) + "/" + hash, content);
+		
+		AssetVerifier verifier = new AssetVerifier(new SourceMinecraftDirectory(directory.toFile()), uri("/mirror/assets/"));
+		List<AssetVerifier.Asset> assets = List.of(new AssetVerifier.Asset("minecraft/sounds/test.ogg", hash, content.length));
+		
+		AssetVerifier.Report report = verifier.verify(assets);
+		assertEquals(1, report.missing().size());
+		
+		downloader.downloadAll(verifier.getRepairTasks(report)).get();
+		
+		report = verifier.verify(assets);
+		assertTrue(report.missing().isEmpty() && report.corrupt().isEmpty());
+		assertArrayEquals(content, Files.readAllBytes(verifier.resolve(assets.get(0)).toPath()));
+	}
+}